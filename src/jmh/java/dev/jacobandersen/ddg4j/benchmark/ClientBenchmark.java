@@ -0,0 +1,135 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.benchmark;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.api.Fields;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.transport.JdkHttpTransport;
+import dev.jacobandersen.ddg4j.transport.Transport;
+import dev.jacobandersen.ddg4j.transport.UnirestTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * End-to-end client overhead against a fault-free stub server: request building, connection pooling, response handling
+ * and decoding, without the network or DuckDuckGo in the way. Each transport is measured side by side; the jdk one
+ * lives in the Java 11 overlay, so it only runs from the multi-release jar on Java 11 and newer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+  private static final String QUERY = "valley forge national historical park";
+
+  @Param({"small", "medium", "huge"})
+  public String payload;
+
+  @Param({"unirest", "jdk"})
+  public String transport;
+
+  private Transport http;
+  private StubServer server;
+  private DuckDuckGoClient client;
+  private DuckDuckGoClient lazyClient;
+  private DuckDuckGoClient cachedClient;
+  private DuckDuckGoClient meteredClient;
+
+  @Setup
+  public void setup() throws IOException {
+    if(this.transport.equals("jdk") && !JdkHttpTransport.isSupported()) {
+      throw new IllegalStateException("The jdk transport requires Java 11 or newer, running from the multi-release jar");
+    }
+
+    this.server = StubServer.builder().fallback(Payloads.read(this.payload)).start();
+    this.http = this.transport.equals("jdk") ? JdkHttpTransport.builder().build() : UnirestTransport.builder().build();
+    this.client = this.client().build();
+    this.lazyClient = this.client().lazyResults(true).build();
+    this.cachedClient = this.client().cache(ResultCache.builder().build()).build();
+    this.meteredClient = this.client().metrics(new Metrics()).build();
+  }
+
+  private DuckDuckGoClient.Builder client() {
+    return DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).transport(this.http);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.client.close();
+    this.lazyClient.close();
+    this.cachedClient.close();
+    this.meteredClient.close();
+    this.http.close();
+    this.server.close();
+  }
+
+  @Benchmark
+  public SearchResult search() {
+    return this.client.search(QUERY);
+  }
+
+  @Benchmark
+  public SearchResult searchAbstractOnly() {
+    return this.client.search(QUERY, Fields.ABSTRACT);
+  }
+
+  @Benchmark
+  public SearchResult searchAsync() {
+    return this.client.searchAsync(QUERY).join();
+  }
+
+  @Benchmark
+  public SearchResult searchLazy() {
+    return this.lazyClient.search(QUERY);
+  }
+
+  @Benchmark
+  public SearchResult searchCached() {
+    return this.cachedClient.search(QUERY);
+  }
+
+  @Benchmark
+  public SearchResult searchMetered() {
+    return this.meteredClient.search(QUERY);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.benchmark;
+
+import dev.jacobandersen.ddg4j.api.Fields;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializerBenchmark {
+  private static final Set<Fields> ABSTRACT_ONLY = EnumSet.of(Fields.ABSTRACT);
+
+  @Param({"small", "medium", "huge"})
+  public String payload;
+
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+  private byte[] body;
+
+  @Setup
+  public void setup() {
+    this.body = Payloads.read(this.payload);
+  }
+
+  @Benchmark
+  public SearchResult decode() {
+    return this.mapper.readValue(this.body, SearchResult.class);
+  }
+
+  @Benchmark
+  public SearchResult decodeStream() {
+    return this.mapper.readSearchResult(new ByteArrayInputStream(this.body), null);
+  }
+
+  @Benchmark
+  public SearchResult decodeAbstractOnly() {
+    return this.mapper.readSearchResult(new ByteArrayInputStream(this.body), ABSTRACT_ONLY);
+  }
+
+  @Benchmark
+  public SearchResult decodeLazy() {
+    return SearchResult.lazy(this.body);
+  }
+
+  @Benchmark
+  public String decodeLazyInstantInformation() {
+    return SearchResult.lazy(this.body).instantInformation();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.benchmark;
+
+import dev.jacobandersen.ddg4j.api.Answer;
+import dev.jacobandersen.ddg4j.util.EnumLookup;
+import dev.jacobandersen.ddg4j.util.EnumUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnumLookupBenchmark {
+  private static final EnumLookup<Answer.Type> ANSWER_TYPES = EnumLookup.of(Answer.Type.class);
+
+  @Param({"calc", "ip_loc", "unknown", ""})
+  public String name;
+
+  private char[] chars;
+
+  @Setup
+  public void setup() {
+    this.chars = this.name.toCharArray();
+  }
+
+  @Benchmark
+  public Optional<Answer.Type> constantByName() {
+    return EnumUtil.constantByName(Answer.Type.class, this.name);
+  }
+
+  @Benchmark
+  public Answer.Type byName() {
+    return Answer.Type.byName(this.name);
+  }
+
+  @Benchmark
+  public Answer.Type lookupChars() {
+    return ANSWER_TYPES.find(this.chars, 0, this.chars.length);
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.benchmark;
+
+import dev.jacobandersen.ddg4j.api.InstantInformationPlan;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstantInformationBenchmark {
+  private static final String[] PRIORITIES = {"related.0", "result.0", "abstract", "answer"};
+  private static final InstantInformationPlan PLAN = InstantInformationPlan.compile(PRIORITIES);
+
+  @Param({"small", "medium", "huge"})
+  public String payload;
+
+  private final StringBuilder out = new StringBuilder(1024);
+  private SearchResult result;
+  private SearchResult frozen;
+
+  @Setup
+  public void setup() {
+    this.result = new CustomObjectMapper().readValue(Payloads.read(this.payload), SearchResult.class);
+    this.frozen = this.result.freeze();
+  }
+
+  @Benchmark
+  public String defaultPriorities() {
+    return this.result.instantInformation();
+  }
+
+  @Benchmark
+  public String givenPriorities() {
+    return this.result.instantInformation(PRIORITIES);
+  }
+
+  @Benchmark
+  public String compiledPlan() {
+    return this.result.instantInformation(PLAN);
+  }
+
+  @Benchmark
+  public StringBuilder render() throws IOException {
+    this.out.setLength(0);
+    this.result.renderInstantInformation(this.out);
+    return this.out;
+  }
+
+  @Benchmark
+  public String frozen() {
+    return this.frozen.instantInformation();
+  }
+
+  @Benchmark
+  public long frozenFingerprint() {
+    return this.frozen.fingerprint();
+  }
+
+  @Benchmark
+  public int hashCodeMutable() {
+    return this.result.hashCode();
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/*
+ * Recorded DuckDuckGo responses: an instant answer (small), a category page (medium) and a category page with
+ * over a thousand related topics (huge).
+ */
+final class Payloads {
+  private Payloads() {
+  }
+
+  static byte[] read(final String payload) {
+    try(InputStream in = Payloads.class.getResourceAsStream("/payloads/" + payload + ".json")) {
+      if(in == null) {
+        throw new IllegalArgumentException(String.format("No such payload: %s", payload));
+      }
+
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int read;
+      while((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
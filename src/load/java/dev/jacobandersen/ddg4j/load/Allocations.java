@@ -0,0 +1,85 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.load;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+
+/*
+ * Samples the bytes allocated by every live thread, other than the stub server's, and the time spent collecting
+ * them. Threads that exit during a run take their allocations with them, so this is a lower bound.
+ */
+final class Allocations {
+  private static final String STUB_THREAD = "ddg4j-stub-server";
+
+  private final com.sun.management.ThreadMXBean threads;
+
+  Allocations() {
+    final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if(threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+      this.threads = (com.sun.management.ThreadMXBean) threads;
+      this.threads.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      this.threads = null;
+    }
+  }
+
+  boolean supported() {
+    return this.threads != null;
+  }
+
+  long allocatedBytes() {
+    if(this.threads == null) {
+      return 0;
+    }
+
+    final long[] ids = this.threads.getAllThreadIds();
+    final ThreadInfo[] infos = this.threads.getThreadInfo(ids);
+    final long[] allocated = this.threads.getThreadAllocatedBytes(ids);
+    long total = 0;
+    for(int i = 0; i < ids.length; i++) {
+      if(infos[i] != null && allocated[i] > 0 && !infos[i].getThreadName().startsWith(STUB_THREAD)) {
+        total += allocated[i];
+      }
+    }
+    return total;
+  }
+
+  static long collections() {
+    long total = 0;
+    for(final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, collector.getCollectionCount());
+    }
+    return total;
+  }
+
+  static long collectionMillis() {
+    long total = 0;
+    for(final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      total += Math.max(0, collector.getCollectionTime());
+    }
+    return total;
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.load;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.hedge.HedgePolicy;
+import dev.jacobandersen.ddg4j.limit.AimdLimit;
+import dev.jacobandersen.ddg4j.limit.ConcurrencyLimit;
+import dev.jacobandersen.ddg4j.limit.FixedLimit;
+import dev.jacobandersen.ddg4j.limit.GradientLimit;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Gauge;
+import dev.jacobandersen.ddg4j.metrics.HistogramSnapshot;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.metrics.MetricsSink;
+import dev.jacobandersen.ddg4j.metrics.Stage;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.Latency;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.transport.JdkHttpTransport;
+import dev.jacobandersen.ddg4j.transport.Transport;
+import dev.jacobandersen.ddg4j.transport.UnirestTransport;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/*
+ * An open-loop load generator: requests are started on a fixed schedule whether or not earlier ones have
+ * completed, as independent users would send them. Latency is measured from when each request was due to start
+ * rather than when it actually started, so time spent queued behind a stalled client or a saturated thread pool is
+ * counted instead of being silently omitted. Run it with ./gradlew loadTest -PloadArgs="--rate=1000".
+ */
+public final class LoadTest {
+  private static final long DRAIN_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final String[] PERCENTILES = {"p50", "p90", "p99", "p99.9", "p99.99"};
+  private static final double[] PERCENTILE_VALUES = {50, 90, 99, 99.9, 99.99};
+
+  private final Options options;
+  private final Transport transport;
+  private final DuckDuckGoClient client;
+  private final ExecutorService workers;
+  private final Histogram corrected = new ConcurrentHistogram(3);
+  private final Histogram uncorrected = new ConcurrentHistogram(3);
+  private final LongAdder succeeded = new LongAdder();
+  private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+  private final AtomicLong outstanding = new AtomicLong();
+  private final Metrics metrics = new Metrics();
+  private volatile boolean measuring;
+
+  private LoadTest(final Options options, final String baseUrl) {
+    this.options = options;
+    this.transport = transport(options);
+    this.client = DuckDuckGoClient.builder()
+            .baseUrl(baseUrl)
+            .transport(this.transport)
+            .compression(options.compression)
+            .concurrencyLimit(limit(options))
+            .cache(options.cache ? ResultCache.builder().build() : null)
+            .hedging(options.hedge ? HedgePolicy.builder().build() : null)
+            .metrics(new MetricsSink() {
+              // leave the warmup out of the client's own metrics, as it is left out of the latency
+              @Override
+              public void record(final Stage stage, final long nanos) {
+                if(LoadTest.this.measuring) {
+                  LoadTest.this.metrics.record(stage, nanos);
+                }
+              }
+
+              @Override
+              public void increment(final Counter counter, final long amount) {
+                if(LoadTest.this.measuring) {
+                  LoadTest.this.metrics.increment(counter, amount);
+                }
+              }
+
+              @Override
+              public void gauge(final Gauge gauge, final LongSupplier value) {
+                LoadTest.this.metrics.gauge(gauge, value);
+              }
+            })
+            .build();
+    this.workers = options.blocking ? Executors.newFixedThreadPool(options.threads, runnable -> {
+      final Thread thread = new Thread(runnable, "ddg4j-load");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if(args.length == 1 && args[0].equals("--help")) {
+      System.out.println(Options.usage());
+      return;
+    }
+
+    final Options options;
+    try {
+      options = Options.parse(args);
+    } catch(final IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.err.println(Options.usage());
+      System.exit(2);
+      return;
+    }
+
+    final List<String> corpus = options.corpus != null ? options.corpus : new ArrayList<>(Fixtures.recorded().keySet());
+    final StubServer stub = options.baseUrl != null ? null : StubServer.builder()
+            .recorded()
+            .compression(true)
+            .faults(Faults.builder()
+                    .latency(options.stubLatency.isZero() ? Latency.NONE : Latency.logNormal(options.stubLatency, options.stubSigma))
+                    .status(options.stubErrors, 503)
+                    .reset(options.stubResets)
+                    .build())
+            .start();
+
+    try {
+      final LoadTest test = new LoadTest(options, stub != null ? stub.baseUrl() : options.baseUrl);
+      test.run(corpus, System.out);
+    } finally {
+      if(stub != null) {
+        stub.close();
+      }
+    }
+  }
+
+  private void run(final List<String> corpus, final PrintStream out) throws IOException {
+    final Allocations allocations = new Allocations();
+    final long interval = Math.round(TimeUnit.SECONDS.toNanos(1) / this.options.rate);
+    final long start = System.nanoTime();
+    final long measureFrom = start + this.options.warmup.toNanos();
+    final long end = measureFrom + this.options.duration.toNanos();
+
+    out.printf("Sending %.1f requests/s for %ds after a %ds warmup, replaying %d queries (%s)%n",
+            this.options.rate, this.options.duration.getSeconds(), this.options.warmup.getSeconds(), corpus.size(),
+            this.options.blocking ? "blocking, " + this.options.threads + " threads" : "async");
+
+    long allocatedBefore = -1;
+    long collectionsBefore = 0;
+    long collectionMillisBefore = 0;
+    long sent = 0;
+    for(long i = 0; ; i++) {
+      // computed from the start rather than accumulated, so rounding never drifts the schedule
+      final long intended = start + i * interval;
+      if(intended - end >= 0) {
+        break;
+      }
+
+      final boolean measured = intended - measureFrom >= 0;
+      if(measured && allocatedBefore < 0) {
+        allocatedBefore = allocations.allocatedBytes();
+        collectionsBefore = Allocations.collections();
+        collectionMillisBefore = Allocations.collectionMillis();
+        this.measuring = true;
+      }
+
+      long wait;
+      while((wait = intended - System.nanoTime()) > 0) {
+        LockSupport.parkNanos(wait);
+      }
+
+      if(measured) {
+        sent++;
+      }
+      this.send(corpus.get((int) (i % corpus.size())), intended, measured);
+    }
+    final long sendingEnded = System.nanoTime();
+
+    final long drainUntil = sendingEnded + DRAIN_NANOS;
+    while(this.outstanding.get() > 0 && System.nanoTime() - drainUntil < 0) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    final long drained = System.nanoTime();
+    this.measuring = false;
+    final long allocated = allocations.allocatedBytes() - allocatedBefore;
+    final long collections = Allocations.collections() - collectionsBefore;
+    final long collectionMillis = Allocations.collectionMillis() - collectionMillisBefore;
+    final long incomplete = this.outstanding.get();
+
+    final double seconds = this.options.duration.toNanos() / 1e9;
+    // a client that could not keep up is still completing requests after the schedule has ended
+    final double completedSeconds = Math.max(seconds, (drained - measureFrom) / 1e9);
+    final long failed = this.errors.values().stream().mapToLong(LongAdder::sum).sum();
+    final long completed = this.succeeded.sum() + failed;
+    out.printf("%nrequests    %d sent, %d completed, %d incomplete after %ds%n", sent, completed, incomplete, TimeUnit.NANOSECONDS.toSeconds(DRAIN_NANOS));
+    out.printf("throughput  %.1f requests/s offered, %.1f succeeded/s%n", sent / seconds, this.succeeded.sum() / completedSeconds);
+    out.printf("errors      %.3f%% (%d)%n", completed == 0 ? 0 : 100.0 * failed / completed, failed);
+    new TreeMap<>(this.errors).forEach((error, count) -> out.printf("            %d x %s%n", count.sum(), error));
+    out.printf("latency     %s%n", summary(this.corrected));
+    out.printf("uncorrected %s%n", summary(this.uncorrected));
+    out.printf("%nclient stages%n");
+    for(final Stage stage : Stage.values()) {
+      final HistogramSnapshot snapshot = this.metrics.histogram(stage).snapshot();
+      if(snapshot.count() > 0) {
+        out.printf("  %-19s p50 %s  p99 %s  p99.9 %s  max %s%n", stage, millis(snapshot.valueAtPercentile(50)),
+                millis(snapshot.valueAtPercentile(99)), millis(snapshot.valueAtPercentile(99.9)), millis(snapshot.max()));
+      }
+    }
+    out.printf("  %d requests, %d errors, %d bytes read from %d on the wire, %d cache hits, %d misses%n",
+            this.metrics.count(Counter.REQUESTS), this.metrics.count(Counter.ERRORS), this.metrics.count(Counter.BYTES_READ),
+            this.metrics.count(Counter.WIRE_BYTES), this.metrics.count(Counter.CACHE_HITS), this.metrics.count(Counter.CACHE_MISSES));
+    out.printf("  concurrency limit %d at the end, %d searches rejected, %d hedges%n%n", this.metrics.gauge(Gauge.CONCURRENCY_LIMIT),
+            this.metrics.count(Counter.REJECTED), this.metrics.count(Counter.HEDGES));
+
+    if(allocations.supported() && completed > 0) {
+      out.printf("allocation  %.1f KiB/request, %.1f MiB/s, %d collections taking %dms%n",
+              allocated / 1024.0 / completed, allocated / 1048576.0 / completedSeconds, collections, collectionMillis);
+    }
+
+    if(this.options.histogram != null) {
+      try(PrintStream histogram = new PrintStream(Files.newOutputStream(this.options.histogram), false, "UTF-8")) {
+        // in milliseconds
+        this.corrected.outputPercentileDistribution(histogram, 1e6);
+      }
+      out.printf("histogram   %s%n", this.options.histogram);
+    }
+
+    this.client.close();
+    this.transport.close();
+    if(this.workers != null) {
+      this.workers.shutdownNow();
+    }
+  }
+
+  private void send(final String query, final long intended, final boolean measured) {
+    this.outstanding.incrementAndGet();
+
+    if(this.workers != null) {
+      this.workers.execute(() -> {
+        // what a closed-loop harness would measure: from when a worker got round to sending the request
+        final long sent = System.nanoTime();
+        try {
+          this.client.search(query);
+          this.complete(intended, sent, measured, null);
+        } catch(final RuntimeException ex) {
+          this.complete(intended, sent, measured, ex);
+        }
+      });
+      return;
+    }
+
+    final long sent = System.nanoTime();
+    final CompletableFuture<SearchResult> future;
+    try {
+      future = this.client.searchAsync(query);
+    } catch(final RuntimeException ex) {
+      this.complete(intended, sent, measured, ex);
+      return;
+    }
+    future.whenComplete((result, error) -> this.complete(intended, sent, measured, error));
+  }
+
+  private void complete(final long intended, final long sent, final boolean measured, final Throwable error) {
+    final long now = System.nanoTime();
+    if(measured) {
+      this.corrected.recordValue(now - intended);
+      this.uncorrected.recordValue(now - sent);
+      if(error == null) {
+        this.succeeded.increment();
+      } else {
+        this.errors.computeIfAbsent(describe(error), key -> new LongAdder()).increment();
+      }
+    }
+    this.outstanding.decrementAndGet();
+  }
+
+  private static String describe(final Throwable error) {
+    final Throwable unwrapped = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if(unwrapped instanceof SearchException && ((SearchException) unwrapped).status() != -1) {
+      return "HTTP " + ((SearchException) unwrapped).status();
+    }
+
+    final Throwable cause = unwrapped.getCause() != null ? unwrapped.getCause() : unwrapped;
+    return unwrapped.getMessage() + " (" + cause.getClass().getSimpleName() + ")";
+  }
+
+  private static Transport transport(final Options options) {
+    if(options.transport.equals("jdk")) {
+      return JdkHttpTransport.builder().build();
+    }
+
+    return UnirestTransport.builder().maxConnections(options.connections).maxConnectionsPerRoute(options.connections).build();
+  }
+
+  private static ConcurrencyLimit limit(final Options options) {
+    switch (options.limit) {
+      case "aimd":
+        return AimdLimit.builder().maxLimit(options.maxInFlight).build();
+      case "gradient":
+        return GradientLimit.builder().maxLimit(options.maxInFlight).build();
+      default:
+        return new FixedLimit(options.maxInFlight);
+    }
+  }
+
+  private static String summary(final Histogram histogram) {
+    final StringBuilder summary = new StringBuilder();
+    for(int i = 0; i < PERCENTILES.length; i++) {
+      summary.append(PERCENTILES[i]).append(' ').append(millis(histogram.getValueAtPercentile(PERCENTILE_VALUES[i]))).append("  ");
+    }
+    return summary.append("max ").append(millis(histogram.getMaxValue())).toString();
+  }
+
+  private static String millis(final long nanos) {
+    return String.format("%.3fms", nanos / 1e6);
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.load;
+
+import dev.jacobandersen.ddg4j.transport.JdkHttpTransport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * The load test's command line: --name=value pairs, with defaults that run a short test against the stub server.
+ */
+final class Options {
+  private static final String USAGE = String.join(System.lineSeparator(),
+          "Usage: LoadTest [--name=value]...",
+          "  --rate=500             arrivals per second, sent whether or not earlier requests have completed",
+          "  --duration=30s         how long to measure for",
+          "  --warmup=10s           how long to run before measuring",
+          "  --corpus=FILE          queries to replay in order, one per line (default: the recorded fixtures)",
+          "  --mode=async           async sends through searchAsync; blocking runs search on --threads threads",
+          "  --threads=64           worker threads in blocking mode",
+          "  --limit=fixed          the client's concurrency limit: fixed, aimd or gradient",
+          "  --max-in-flight=256    the fixed limit, or the most an adaptive one may grow to",
+          "  --transport=unirest    the client's transport: unirest, or jdk on Java 11 and newer",
+          "  --connections=20       the unirest transport's connection pool size",
+          "  --compression=true     whether the client requests compressed responses",
+          "  --cache=false          whether the client caches results",
+          "  --hedge=false          whether the client hedges slow requests",
+          "  --base-url=URL         load an existing server instead of starting the stub",
+          "  --stub-latency=0ms     median of the stub's log-normal latency",
+          "  --stub-sigma=0.5       spread of the stub's latency tail",
+          "  --stub-errors=0        probability of the stub responding 503",
+          "  --stub-resets=0        probability of the stub resetting the connection",
+          "  --histogram=FILE       also write the corrected latency distribution to FILE");
+
+  final double rate;
+  final Duration duration;
+  final Duration warmup;
+  final List<String> corpus;
+  final boolean blocking;
+  final int threads;
+  final String limit;
+  final int maxInFlight;
+  final String transport;
+  final int connections;
+  final boolean compression;
+  final boolean cache;
+  final boolean hedge;
+  final String baseUrl;
+  final Duration stubLatency;
+  final double stubSigma;
+  final double stubErrors;
+  final double stubResets;
+  final Path histogram;
+
+  private Options(final Map<String, String> values) throws IOException {
+    this.rate = Double.parseDouble(take(values, "rate", "500"));
+    this.duration = duration(take(values, "duration", "30s"));
+    this.warmup = duration(take(values, "warmup", "10s"));
+    final String corpus = take(values, "corpus", null);
+    this.corpus = corpus == null ? null : corpus(Paths.get(corpus));
+    final String mode = take(values, "mode", "async");
+    if(!mode.equals("async") && !mode.equals("blocking")) {
+      throw new IllegalArgumentException(String.format("Unknown mode: %s", mode));
+    }
+    this.blocking = mode.equals("blocking");
+    this.threads = Integer.parseInt(take(values, "threads", "64"));
+    this.limit = take(values, "limit", "fixed");
+    if(!this.limit.equals("fixed") && !this.limit.equals("aimd") && !this.limit.equals("gradient")) {
+      throw new IllegalArgumentException(String.format("Unknown limit: %s", this.limit));
+    }
+    this.maxInFlight = Integer.parseInt(take(values, "max-in-flight", "256"));
+    this.transport = take(values, "transport", "unirest");
+    if(!this.transport.equals("unirest") && !this.transport.equals("jdk")) {
+      throw new IllegalArgumentException(String.format("Unknown transport: %s", this.transport));
+    }
+    if(this.transport.equals("jdk") && !JdkHttpTransport.isSupported()) {
+      throw new IllegalArgumentException("The jdk transport requires Java 11 or newer");
+    }
+    this.connections = Integer.parseInt(take(values, "connections", "20"));
+    this.compression = Boolean.parseBoolean(take(values, "compression", "true"));
+    this.cache = Boolean.parseBoolean(take(values, "cache", "false"));
+    this.hedge = Boolean.parseBoolean(take(values, "hedge", "false"));
+    this.baseUrl = take(values, "base-url", null);
+    this.stubLatency = duration(take(values, "stub-latency", "0ms"));
+    this.stubSigma = Double.parseDouble(take(values, "stub-sigma", "0.5"));
+    this.stubErrors = Double.parseDouble(take(values, "stub-errors", "0"));
+    this.stubResets = Double.parseDouble(take(values, "stub-resets", "0"));
+    final String histogram = take(values, "histogram", null);
+    this.histogram = histogram == null ? null : Paths.get(histogram);
+
+    if(!values.isEmpty()) {
+      throw new IllegalArgumentException(String.format("Unknown options: %s", values.keySet()));
+    }
+
+    if(!(this.rate > 0)) {
+      throw new IllegalArgumentException("rate must be positive");
+    }
+  }
+
+  static Options parse(final String[] args) throws IOException {
+    final Map<String, String> values = new HashMap<>();
+    for(final String arg : args) {
+      final int equals = arg.indexOf('=');
+      if(!arg.startsWith("--") || equals < 0) {
+        throw new IllegalArgumentException(String.format("Expected --name=value, got %s", arg));
+      }
+      values.put(arg.substring(2, equals), arg.substring(equals + 1));
+    }
+    return new Options(values);
+  }
+
+  static String usage() {
+    return USAGE;
+  }
+
+  private static String take(final Map<String, String> values, final String name, final String def) {
+    final String value = values.remove(name);
+    return value == null ? def : value;
+  }
+
+  /*
+   * Parses durations such as 500ms, 30s or 2m.
+   */
+  private static Duration duration(final String value) {
+    final String lower = value.toLowerCase(Locale.ROOT);
+    if(lower.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(lower.substring(0, lower.length() - 2)));
+    } else if(lower.endsWith("s")) {
+      return Duration.ofSeconds(Long.parseLong(lower.substring(0, lower.length() - 1)));
+    } else if(lower.endsWith("m")) {
+      return Duration.ofMinutes(Long.parseLong(lower.substring(0, lower.length() - 1)));
+    }
+
+    throw new IllegalArgumentException(String.format("Expected a duration such as 500ms, 30s or 2m, got %s", value));
+  }
+
+  private static List<String> corpus(final Path file) throws IOException {
+    final List<String> queries = new ArrayList<>();
+    for(final String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+      final String query = line.trim();
+      if(!query.isEmpty() && !query.startsWith("#")) {
+        queries.add(query);
+      }
+    }
+
+    if(queries.isEmpty()) {
+      throw new IllegalArgumentException(String.format("No queries in %s", file));
+    }
+    return queries;
+  }
+}
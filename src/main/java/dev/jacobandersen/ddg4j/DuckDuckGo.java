@@ -24,21 +24,28 @@
 package dev.jacobandersen.ddg4j;
 
 import dev.jacobandersen.ddg4j.api.SearchResult;
-import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
-import kong.unirest.Unirest;
 
 /**
  * The entrypoint for searching DuckDuckGo.
+ * <p>This is a thin facade over a shared {@link DuckDuckGoClient} with the default configuration. Create your own
+ * client with {@link DuckDuckGoClient#builder()} to tune connection pooling and timeouts.</p>
  *
  * @since 1.0.0
  */
 public final class DuckDuckGo {
-  private static final String BASE_URL = "https://api.duckduckgo.com/?no_redirect=1&format=json&q=";
-  private static boolean initialized = false;
-
   private DuckDuckGo() {
   }
 
+  /**
+   * Gets the shared client used by {@link #search(String)}, creating it on first use.
+   *
+   * @return the shared client
+   * @since 1.1.0
+   */
+  public static DuckDuckGoClient defaultClient() {
+    return DefaultClient.INSTANCE;
+  }
+
   /**
    * Search DuckDuckGo and get the SearchResult object to work with.
    *
@@ -47,13 +54,10 @@ public final class DuckDuckGo {
    * @since 1.0.0
    */
   public static SearchResult search(final String query) {
-    if(!initialized) {
-      Unirest.config().setObjectMapper(new CustomObjectMapper());
-      initialized = true;
-    }
+    return defaultClient().search(query);
+  }
 
-    return Unirest.get(String.format("%s%s", BASE_URL, query))
-            .asObject(SearchResult.class)
-            .getBody();
+  private static final class DefaultClient {
+    private static final DuckDuckGoClient INSTANCE = DuckDuckGoClient.builder().build();
   }
 }
@@ -0,0 +1,1223 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import dev.jacobandersen.ddg4j.api.Fields;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.breaker.CircuitBreaker;
+import dev.jacobandersen.ddg4j.breaker.CircuitOpenException;
+import dev.jacobandersen.ddg4j.cache.DiskCache;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.hedge.HedgePolicy;
+import dev.jacobandersen.ddg4j.limit.ConcurrencyLimit;
+import dev.jacobandersen.ddg4j.limit.FixedLimit;
+import dev.jacobandersen.ddg4j.limit.LimitExceededException;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Gauge;
+import dev.jacobandersen.ddg4j.metrics.MetricsSink;
+import dev.jacobandersen.ddg4j.metrics.Stage;
+import dev.jacobandersen.ddg4j.transport.Transport;
+import dev.jacobandersen.ddg4j.transport.TransportRequest;
+import dev.jacobandersen.ddg4j.transport.TransportResponse;
+import dev.jacobandersen.ddg4j.transport.UnirestTransport;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import dev.jacobandersen.ddg4j.util.FlightEvents;
+import dev.jacobandersen.ddg4j.util.InFlightLimiter;
+import dev.jacobandersen.ddg4j.util.Queries;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import dev.jacobandersen.ddg4j.util.SingleFlight;
+import dev.jacobandersen.ddg4j.util.VirtualThreads;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A client for searching DuckDuckGo.
+ * <p>Each client owns its own transport, object mapper and configuration, and is safe to share
+ * between any number of threads. Clients should be reused rather than created per request, and closed once
+ * they are no longer needed.</p>
+ *
+ * @since 1.1.0
+ */
+public final class DuckDuckGoClient implements AutoCloseable {
+  /**
+   * The default DuckDuckGo API endpoint.
+   *
+   * @since 1.1.0
+   */
+  public static final String DEFAULT_BASE_URL = "https://api.duckduckgo.com/";
+
+  private final String baseUrl;
+  private final String requestPrefix;
+  private final Map<String, String> headers;
+  private final Transport transport;
+  private final boolean ownsTransport;
+  private final CustomObjectMapper mapper;
+  private final InFlightLimiter limiter;
+  private final ExecutorService virtualThreads;
+  private final boolean lazyResults;
+  private final ResultCache cache;
+  private final DiskCache diskCache;
+  private final SingleFlight<FlightKey, SearchResult> flights;
+  private final MetricsSink metrics;
+  private final HedgePolicy hedging;
+  private final ScheduledThreadPoolExecutor hedgeTimer;
+  private final CircuitBreaker breaker;
+  private final Predicate<String> refresher = this::refresh;
+  private final int maxConcurrentRefreshes;
+  private final AtomicInteger refreshes = new AtomicInteger();
+
+  private DuckDuckGoClient(final Builder builder) {
+    this.baseUrl = builder.baseUrl;
+    this.requestPrefix = builder.baseUrl + (builder.baseUrl.indexOf('?') < 0 ? '?' : '&') + "no_redirect=1&format=json&q=";
+    this.headers = builder.compression ? Collections.singletonMap("Accept-Encoding", "gzip, deflate") : Collections.emptyMap();
+    this.ownsTransport = builder.transport == null;
+    this.transport = this.ownsTransport ? UnirestTransport.builder()
+            .maxConnections(builder.maxConnections)
+            .maxConnectionsPerRoute(builder.maxConnectionsPerRoute)
+            .connectTimeout(builder.connectTimeout)
+            .socketTimeout(builder.socketTimeout)
+            .connectionTtl(builder.connectionTtl)
+            .build() : builder.transport;
+    this.mapper = new CustomObjectMapper();
+    this.limiter = new InFlightLimiter(builder.concurrencyLimit, builder.maxQueuedRequests, DuckDuckGoClient::dropped);
+    this.virtualThreads = builder.virtualThreads ? VirtualThreads.newExecutor("ddg4j-search") : null;
+    this.lazyResults = builder.lazyResults;
+    this.cache = builder.cache;
+    this.diskCache = builder.diskCache;
+    this.flights = builder.coalesceRequests ? new SingleFlight<>() : null;
+    this.metrics = builder.metrics;
+    this.hedging = builder.hedging;
+    this.breaker = builder.breaker;
+    this.maxConcurrentRefreshes = builder.maxConcurrentRefreshes;
+    if(this.hedging != null) {
+      this.hedgeTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+        final Thread thread = new Thread(runnable, "ddg4j-hedge");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.hedgeTimer.setRemoveOnCancelPolicy(true);
+    } else {
+      this.hedgeTimer = null;
+    }
+
+    if(this.metrics != null) {
+      this.metrics.gauge(Gauge.CONCURRENCY_LIMIT, this.limiter::maxInFlight);
+      this.metrics.gauge(Gauge.IN_FLIGHT, this.limiter::inFlight);
+      this.metrics.gauge(Gauge.QUEUED, this.limiter::queued);
+    }
+  }
+
+  /**
+   * Creates a new client builder.
+   *
+   * @return the client builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the API endpoint this client sends its queries to.
+   *
+   * @return the base URL
+   * @since 1.1.0
+   */
+  public String baseUrl() {
+    return this.baseUrl;
+  }
+
+  /**
+   * Search DuckDuckGo and get the SearchResult object to work with.
+   *
+   * <p>If another search for the same query is already in flight, its result is shared rather than sending a
+   * second request. See {@link Builder#coalesceRequests(boolean)}.</p>
+   *
+   * @param query the query to search for
+   * @return the SearchResult
+   * @throws SearchException if DuckDuckGo cannot be reached, responds unsuccessfully or the response cannot be
+   *     decoded
+   * @since 1.1.0
+   */
+  public SearchResult search(final String query) {
+    return this.search(query, (Set<Fields>) null);
+  }
+
+  /**
+   * Search DuckDuckGo, decoding only the requested parts of the SearchResult.
+   * <p>Parts of the response that were not requested are skipped without being decoded, so the work done scales
+   * with what was asked for rather than the size of the response. See {@link Fields}.</p>
+   * <p>If the full result for the query is {@linkplain Builder#cache(ResultCache) cached}, it is returned as-is.
+   * Projected results are never cached themselves.</p>
+   *
+   * @param query the query to search for
+   * @param fields the parts of the result to decode
+   * @return the projected SearchResult
+   * @throws SearchException if DuckDuckGo cannot be reached, responds unsuccessfully or the response cannot be
+   *     decoded
+   * @since 1.1.0
+   */
+  public SearchResult search(final String query, final Fields... fields) {
+    return this.search(query, projection(fields));
+  }
+
+  private SearchResult search(final String query, final Set<Fields> projection) {
+    final long start = this.metrics != null ? System.nanoTime() : 0;
+    final Object event = FlightEvents.beginSearch();
+    SearchResult result = null;
+    boolean cached = false;
+    RuntimeException error = null;
+    try {
+      result = this.cached(query, projection);
+      if(result != null) {
+        cached = true;
+        return result;
+      }
+
+      if(this.flights == null) {
+        result = this.fetch(query, projection);
+        return result;
+      }
+
+      // the caller that starts the flight makes the blocking request on its own thread
+      result = join(this.flights.execute(new FlightKey(query, projection), () -> {
+        try {
+          return CompletableFuture.completedFuture(this.fetch(query, projection));
+        } catch(final RuntimeException ex) {
+          final CompletableFuture<SearchResult> failed = new CompletableFuture<>();
+          failed.completeExceptionally(ex);
+          return failed;
+        }
+      }));
+      return result;
+    } catch(final RuntimeException ex) {
+      error = ex;
+      throw ex;
+    } finally {
+      if(this.metrics != null) {
+        this.metrics.record(Stage.TOTAL, System.nanoTime() - start);
+      }
+      FlightEvents.commitSearch(event, query, result != null ? result.type() : null, cached, projection != null, error);
+    }
+  }
+
+  private SearchResult fetch(final String query, final Set<Fields> projection) {
+    if(this.hedging != null) {
+      // a hedge has to be sent while the first request is still blocked on, so both go through the async path
+      return join(this.hedged(query, projection));
+    }
+
+    if(this.breaker != null && !this.breaker.tryAcquire()) {
+      return this.shortCircuit(query);
+    }
+
+    final long queued = this.metrics != null ? System.nanoTime() : 0;
+    try {
+      return this.limiter.call(() -> {
+        this.increment(Counter.REQUESTS, 1);
+        final long sent = this.sent(queued);
+        final long start = this.breaker != null ? System.nanoTime() : 0;
+        try {
+          final SearchResult result;
+          try {
+            result = this.store(query, projection, this.transport.send(this.request(query), r -> this.decode(r, query, projection, sent)));
+          } catch(final IOException | RuntimeException ex) {
+            throw failed(ex);
+          }
+
+          this.outcome(start, null);
+          return result;
+        } catch(final RuntimeException ex) {
+          this.increment(Counter.ERRORS, 1);
+          this.outcome(start, ex);
+          throw ex;
+        }
+      });
+    } catch(final LimitExceededException ex) {
+      this.increment(Counter.REJECTED, 1);
+      if(this.breaker != null) {
+        this.breaker.onIgnored();
+      }
+      throw ex;
+    }
+  }
+
+  /*
+   * Serves the last known result for a query while the circuit breaker is open, or fails fast without one.
+   */
+  private SearchResult shortCircuit(final String query) {
+    this.increment(Counter.SHORT_CIRCUITED, 1);
+    final SearchResult stale = this.cache != null ? this.cache.getStale(query) : null;
+    if(stale == null) {
+      throw new CircuitOpenException("The circuit breaker is open and there is no stale result to serve");
+    }
+
+    this.increment(Counter.STALE_HITS, 1);
+    return stale;
+  }
+
+  private void outcome(final long start, final Throwable error) {
+    if(this.breaker == null) {
+      return;
+    }
+
+    final Throwable cause = unwrap(error);
+    if(cause instanceof CancellationException) {
+      this.breaker.onIgnored();
+    } else if(cause != null && dropped(cause)) {
+      this.breaker.onFailure(System.nanoTime() - start);
+    } else {
+      this.breaker.onSuccess(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Search DuckDuckGo without blocking the calling thread.
+   * <p>The request is sent on a non-blocking transport. If the {@linkplain Builder#concurrencyLimit(ConcurrencyLimit)
+   * concurrency limit} is reached, it is queued until an earlier request completes.</p>
+   * <p>Cancelling the returned future only cancels the underlying request once every search sharing it has been
+   * cancelled.</p>
+   *
+   * @param query the query to search for
+   * @return a future completed with the SearchResult, or failed with a {@link SearchException}, which is a
+   *     {@link LimitExceededException} if the queue is full
+   * @since 1.1.0
+   */
+  public CompletableFuture<SearchResult> searchAsync(final String query) {
+    return this.searchAsync(query, (Set<Fields>) null);
+  }
+
+  /**
+   * Search DuckDuckGo without blocking the calling thread, decoding only the requested parts of the SearchResult.
+   *
+   * @param query the query to search for
+   * @param fields the parts of the result to decode
+   * @return a future completed with the projected SearchResult, or failed with a {@link SearchException}
+   * @see #search(String, Fields...)
+   * @see #searchAsync(String)
+   * @since 1.1.0
+   */
+  public CompletableFuture<SearchResult> searchAsync(final String query, final Fields... fields) {
+    return this.searchAsync(query, projection(fields));
+  }
+
+  private CompletableFuture<SearchResult> searchAsync(final String query, final Set<Fields> projection) {
+    final long start = this.metrics != null ? System.nanoTime() : 0;
+    final Object event = FlightEvents.beginSearch();
+    final CompletableFuture<SearchResult> result;
+    final SearchResult cached = this.cached(query, projection);
+    if(cached != null) {
+      result = CompletableFuture.completedFuture(cached);
+    } else {
+      final Supplier<CompletableFuture<SearchResult>> fetch = () -> this.fetchAsync(query, projection);
+      result = this.flights != null ? this.flights.execute(new FlightKey(query, projection), fetch) : fetch.get();
+    }
+
+    if(this.metrics != null || event != null) {
+      result.whenComplete((value, error) -> {
+        if(this.metrics != null) {
+          this.metrics.record(Stage.TOTAL, System.nanoTime() - start);
+        }
+        FlightEvents.commitSearch(event, query, value != null ? value.type() : null, cached != null, projection != null, unwrap(error));
+      });
+    }
+    return result;
+  }
+
+  private CompletableFuture<SearchResult> fetchAsync(final String query, final Set<Fields> projection) {
+    return this.hedging != null ? this.hedged(query, projection) : this.attempt(query, projection);
+  }
+
+  /*
+   * Sends the request, and a duplicate of it if it has not been answered by the time recent requests usually are.
+   * The first successful answer wins and the other request is cancelled; the search only fails once both have.
+   */
+  private CompletableFuture<SearchResult> hedged(final String query, final Set<Fields> projection) {
+    this.hedging.onRequest();
+    final CompletableFuture<SearchResult> result = new CompletableFuture<>();
+    final AtomicInteger outstanding = new AtomicInteger(1);
+    final CompletableFuture<SearchResult> primary = this.race(this.attempt(query, projection), result, outstanding);
+
+    final long delay = this.hedging.delayNanos();
+    if(delay >= 0 && !result.isDone()) {
+      final ScheduledFuture<?> timer = this.hedgeTimer.schedule(() -> {
+        // hedging a client that is already at its concurrency limit would only queue behind the slow request
+        if(result.isDone() || this.limiter.inFlight() >= this.limiter.maxInFlight() || !this.hedging.tryAcquire()) {
+          return;
+        }
+
+        outstanding.incrementAndGet();
+        FlightEvents.retry(query, 2, "hedge");
+        this.increment(Counter.HEDGES, 1);
+        final CompletableFuture<SearchResult> hedge = this.race(this.attempt(query, projection), result, outstanding);
+        result.whenComplete((value, error) -> hedge.cancel(true));
+      }, delay, TimeUnit.NANOSECONDS);
+      result.whenComplete((value, error) -> timer.cancel(false));
+    }
+
+    result.whenComplete((value, error) -> primary.cancel(true));
+    return result;
+  }
+
+  private CompletableFuture<SearchResult> race(final CompletableFuture<SearchResult> attempt, final CompletableFuture<SearchResult> result, final AtomicInteger outstanding) {
+    final long start = System.nanoTime();
+    attempt.whenComplete((value, error) -> {
+      if(error == null) {
+        this.hedging.record(System.nanoTime() - start);
+        result.complete(value);
+      } else if(outstanding.decrementAndGet() == 0) {
+        result.completeExceptionally(error);
+      }
+    });
+    return attempt;
+  }
+
+  private CompletableFuture<SearchResult> attempt(final String query, final Set<Fields> projection) {
+    if(this.breaker != null && !this.breaker.tryAcquire()) {
+      try {
+        return CompletableFuture.completedFuture(this.shortCircuit(query));
+      } catch(final CircuitOpenException ex) {
+        final CompletableFuture<SearchResult> failed = new CompletableFuture<>();
+        failed.completeExceptionally(ex);
+        return failed;
+      }
+    }
+
+    final long queued = this.metrics != null ? System.nanoTime() : 0;
+    final AtomicBoolean started = this.breaker != null ? new AtomicBoolean() : null;
+    final CompletableFuture<SearchResult> result = this.limiter.submit(() -> {
+      this.increment(Counter.REQUESTS, 1);
+      final long sent = this.sent(queued);
+      final long start = this.breaker != null ? System.nanoTime() : 0;
+      if(started != null) {
+        started.set(true);
+      }
+
+      final CompletableFuture<SearchResult> response = this.transport.sendAsync(this.request(query), r -> this.decode(r, query, projection, sent));
+      final CompletableFuture<SearchResult> decoded = response.handle((value, error) -> {
+        try {
+          if(error != null) {
+            throw failed(unwrap(error));
+          }
+
+          return this.store(query, projection, value);
+        } catch(final RuntimeException ex) {
+          this.increment(Counter.ERRORS, 1);
+          throw ex;
+        }
+      });
+      decoded.whenComplete((value, error) -> {
+        if(decoded.isCancelled()) {
+          response.cancel(true);
+        }
+        this.outcome(start, error);
+      });
+      return decoded;
+    });
+
+    if(started != null) {
+      // hand back the breaker's permit for a request that was rejected or cancelled before it was sent
+      result.whenComplete((value, error) -> {
+        if(!started.get()) {
+          this.breaker.onIgnored();
+        }
+      });
+    }
+
+    if(this.metrics != null && result.isCompletedExceptionally()) {
+      result.whenComplete((value, error) -> {
+        if(error instanceof LimitExceededException) {
+          this.metrics.increment(Counter.REJECTED, 1);
+        }
+      });
+    }
+    return result;
+  }
+
+  private long sent(final long queued) {
+    if(this.metrics == null) {
+      return 0;
+    }
+
+    final long sent = System.nanoTime();
+    this.metrics.record(Stage.QUEUE, sent - queued);
+    return sent;
+  }
+
+  /**
+   * Searches DuckDuckGo for many queries at once, waiting until all of them have completed.
+   * <p>With {@link Builder#virtualThreads(boolean) virtual threads} enabled, every query is searched on its own
+   * virtual thread. Otherwise the queries are sent through {@link #searchAsync(String)}.</p>
+   *
+   * @param queries the queries to search for
+   * @return the SearchResults, in the same order as the queries
+   * @since 1.1.0
+   */
+  public List<SearchResult> searchAll(final Collection<String> queries) {
+    final List<CompletableFuture<SearchResult>> futures = new ArrayList<>(queries.size());
+    for(final String query : queries) {
+      if(this.virtualThreads != null) {
+        futures.add(CompletableFuture.supplyAsync(() -> this.search(query), this.virtualThreads));
+      } else {
+        futures.add(this.searchAsync(query));
+      }
+    }
+
+    final List<SearchResult> results = new ArrayList<>(futures.size());
+    for(final CompletableFuture<SearchResult> future : futures) {
+      results.add(join(future));
+    }
+
+    return results;
+  }
+
+  /**
+   * Whether or not this client runs blocking work on virtual threads.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public boolean usesVirtualThreads() {
+    return this.virtualThreads != null;
+  }
+
+  /**
+   * Gets the number of searches currently in flight.
+   *
+   * @return the number of in-flight searches
+   * @since 1.1.0
+   */
+  public int inFlightRequests() {
+    return this.limiter.inFlight();
+  }
+
+  /**
+   * Gets the limit deciding how many searches may be in flight at once.
+   *
+   * @return the concurrency limit
+   * @since 1.1.0
+   */
+  public ConcurrencyLimit concurrencyLimit() {
+    return this.limiter.limit();
+  }
+
+  private SearchResult cached(final String query, final Set<Fields> projection) {
+    if(this.cache == null && this.diskCache == null) {
+      return null;
+    }
+
+    final SearchResult cached = this.lookup(query, projection);
+    this.increment(cached != null ? Counter.CACHE_HITS : Counter.CACHE_MISSES, 1);
+    return cached;
+  }
+
+  private SearchResult lookup(final String query, final Set<Fields> projection) {
+    if(this.cache != null) {
+      final Object event = FlightEvents.beginCacheLookup();
+      final SearchResult cached = this.cache.get(query, this.refresher);
+      FlightEvents.commitCacheLookup(event, query, "memory", cached != null, -1);
+      if(cached != null) {
+        return cached;
+      }
+    }
+
+    if(this.diskCache != null) {
+      // the disk tier is best-effort: an unreadable response is fetched again, and an undecodable one dropped
+      final Object event = FlightEvents.beginCacheLookup();
+      byte[] body;
+      try {
+        body = this.diskCache.get(query);
+      } catch(final UncheckedIOException ex) {
+        body = null;
+      }
+      FlightEvents.commitCacheLookup(event, query, "disk", body != null, body != null ? body.length : -1);
+
+      if(body != null) {
+        try {
+          return this.store(query, projection, this.decode(body, query, projection));
+        } catch(final RuntimeException ex) {
+          this.diskCache.invalidate(query);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /*
+   * Refreshes a popular cached result in the background; the new result replaces it in the cache once it arrives.
+   */
+  private boolean refresh(final String query) {
+    if(this.refreshes.incrementAndGet() > this.maxConcurrentRefreshes) {
+      this.refreshes.decrementAndGet();
+      return false;
+    }
+
+    this.increment(Counter.REFRESHES, 1);
+    final Supplier<CompletableFuture<SearchResult>> fetch = () -> this.attempt(query, null);
+    final CompletableFuture<SearchResult> refreshed = this.flights != null ? this.flights.execute(new FlightKey(query, null), fetch) : fetch.get();
+    refreshed.whenComplete((value, error) -> this.refreshes.decrementAndGet());
+    return true;
+  }
+
+  private SearchResult store(final String query, final Set<Fields> projection, final SearchResult result) {
+    if(this.cache != null && projection == null) {
+      // hand back the same frozen instance later searches will be served from the cache
+      final SearchResult frozen = result.freeze();
+      this.cache.put(query, frozen);
+      return frozen;
+    }
+
+    return result;
+  }
+
+  private TransportRequest request(final String query) {
+    try {
+      return new TransportRequest(URI.create(this.requestPrefix + URLEncoder.encode(query, StandardCharsets.UTF_8.name())), this.headers);
+    } catch(final UnsupportedEncodingException ex) {
+      throw new AssertionError(ex);
+    }
+  }
+
+  /*
+   * Decodes straight from the response stream, decompressing it on the way, so the body is never copied into an
+   * intermediate buffer.
+   */
+  private SearchResult decode(final TransportResponse response, final String query, final Set<Fields> projection, final long sent) throws IOException {
+    if(this.metrics != null) {
+      this.metrics.record(Stage.TIME_TO_FIRST_BYTE, System.nanoTime() - sent);
+    }
+
+    if(response.status() < 200 || response.status() >= 300) {
+      throw new SearchException(String.format("DuckDuckGo responded with HTTP %d", response.status()), response.status());
+    }
+
+    if(this.diskCache != null) {
+      // the raw body is kept whatever the projection, so any later search for the query can be served from disk
+      final byte[] body = this.readBody(response);
+      final SearchResult result = this.decode(body, query, projection);
+      try {
+        this.diskCache.put(query, body);
+      } catch(final UncheckedIOException ex) {
+        // the disk tier is best-effort; the response itself was fine
+      }
+      return result;
+    }
+
+    if(this.lazyResults && projection == null) {
+      return this.decode(this.readBody(response), query, projection);
+    }
+
+    final String encoding = response.header("Content-Encoding");
+    final Object event = FlightEvents.beginDeserialize();
+    if(this.metrics == null && event == null) {
+      return this.mapper.readSearchResult(decompressed(response.body(), encoding), projection);
+    }
+
+    // reading and decoding are interleaved, so time spent blocked on the network is split out of the decode, which
+    // includes decompressing
+    final MeteredInputStream wire = new MeteredInputStream(response.body());
+    final long start = System.nanoTime();
+    MeteredInputStream body = wire;
+    SearchResult result = null;
+    try {
+      body = encoding == null ? wire : new MeteredInputStream(decompressed(wire, encoding));
+      result = this.mapper.readSearchResult(body, projection);
+      return result;
+    } finally {
+      if(this.metrics != null) {
+        this.metrics.record(Stage.BODY, wire.nanos());
+        this.metrics.record(Stage.DESERIALIZE, System.nanoTime() - start - wire.nanos());
+        this.metrics.increment(Counter.BYTES_READ, body.bytes());
+        this.metrics.increment(Counter.WIRE_BYTES, wire.bytes());
+      }
+      FlightEvents.commitDeserialize(event, query, result != null ? result.type() : null, body.bytes(), false, projection != null);
+    }
+  }
+
+  private byte[] readBody(final TransportResponse response) throws IOException {
+    final String encoding = response.header("Content-Encoding");
+    if(this.metrics == null) {
+      try(InputStream body = decompressed(response.body(), encoding)) {
+        return readAll(body);
+      }
+    }
+
+    final long start = System.nanoTime();
+    final MeteredInputStream wire = new MeteredInputStream(response.body());
+    final byte[] body;
+    try(InputStream decompressed = decompressed(wire, encoding)) {
+      body = readAll(decompressed);
+    }
+    this.metrics.record(Stage.BODY, System.nanoTime() - start);
+    this.metrics.increment(Counter.BYTES_READ, body.length);
+    this.metrics.increment(Counter.WIRE_BYTES, wire.bytes());
+    return body;
+  }
+
+  /*
+   * Decompresses a body as it is read, by whichever of the encodings the client accepts the server chose.
+   */
+  private static InputStream decompressed(final InputStream body, final String encoding) throws IOException {
+    if(encoding == null || encoding.equalsIgnoreCase("identity")) {
+      return body;
+    }
+
+    if(encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+      return new GZIPInputStream(body, 8192);
+    }
+
+    if(encoding.equalsIgnoreCase("deflate")) {
+      final Inflater inflater = new Inflater();
+      return new InflaterInputStream(body, inflater, 8192) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            // only an inflater the stream made itself is ended when it is closed
+            inflater.end();
+          }
+        }
+      };
+    }
+
+    throw new IOException(String.format("DuckDuckGo responded with an unsupported Content-Encoding: %s", encoding));
+  }
+
+  private SearchResult decode(final byte[] body, final String query, final Set<Fields> projection) {
+    final long start = this.metrics != null ? System.nanoTime() : 0;
+    final Object event = FlightEvents.beginDeserialize();
+    final boolean lazy = this.lazyResults && projection == null;
+    SearchResult result = null;
+    try {
+      result = lazy ? SearchResult.lazy(body) : this.mapper.readSearchResult(new ByteArrayInputStream(body), projection);
+      return result;
+    } finally {
+      if(this.metrics != null) {
+        this.metrics.record(Stage.DESERIALIZE, System.nanoTime() - start);
+      }
+      FlightEvents.commitDeserialize(event, query, result != null ? result.type() : null, body.length, lazy, projection != null);
+    }
+  }
+
+  private void increment(final Counter counter, final long amount) {
+    if(this.metrics != null) {
+      this.metrics.increment(counter, amount);
+    }
+  }
+
+  private static Set<Fields> projection(final Fields[] fields) {
+    final Set<Fields> projection = EnumSet.noneOf(Fields.class);
+    projection.addAll(Arrays.asList(fields));
+    return projection;
+  }
+
+  private static byte[] readAll(final InputStream body) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+    final byte[] buffer = new byte[8192];
+    int read;
+    while((read = body.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+
+    return out.toByteArray();
+  }
+
+  /*
+   * The transport reports failing to reach DuckDuckGo as an IOException, and the mapper wraps whatever went wrong
+   * reading the body; only a body that arrived but is not valid JSON means the response itself was bad.
+   */
+  private static SearchException failed(final Throwable error) {
+    if(error instanceof SearchException) {
+      return (SearchException) error;
+    }
+
+    if(error instanceof IOException || error instanceof CancellationException) {
+      return unreachable(error);
+    }
+
+    if(error.getCause() instanceof IOException && !(error.getCause() instanceof JsonProcessingException)) {
+      return unreachable(error.getCause());
+    }
+
+    return new SearchException("Could not decode the response from DuckDuckGo", error);
+  }
+
+  private static SearchException unreachable(final Throwable error) {
+    return new SearchException("Could not reach DuckDuckGo", error);
+  }
+
+  /*
+   * Throttling, server errors and failures to get a response at all suggest DuckDuckGo is overloaded, while other
+   * unsuccessful responses and responses that cannot be decoded say nothing about its load.
+   */
+  private static boolean dropped(final Throwable error) {
+    if(!(error instanceof SearchException)) {
+      return true;
+    }
+
+    final int status = ((SearchException) error).status();
+    if(status == -1) {
+      // only failures to decode a response are caused by anything other than an IOException
+      return !(error.getCause() instanceof RuntimeException) || error.getCause() instanceof CancellationException;
+    }
+
+    return status == 429 || status >= 500;
+  }
+
+  private static Throwable unwrap(final Throwable error) {
+    return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+  }
+
+  private static <T> T join(final CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch(final CompletionException ex) {
+      if(ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+
+      throw ex;
+    }
+  }
+
+  /*
+   * Identifies searches that can share a single request: the same normalized query, decoded the same way.
+   */
+  private static final class FlightKey {
+    private final String query;
+    private final Set<Fields> projection;
+
+    private FlightKey(final String query, final Set<Fields> projection) {
+      this.query = Queries.normalize(query);
+      this.projection = projection;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if(this == o) return true;
+      if(!(o instanceof FlightKey)) return false;
+      final FlightKey that = (FlightKey) o;
+      return this.query.equals(that.query) && Objects.equals(this.projection, that.projection);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.query, this.projection);
+    }
+  }
+
+  /**
+   * Shuts down the connection pool and threads owned by this client.
+   *
+   * @since 1.1.0
+   */
+  @Override
+  public void close() {
+    if(this.virtualThreads != null) {
+      this.virtualThreads.shutdown();
+    }
+    if(this.hedgeTimer != null) {
+      this.hedgeTimer.shutdownNow();
+    }
+
+    if(this.ownsTransport) {
+      this.transport.close();
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link DuckDuckGoClient}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private String baseUrl = DEFAULT_BASE_URL;
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 20;
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration socketTimeout = Duration.ofSeconds(60);
+    private Duration connectionTtl = Duration.ofMinutes(1);
+    private Transport transport;
+    private ConcurrencyLimit concurrencyLimit = new FixedLimit(256);
+    private int maxQueuedRequests = Integer.MAX_VALUE;
+    private boolean virtualThreads = VirtualThreads.isSupported();
+    private boolean lazyResults = false;
+    private boolean compression = true;
+    private ResultCache cache;
+    private DiskCache diskCache;
+    private boolean coalesceRequests = true;
+    private MetricsSink metrics;
+    private HedgePolicy hedging;
+    private CircuitBreaker breaker;
+    private int maxConcurrentRefreshes = 4;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the API endpoint queries are sent to. Defaults to {@link #DEFAULT_BASE_URL}.
+     *
+     * @param baseUrl the base URL
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder baseUrl(final String baseUrl) {
+      this.baseUrl = Objects.requireNonNull(baseUrl, "baseUrl");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections, across all routes. Defaults to 200.
+     *
+     * @param maxConnections the maximum number of connections
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxConnections(final int maxConnections) {
+      this.maxConnections = positive(maxConnections, "maxConnections");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections to a single host. Defaults to 20.
+     *
+     * @param maxConnectionsPerRoute the maximum number of connections per host
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+      this.maxConnectionsPerRoute = positive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established. Defaults to 10 seconds.
+     *
+     * @param connectTimeout the connect timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectTimeout(final Duration connectTimeout) {
+      this.connectTimeout = positive(connectTimeout, "connectTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for data on an established connection. Defaults to 60 seconds.
+     *
+     * @param socketTimeout the socket timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder socketTimeout(final Duration socketTimeout) {
+      this.socketTimeout = positive(socketTimeout, "socketTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long a pooled connection may be kept alive and reused before it is discarded. Defaults to 1 minute.
+     *
+     * @param connectionTtl the connection time to live
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectionTtl(final Duration connectionTtl) {
+      this.connectionTtl = positive(connectionTtl, "connectionTtl");
+      return this;
+    }
+
+    /**
+     * Sets the transport requests are sent with, or null for a {@link UnirestTransport} built from this builder's
+     * connection settings. Defaults to null.
+     * <p>The connection settings on this builder only apply to the default transport; configure a transport set
+     * here through its own builder instead. A transport set here may be shared between clients, and is not closed
+     * with the client.</p>
+     *
+     * @param transport the transport
+     * @return this builder
+     * @see dev.jacobandersen.ddg4j.transport.JdkHttpTransport
+     * @since 1.1.0
+     */
+    public Builder transport(final Transport transport) {
+      this.transport = transport;
+      return this;
+    }
+
+    /**
+     * Sets a fixed maximum number of searches that may be in flight at once. Further searches are queued until an
+     * earlier one completes. Defaults to 256. Shorthand for a {@link FixedLimit} {@linkplain
+     * #concurrencyLimit(ConcurrencyLimit) concurrency limit}.
+     *
+     * @param maxInFlightRequests the maximum number of in-flight searches
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxInFlightRequests(final int maxInFlightRequests) {
+      this.concurrencyLimit = new FixedLimit(positive(maxInFlightRequests, "maxInFlightRequests"));
+      return this;
+    }
+
+    /**
+     * Sets the limit deciding how many searches may be in flight at once. Defaults to a {@link FixedLimit} of 256.
+     * <p>Adaptive limits such as {@link dev.jacobandersen.ddg4j.limit.AimdLimit} and
+     * {@link dev.jacobandersen.ddg4j.limit.GradientLimit} are told how long every request took, and treat 429 and
+     * 5xx responses and failures to reach DuckDuckGo as dropped. Adaptive limits keep state, so each client needs
+     * its own.</p>
+     *
+     * @param concurrencyLimit the concurrency limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder concurrencyLimit(final ConcurrencyLimit concurrencyLimit) {
+      this.concurrencyLimit = Objects.requireNonNull(concurrencyLimit, "concurrencyLimit");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of searches that may wait for the {@linkplain #concurrencyLimit(ConcurrencyLimit)
+     * concurrency limit}. Further searches fail with a {@link LimitExceededException}. Defaults to unbounded.
+     *
+     * @param maxQueuedRequests the maximum number of queued searches, or 0 to reject any search over the limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxQueuedRequests(final int maxQueuedRequests) {
+      if(maxQueuedRequests < 0) {
+        throw new IllegalArgumentException(String.format("maxQueuedRequests must not be negative, got %d", maxQueuedRequests));
+      }
+
+      this.maxQueuedRequests = maxQueuedRequests;
+      return this;
+    }
+
+    /**
+     * Sets whether blocking work, such as {@link DuckDuckGoClient#searchAll(Collection)} fan-out, runs on virtual
+     * threads. Defaults to true on Java 21 and newer, and false otherwise.
+     *
+     * @param virtualThreads whether or not to use virtual threads
+     * @return this builder
+     * @throws UnsupportedOperationException if enabled on a JVM without virtual threads
+     * @since 1.1.0
+     */
+    public Builder virtualThreads(final boolean virtualThreads) {
+      if(virtualThreads && !VirtualThreads.isSupported()) {
+        throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+      }
+
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * Sets whether unprojected searches return {@linkplain SearchResult#lazy(byte[]) lazy} results, which keep the
+     * raw response and decode each part on first access. Defaults to false. Results put in the
+     * {@linkplain #cache(ResultCache) cache} are frozen, which decodes them fully.
+     *
+     * @param lazyResults whether or not to return lazy results
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder lazyResults(final boolean lazyResults) {
+      this.lazyResults = lazyResults;
+      return this;
+    }
+
+    /**
+     * Sets whether responses are requested compressed with gzip or deflate. Defaults to true. Compressed bodies are
+     * decompressed as they are decoded, never into a buffer of their own, and the
+     * {@linkplain #metrics(MetricsSink) metrics} count both the bytes that came over the network and the bytes
+     * decoded from them.
+     *
+     * @param compression whether or not to request compressed responses
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder compression(final boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * Sets the cache successful results are kept in and served from, or null to not cache results. Defaults to
+     * null. A cache may be shared between clients that use the same base URL. Unprojected results are
+     * {@linkplain SearchResult#freeze() frozen} when they are cached.
+     *
+     * @param cache the result cache
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder cache(final ResultCache cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of popular cached results that may be refreshed in the background at once. Further
+     * results due a refresh are served as they are, and refreshed by a later search if there is still time before
+     * they expire. Defaults to 4. Only applies to a {@linkplain #cache(ResultCache) cache} built with
+     * {@link ResultCache.Builder#refreshAhead(double)}.
+     *
+     * @param maxConcurrentRefreshes the maximum number of refreshes in flight
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxConcurrentRefreshes(final int maxConcurrentRefreshes) {
+      this.maxConcurrentRefreshes = positive(maxConcurrentRefreshes, "maxConcurrentRefreshes");
+      return this;
+    }
+
+    /**
+     * Sets the persistent cache raw responses are written to and served from when they are not in the
+     * {@linkplain #cache(ResultCache) in-memory cache}, or null to not persist responses. Defaults to null. The
+     * disk cache is not closed with the client.
+     *
+     * @param diskCache the disk cache
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder diskCache(final DiskCache diskCache) {
+      this.diskCache = diskCache;
+      return this;
+    }
+
+    /**
+     * Sets whether concurrent searches for the same {@linkplain Queries#normalize(String) normalized} query share a
+     * single request and its result, rather than each sending their own. Defaults to true.
+     *
+     * @param coalesceRequests whether or not to coalesce concurrent identical searches
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder coalesceRequests(final boolean coalesceRequests) {
+      this.coalesceRequests = coalesceRequests;
+      return this;
+    }
+
+    /**
+     * Sets the sink the client reports its timings and counts to, or null to not measure anything. Defaults to
+     * null. Use {@link dev.jacobandersen.ddg4j.metrics.Metrics} to keep them in memory.
+     *
+     * @param metrics the metrics sink
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder metrics(final MetricsSink metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Sets the policy deciding when a slow request is hedged with a duplicate, or null to never hedge. Defaults to
+     * null. The first successful answer to either request is used and the other is cancelled.
+     * <p>Blocking searches are sent through the non-blocking transport while hedging, so that the duplicate can be
+     * sent while the first request is still waited on. Hedges count against the
+     * {@linkplain #concurrencyLimit(ConcurrencyLimit) concurrency limit}, and are not sent while it is reached.</p>
+     *
+     * @param hedging the hedge policy
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder hedging(final HedgePolicy hedging) {
+      this.hedging = hedging;
+      return this;
+    }
+
+    /**
+     * Sets the circuit breaker that stops requests from being sent while DuckDuckGo is failing or too slow, or null
+     * to always send them. Defaults to null.
+     * <p>While the breaker is open, a search is served the last result cached for its query, even if it has
+     * expired, as long as the {@linkplain #cache(ResultCache) cache} still keeps it; see
+     * {@link ResultCache.Builder#staleFor(Duration)}. Otherwise it fails fast with a {@link CircuitOpenException}.</p>
+     *
+     * @param breaker the circuit breaker
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder circuitBreaker(final CircuitBreaker breaker) {
+      this.breaker = breaker;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link DuckDuckGoClient} from this builder's configuration.
+     *
+     * @return the client
+     * @since 1.1.0
+     */
+    public DuckDuckGoClient build() {
+      return new DuckDuckGoClient(this);
+    }
+
+    private static int positive(final int value, final String name) {
+      if(value <= 0) {
+        throw new IllegalArgumentException(String.format("%s must be positive, got %d", name, value));
+      }
+
+      return value;
+    }
+
+    private static Duration positive(final Duration value, final String name) {
+      if(Objects.requireNonNull(value, name).isNegative() || value.isZero()) {
+        throw new IllegalArgumentException(String.format("%s must be positive, got %s", name, value));
+      }
+
+      return value;
+    }
+  }
+}
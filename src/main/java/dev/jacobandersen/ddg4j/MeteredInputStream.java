@@ -0,0 +1,80 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * Counts the bytes read from a response body and the time spent blocked waiting for them, so that a streaming
+ * decode can be split into time spent on the network and time spent decoding. Not thread safe.
+ */
+final class MeteredInputStream extends FilterInputStream {
+  private long bytes;
+  private long nanos;
+
+  MeteredInputStream(final InputStream in) {
+    super(in);
+  }
+
+  long bytes() {
+    return this.bytes;
+  }
+
+  long nanos() {
+    return this.nanos;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final long start = System.nanoTime();
+    final int read = super.read();
+    this.nanos += System.nanoTime() - start;
+    if(read != -1) {
+      this.bytes++;
+    }
+    return read;
+  }
+
+  @Override
+  public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+    final long start = System.nanoTime();
+    final int read = super.read(buffer, offset, length);
+    this.nanos += System.nanoTime() - start;
+    if(read > 0) {
+      this.bytes += read;
+    }
+    return read;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    final long start = System.nanoTime();
+    final long skipped = super.skip(n);
+    this.nanos += System.nanoTime() - start;
+    this.bytes += skipped;
+    return skipped;
+  }
+}
@@ -25,6 +25,7 @@ package dev.jacobandersen.ddg4j.api;
 
 import dev.jacobandersen.ddg4j.util.EnumUtil;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -80,13 +81,27 @@ public class Answer extends ApiObject {
 
   @Override
   public String instantInformation() {
-    final StringBuilder builder = new StringBuilder();
+    return this.renderInstantInformation();
+  }
 
-    if(this.hasAnswer()) {
-      builder.append("[").append(this.type()).append("] ").append(this.answer());
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasAnswer()) {
+      return false;
     }
 
-    return builder.length() == 0 ? null : builder.toString();
+    out.append('[').append(String.valueOf(this.type())).append("] ").append(this.answer());
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 24 + sizeOf(this.answer);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.answer()).add(this.type());
   }
 
   @Override
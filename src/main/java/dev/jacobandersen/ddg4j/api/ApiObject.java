@@ -23,6 +23,8 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
+
 /**
  * Represents an object that can be returned as part of a {@link SearchResult}.
  *
@@ -37,6 +39,27 @@ abstract class ApiObject {
     return !this.orEmpty(value).isEmpty();
   }
 
+  /*
+   * Roughly what a String retains on a 64-bit JVM: the String object, its array header and two bytes per char.
+   */
+  static long sizeOf(final String value) {
+    return value == null ? 0 : 40 + 2L * value.length();
+  }
+
+  /**
+   * Estimates how many bytes of heap this object retains.
+   *
+   * @return the estimated retained size in bytes
+   */
+  abstract long estimatedSize();
+
+  /**
+   * Feeds the fields this object's equality is based on into a fingerprint.
+   *
+   * @param fingerprint the fingerprint
+   */
+  abstract void fingerprint(Fingerprint fingerprint);
+
   /**
    * Attempts to extract essential information from the object in an opinionated way.
    *
@@ -44,4 +67,28 @@ abstract class ApiObject {
    * @since 1.0.0
    */
   public abstract String instantInformation();
+
+  /**
+   * Writes the object's {@linkplain #instantInformation() instant information} to an {@link Appendable}, such as a
+   * {@link StringBuilder}, {@link java.nio.CharBuffer} or {@link java.io.Writer}, without building an intermediate
+   * String.
+   *
+   * @param out where to write the instant information
+   * @return true if anything was written, or false if the object has no instant information
+   * @throws IOException if the Appendable cannot be written to
+   * @since 1.1.0
+   */
+  public abstract boolean renderInstantInformation(Appendable out) throws IOException;
+
+  /*
+   * Renders into a fresh builder, for the instantInformation() implementations that build their text in pieces.
+   */
+  protected final String renderInstantInformation() {
+    final StringBuilder builder = new StringBuilder();
+    try {
+      return this.renderInstantInformation(builder) ? builder.toString() : null;
+    } catch(final IOException ex) {
+      throw new IllegalStateException("StringBuilder cannot fail to append", ex);
+    }
+  }
 }
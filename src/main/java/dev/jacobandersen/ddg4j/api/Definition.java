@@ -23,6 +23,7 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -111,25 +112,39 @@ public class Definition extends ApiObject {
 
   @Override
   public String instantInformation() {
-    final StringBuilder builder = new StringBuilder();
-
-    if(this.hasText()) {
-      builder.append(this.text()).append(" (");
-
-      if(this.hasSource() && this.hasUrl()) {
-        builder.append(this.hasSource()).append(", ").append(this.hasUrl());
-      } else if(this.hasSource()) {
-        builder.append(this.hasSource());
-      } else if(this.hasUrl()) {
-        builder.append(this.hasUrl());
-      } else {
-        builder.append("unknown source");
-      }
-
-      builder.append(")");
+    return this.renderInstantInformation();
+  }
+
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasText()) {
+      return false;
+    }
+
+    out.append(this.text()).append(" (");
+
+    if(this.hasSource() && this.hasUrl()) {
+      out.append(String.valueOf(this.hasSource())).append(", ").append(String.valueOf(this.hasUrl()));
+    } else if(this.hasSource()) {
+      out.append(String.valueOf(this.hasSource()));
+    } else if(this.hasUrl()) {
+      out.append(String.valueOf(this.hasUrl()));
+    } else {
+      out.append("unknown source");
     }
 
-    return builder.length() == 0 ? null : builder.toString();
+    out.append(')');
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 24 + sizeOf(this.text) + sizeOf(this.source) + sizeOf(this.url);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.text()).add(this.source()).add(this.url());
   }
 
   @Override
@@ -0,0 +1,58 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+/**
+ * Represents the parts of a {@link SearchResult} that a projected search decodes.
+ * <p>The {@link Type} of a result is always decoded. Parts that were not requested are skipped in the response
+ * without being decoded; in the result they are null, or empty in the case of lists.</p>
+ *
+ * @since 1.1.0
+ */
+public enum Fields {
+  /**
+   * The {@link TopicAbstract}.
+   */
+  ABSTRACT,
+  /**
+   * The {@link Answer}.
+   */
+  ANSWER,
+  /**
+   * The {@link Definition}.
+   */
+  DEFINITION,
+  /**
+   * The related topics.
+   */
+  RELATED_TOPICS,
+  /**
+   * The internal results.
+   */
+  RESULTS,
+  /**
+   * The {@link Redirect}.
+   */
+  REDIRECT
+}
@@ -0,0 +1,85 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import java.util.List;
+
+/*
+ * Accumulates a 64-bit FNV-1a hash over the fields that take part in equals, finished with a murmur3 mix. Lengths
+ * are hashed ahead of contents, and nulls as a length of -1, so that adjacent fields cannot run into each other.
+ */
+final class Fingerprint {
+  private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long PRIME = 0x100000001b3L;
+
+  private long hash = OFFSET_BASIS;
+
+  Fingerprint add(final int value) {
+    this.hash = (this.hash ^ value) * PRIME;
+    return this;
+  }
+
+  Fingerprint add(final Enum<?> value) {
+    return this.add(value == null ? -1 : value.ordinal());
+  }
+
+  Fingerprint add(final String value) {
+    if(value == null) {
+      return this.add(-1);
+    }
+
+    this.add(value.length());
+    for(int i = 0; i < value.length(); i++) {
+      this.hash = (this.hash ^ value.charAt(i)) * PRIME;
+    }
+    return this;
+  }
+
+  Fingerprint add(final ApiObject value) {
+    if(value == null) {
+      return this.add(-1);
+    }
+
+    value.fingerprint(this.add(0));
+    return this;
+  }
+
+  Fingerprint add(final List<ResultItem> items) {
+    this.add(items.size());
+    for(final ResultItem item : items) {
+      this.add(item);
+    }
+    return this;
+  }
+
+  long value() {
+    long value = this.hash;
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+}
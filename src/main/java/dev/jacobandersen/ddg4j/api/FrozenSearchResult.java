@@ -0,0 +1,190 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/*
+ * An immutable search result. Everything it holds is immutable, so the derived values it caches are computed with
+ * racy single-checks: a thread that sees no cached value just computes the same value again.
+ */
+final class FrozenSearchResult extends SearchResult {
+  private static final ResultItem[] NO_ITEMS = new ResultItem[0];
+
+  private final TopicAbstract topicAbstract;
+  private final Answer answer;
+  private final Definition definition;
+  private final Redirect redirect;
+  private int hash;
+  // volatile so that the 64-bit value cannot be read half-written
+  private volatile long fingerprint;
+  private String instantInformation;
+
+  FrozenSearchResult(final SearchResult result) {
+    super(result.type(), new ItemArray(result.relatedTopics()), new ItemArray(result.results()));
+    this.topicAbstract = result.topicAbstract();
+    this.answer = result.answer();
+    this.definition = result.definition();
+    this.redirect = result.redirect();
+  }
+
+  @Override
+  public TopicAbstract topicAbstract() {
+    return this.topicAbstract;
+  }
+
+  @Override
+  public void topicAbstract(final TopicAbstract topicAbstract) {
+    throw frozen();
+  }
+
+  @Override
+  public Answer answer() {
+    return this.answer;
+  }
+
+  @Override
+  public void answer(final Answer answer) {
+    throw frozen();
+  }
+
+  @Override
+  public Definition definition() {
+    return this.definition;
+  }
+
+  @Override
+  public void definition(final Definition definition) {
+    throw frozen();
+  }
+
+  @Override
+  public void relatedTopics(final List<ResultItem> relatedTopics) {
+    throw frozen();
+  }
+
+  @Override
+  public void addRelatedTopic(final ResultItem relatedTopic) {
+    throw frozen();
+  }
+
+  @Override
+  public void addRelatedTopics(final Collection<ResultItem> relatedTopics) {
+    throw frozen();
+  }
+
+  @Override
+  public void results(final List<ResultItem> results) {
+    throw frozen();
+  }
+
+  @Override
+  public void addResult(final ResultItem result) {
+    throw frozen();
+  }
+
+  @Override
+  public void addResults(final Collection<ResultItem> results) {
+    throw frozen();
+  }
+
+  @Override
+  public Redirect redirect() {
+    return this.redirect;
+  }
+
+  @Override
+  public void redirect(final Redirect redirect) {
+    throw frozen();
+  }
+
+  @Override
+  public String instantInformation() {
+    String instantInformation = this.instantInformation;
+    if(instantInformation == null) {
+      instantInformation = super.instantInformation();
+      this.instantInformation = instantInformation;
+    }
+    return instantInformation;
+  }
+
+  @Override
+  public long fingerprint() {
+    long fingerprint = this.fingerprint;
+    if(fingerprint == 0) {
+      fingerprint = super.fingerprint();
+      this.fingerprint = fingerprint;
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return true;
+  }
+
+  @Override
+  public SearchResult freeze() {
+    return this;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = this.hash;
+    if(hash == 0) {
+      hash = super.hashCode();
+      this.hash = hash;
+    }
+    return hash;
+  }
+
+  static UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException("This search result is frozen");
+  }
+
+  /*
+   * A read-only list over an array trimmed to size. Being an AbstractList, it hashes and compares like any other
+   * list of the same items.
+   */
+  private static final class ItemArray extends AbstractList<ResultItem> implements RandomAccess {
+    private final ResultItem[] items;
+
+    private ItemArray(final List<ResultItem> items) {
+      this.items = items.isEmpty() ? NO_ITEMS : items.toArray(NO_ITEMS);
+    }
+
+    @Override
+    public ResultItem get(final int index) {
+      return this.items[index];
+    }
+
+    @Override
+    public int size() {
+      return this.items.length;
+    }
+  }
+}
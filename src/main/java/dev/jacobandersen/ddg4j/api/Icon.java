@@ -23,6 +23,7 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -114,6 +115,26 @@ public class Icon extends ApiObject {
     return this.hasUrl() ? this.url() : null;
   }
 
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasUrl()) {
+      return false;
+    }
+
+    out.append(this.url());
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 24 + sizeOf(this.url);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.url()).add(this.height()).add(this.width());
+  }
+
   @Override
   public boolean equals(final Object o) {
     if(this == o) return true;
@@ -0,0 +1,242 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import dev.jacobandersen.ddg4j.util.IllegalIndexException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A precompiled list of priorities for {@link SearchResult#instantInformation(String[])}.
+ * <p>The priorities are parsed and validated once, when the plan is compiled, so running the plan against a
+ * search result does no parsing and allocates nothing beyond the answer it returns. Plans are immutable and may be
+ * shared between threads.</p>
+ *
+ * @since 1.1.0
+ */
+public final class InstantInformationPlan {
+  /**
+   * The plan used by {@link SearchResult#instantInformation()}: Answer, Abstract, Related[0], Definition, and Bang
+   * Redirects.
+   *
+   * @since 1.1.0
+   */
+  public static final InstantInformationPlan DEFAULT = compile("answer", "abstract", "related.0", "definition", "redirect");
+
+  private static final String NO_RESULTS = "Sorry, no results.";
+
+  private final String[] priorities;
+  private final Source[] sources;
+  private final int[] indices;
+
+  private InstantInformationPlan(final String[] priorities, final Source[] sources, final int[] indices) {
+    this.priorities = priorities;
+    this.sources = sources;
+    this.indices = indices;
+  }
+
+  /**
+   * Compiles a list of priorities, in the same key.index notation as
+   * {@link SearchResult#instantInformation(String[])}. Unknown fields, and related topics or results without a
+   * valid index, can never give an answer and are left out of the plan.
+   *
+   * @param priorities the list of fields to check for a viable answer
+   * @return the compiled plan
+   * @throws IllegalIndexException if any priority has a negative index
+   * @since 1.1.0
+   */
+  public static InstantInformationPlan compile(final String... priorities) {
+    final Source[] sources = new Source[priorities.length];
+    final int[] indices = new int[priorities.length];
+    int steps = 0;
+
+    for(final String priority : priorities) {
+      final int dot = priority.indexOf('.');
+      final String field = dot < 0 ? priority : priority.substring(0, dot);
+
+      int index = -1;
+      if(dot >= 0) {
+        final int end = priority.indexOf('.', dot + 1);
+        final String indexStr = priority.substring(dot + 1, end < 0 ? priority.length() : end);
+        try {
+          index = Integer.parseInt(indexStr);
+          if(index < 0) {
+            throw new IllegalIndexException(indexStr);
+          }
+        } catch(final NumberFormatException ignored) {
+        }
+      }
+
+      final Source source = Source.of(field);
+      if(source == null || source.indexed && index < 0) {
+        continue;
+      }
+
+      sources[steps] = source;
+      indices[steps] = index;
+      steps++;
+    }
+
+    return new InstantInformationPlan(priorities.clone(), Arrays.copyOf(sources, steps), Arrays.copyOf(indices, steps));
+  }
+
+  /**
+   * Tries to get the best possible answer from a search result, checking the compiled priorities in order.
+   *
+   * @param result the search result
+   * @return the best possible answer or "Sorry, no results."
+   * @since 1.1.0
+   */
+  public String apply(final SearchResult result) {
+    for(int i = 0; i < this.sources.length; i++) {
+      final String instant = this.sources[i].instantInformation(result, this.indices[i]);
+      if(instant != null) {
+        return instant;
+      }
+    }
+
+    return NO_RESULTS;
+  }
+
+  /**
+   * Writes the best possible answer from a search result to an {@link Appendable}, checking the compiled priorities
+   * in order, without building an intermediate String.
+   * <p>Unlike {@link #apply(SearchResult)}, nothing is written when there is no answer.</p>
+   *
+   * @param result the search result
+   * @param out where to write the answer
+   * @return true if an answer was written, or false if there was none
+   * @throws IOException if the Appendable cannot be written to
+   * @since 1.1.0
+   */
+  public boolean render(final SearchResult result, final Appendable out) throws IOException {
+    for(int i = 0; i < this.sources.length; i++) {
+      if(this.sources[i].render(result, this.indices[i], out)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Gets the priorities this plan was compiled from.
+   *
+   * @return a copy of the priorities
+   * @since 1.1.0
+   */
+  public String[] priorities() {
+    return this.priorities.clone();
+  }
+
+  @Override
+  public String toString() {
+    return "InstantInformationPlan{" +
+            "priorities=" + Arrays.toString(this.priorities) +
+            '}';
+  }
+
+  private enum Source {
+    ABSTRACT("abstract", false),
+    ANSWER("answer", false),
+    DEFINITION("definition", false),
+    RELATED("related", true),
+    RESULT("result", true),
+    REDIRECT("redirect", false);
+
+    private final String field;
+    private final boolean indexed;
+
+    Source(final String field, final boolean indexed) {
+      this.field = field;
+      this.indexed = indexed;
+    }
+
+    private static Source of(final String field) {
+      for(final Source source : values()) {
+        if(source.field.equals(field)) {
+          return source;
+        }
+      }
+
+      return null;
+    }
+
+    private String instantInformation(final SearchResult result, final int index) {
+      switch (this) {
+        case ABSTRACT:
+          return instantInformation(result.topicAbstract());
+        case ANSWER:
+          return instantInformation(result.answer());
+        case DEFINITION:
+          return instantInformation(result.definition());
+        case RELATED:
+          return instantInformation(result.relatedTopics(), index);
+        case RESULT:
+          return instantInformation(result.results(), index);
+        case REDIRECT:
+          return instantInformation(result.redirect());
+        default:
+          return null;
+      }
+    }
+
+    private boolean render(final SearchResult result, final int index, final Appendable out) throws IOException {
+      switch (this) {
+        case ABSTRACT:
+          return render(result.topicAbstract(), out);
+        case ANSWER:
+          return render(result.answer(), out);
+        case DEFINITION:
+          return render(result.definition(), out);
+        case RELATED:
+          return render(result.relatedTopics(), index, out);
+        case RESULT:
+          return render(result.results(), index, out);
+        case REDIRECT:
+          return render(result.redirect(), out);
+        default:
+          return false;
+      }
+    }
+
+    private static boolean render(final ApiObject object, final Appendable out) throws IOException {
+      return object != null && object.renderInstantInformation(out);
+    }
+
+    private static boolean render(final List<ResultItem> items, final int index, final Appendable out) throws IOException {
+      return items.size() > index && items.get(index).renderInstantInformation(out);
+    }
+
+    private static String instantInformation(final ApiObject object) {
+      return object != null ? object.instantInformation() : null;
+    }
+
+    private static String instantInformation(final List<ResultItem> items, final int index) {
+      return items.size() > index ? items.get(index).instantInformation() : null;
+    }
+  }
+}
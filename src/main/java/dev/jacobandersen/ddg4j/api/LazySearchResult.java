@@ -0,0 +1,595 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.jacobandersen.ddg4j.util.EnumLookup;
+import dev.jacobandersen.ddg4j.util.SearchResultDeserializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link SearchResult} that keeps the raw response and decodes its parts only when they are first accessed.
+ * Built by {@link SearchResult#lazy(byte[])}.
+ *
+ * @since 1.1.0
+ */
+final class LazySearchResult extends SearchResult {
+  private static final JsonFactory FACTORY = new JsonFactory();
+  private static final int[] NO_ITEMS = new int[0];
+  private static final EnumLookup<Type> TYPES = EnumLookup.of(Type.class);
+
+  // Slots of the scalar fields in fieldOffsets
+  private static final int HEADING = 0;
+  private static final int ABSTRACT_HTML = 1;
+  private static final int ABSTRACT_TEXT = 2;
+  private static final int ABSTRACT_SOURCE = 3;
+  private static final int ABSTRACT_URL = 4;
+  private static final int IMAGE = 5;
+  private static final int ANSWER = 6;
+  private static final int ANSWER_TYPE = 7;
+  private static final int DEFINITION = 8;
+  private static final int DEFINITION_SOURCE = 9;
+  private static final int DEFINITION_URL = 10;
+  private static final int REDIRECT = 11;
+  private static final int FIELD_COUNT = 12;
+
+  // Bits of the parts that have been materialized
+  private static final int TOPIC_ABSTRACT_PART = 1;
+  private static final int ANSWER_PART = 1 << 1;
+  private static final int DEFINITION_PART = 1 << 2;
+  private static final int REDIRECT_PART = 1 << 3;
+  private static final int RELATED_TOPICS_PART = 1 << 4;
+  private static final int RESULTS_PART = 1 << 5;
+
+  private final byte[] body;
+  private final int[] fieldOffsets;
+  private final int[] relatedTopicOffsets;
+  private final int[] resultOffsets;
+  private final boolean frozen;
+
+  private volatile int materialized;
+  private TopicAbstract topicAbstract;
+  private Answer answer;
+  private Definition definition;
+  private Redirect redirect;
+  // read-only views handed out by the getters, over the changed copies once the lists have been changed
+  private List<ResultItem> relatedTopics;
+  private List<ResultItem> results;
+  private List<ResultItem> changedRelatedTopics;
+  private List<ResultItem> changedResults;
+  // derived values cached once frozen, with racy single-checks like FrozenSearchResult
+  private int hash;
+  private volatile long fingerprint;
+  private String instantInformation;
+
+  private LazySearchResult(final Type type, final byte[] body, final int[] fieldOffsets, final int[] relatedTopicOffsets, final int[] resultOffsets, final boolean frozen) {
+    super(type, null, null);
+    this.body = body;
+    this.fieldOffsets = fieldOffsets;
+    this.relatedTopicOffsets = relatedTopicOffsets;
+    this.resultOffsets = resultOffsets;
+    this.frozen = frozen;
+  }
+
+  /*
+   * Scans the response once, recording the byte offset of every field value and of every (flattened) result item.
+   * Only the Type is decoded; everything else is skipped.
+   */
+  static LazySearchResult index(final byte[] body) throws IOException {
+    Type type = Type.NULL;
+    final int[] fieldOffsets = new int[FIELD_COUNT];
+    Arrays.fill(fieldOffsets, -1);
+    int[] relatedTopicOffsets = NO_ITEMS;
+    int[] resultOffsets = NO_ITEMS;
+
+    try(JsonParser parser = FACTORY.createParser(body)) {
+      if(parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected a DuckDuckGo response object");
+      }
+
+      while(parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.currentName();
+        final JsonToken value = parser.nextToken();
+
+        switch (field) {
+          case "Type":
+            type = SearchResultDeserializer.readEnum(parser, TYPES, Type.NULL);
+            break;
+          case "RelatedTopics":
+            relatedTopicOffsets = indexResultItems(parser);
+            break;
+          case "Results":
+            resultOffsets = indexResultItems(parser);
+            break;
+          default:
+            // nulls and containers read as the empty string, so only other scalars need an offset
+            final int slot = slot(field);
+            if(slot >= 0 && value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+              fieldOffsets[slot] = offset(parser);
+            }
+            parser.skipChildren();
+            break;
+        }
+      }
+    }
+
+    return new LazySearchResult(type, body, fieldOffsets, relatedTopicOffsets, resultOffsets, false);
+  }
+
+  /*
+   * Mirrors how SearchResultDeserializer flattens disambiguation groups, recording offsets instead of items.
+   */
+  private static int[] indexResultItems(final JsonParser parser) throws IOException {
+    if(parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return NO_ITEMS;
+    }
+
+    final Offsets offsets = new Offsets();
+    while(parser.nextToken() != JsonToken.END_ARRAY) {
+      if(parser.currentToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+
+      final int element = offset(parser);
+      final int start = offsets.size;
+      boolean hasName = false;
+      boolean hasTopics = false;
+
+      while(parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String field = parser.currentName();
+        final JsonToken value = parser.nextToken();
+
+        if("Name".equals(field)) {
+          hasName = true;
+        } else if("Topics".equals(field)) {
+          hasTopics = true;
+          if(value == JsonToken.START_ARRAY) {
+            while(parser.nextToken() != JsonToken.END_ARRAY) {
+              if(parser.currentToken() == JsonToken.START_OBJECT) {
+                offsets.add(offset(parser));
+              }
+              parser.skipChildren();
+            }
+            continue;
+          }
+        }
+
+        parser.skipChildren();
+      }
+
+      if(!hasName || !hasTopics) {
+        offsets.size = start;
+        offsets.add(element);
+      }
+    }
+
+    return offsets.toArray();
+  }
+
+  private static int offset(final JsonParser parser) {
+    return (int) parser.getTokenLocation().getByteOffset();
+  }
+
+  private static int slot(final String field) {
+    switch (field) {
+      case "Heading":
+        return HEADING;
+      case "Abstract":
+        return ABSTRACT_HTML;
+      case "AbstractText":
+        return ABSTRACT_TEXT;
+      case "AbstractSource":
+        return ABSTRACT_SOURCE;
+      case "AbstractURL":
+        return ABSTRACT_URL;
+      case "Image":
+        return IMAGE;
+      case "Answer":
+        return ANSWER;
+      case "AnswerType":
+        return ANSWER_TYPE;
+      case "Definition":
+        return DEFINITION;
+      case "DefinitionSource":
+        return DEFINITION_SOURCE;
+      case "DefinitionURL":
+        return DEFINITION_URL;
+      case "Redirect":
+        return REDIRECT;
+      default:
+        return -1;
+    }
+  }
+
+  @Override
+  public TopicAbstract topicAbstract() {
+    this.materialize(TOPIC_ABSTRACT_PART);
+    return this.topicAbstract;
+  }
+
+  @Override
+  public synchronized void topicAbstract(final TopicAbstract topicAbstract) {
+    this.checkMutable();
+    this.topicAbstract = topicAbstract;
+    this.materialized |= TOPIC_ABSTRACT_PART;
+  }
+
+  @Override
+  public Answer answer() {
+    this.materialize(ANSWER_PART);
+    return this.answer;
+  }
+
+  @Override
+  public synchronized void answer(final Answer answer) {
+    this.checkMutable();
+    this.answer = answer;
+    this.materialized |= ANSWER_PART;
+  }
+
+  @Override
+  public Definition definition() {
+    this.materialize(DEFINITION_PART);
+    return this.definition;
+  }
+
+  @Override
+  public synchronized void definition(final Definition definition) {
+    this.checkMutable();
+    this.definition = definition;
+    this.materialized |= DEFINITION_PART;
+  }
+
+  @Override
+  public List<ResultItem> relatedTopics() {
+    this.materialize(RELATED_TOPICS_PART);
+    return this.relatedTopics;
+  }
+
+  @Override
+  public synchronized void relatedTopics(final List<ResultItem> relatedTopics) {
+    this.checkMutable();
+    this.changedRelatedTopics = new ArrayList<>(relatedTopics);
+    this.relatedTopics = Collections.unmodifiableList(this.changedRelatedTopics);
+    this.materialized |= RELATED_TOPICS_PART;
+  }
+
+  @Override
+  public synchronized void addRelatedTopic(final ResultItem relatedTopic) {
+    this.checkMutable();
+    this.changedRelatedTopics().add(relatedTopic);
+  }
+
+  @Override
+  public synchronized void addRelatedTopics(final Collection<ResultItem> relatedTopics) {
+    this.checkMutable();
+    this.changedRelatedTopics().addAll(relatedTopics);
+  }
+
+  // the first change copies the list, decoding it; later ones add to the copy
+  private List<ResultItem> changedRelatedTopics() {
+    if(this.changedRelatedTopics == null) {
+      this.relatedTopics(this.relatedTopics());
+    }
+    return this.changedRelatedTopics;
+  }
+
+  @Override
+  public List<ResultItem> results() {
+    this.materialize(RESULTS_PART);
+    return this.results;
+  }
+
+  @Override
+  public synchronized void results(final List<ResultItem> results) {
+    this.checkMutable();
+    this.changedResults = new ArrayList<>(results);
+    this.results = Collections.unmodifiableList(this.changedResults);
+    this.materialized |= RESULTS_PART;
+  }
+
+  @Override
+  public synchronized void addResult(final ResultItem result) {
+    this.checkMutable();
+    this.changedResults().add(result);
+  }
+
+  @Override
+  public synchronized void addResults(final Collection<ResultItem> results) {
+    this.checkMutable();
+    this.changedResults().addAll(results);
+  }
+
+  private List<ResultItem> changedResults() {
+    if(this.changedResults == null) {
+      this.results(this.results());
+    }
+    return this.changedResults;
+  }
+
+  @Override
+  public Redirect redirect() {
+    this.materialize(REDIRECT_PART);
+    return this.redirect;
+  }
+
+  @Override
+  public synchronized void redirect(final Redirect redirect) {
+    this.checkMutable();
+    this.redirect = redirect;
+    this.materialized |= REDIRECT_PART;
+  }
+
+  @Override
+  public String instantInformation() {
+    if(!this.frozen) {
+      return super.instantInformation();
+    }
+
+    String instantInformation = this.instantInformation;
+    if(instantInformation == null) {
+      instantInformation = super.instantInformation();
+      this.instantInformation = instantInformation;
+    }
+    return instantInformation;
+  }
+
+  @Override
+  public long fingerprint() {
+    if(!this.frozen) {
+      return super.fingerprint();
+    }
+
+    long fingerprint = this.fingerprint;
+    if(fingerprint == 0) {
+      fingerprint = super.fingerprint();
+      this.fingerprint = fingerprint;
+    }
+    return fingerprint;
+  }
+
+  @Override
+  public boolean isFrozen() {
+    return this.frozen;
+  }
+
+  /*
+   * Shares the response, its index and whatever has been decoded so far, so that freezing decodes nothing. Only
+   * changed lists are copied, as they are the only parts that can still change.
+   */
+  @Override
+  public synchronized SearchResult freeze() {
+    if(this.frozen) {
+      return this;
+    }
+
+    final LazySearchResult frozen = new LazySearchResult(this.type(), this.body, this.fieldOffsets, this.relatedTopicOffsets, this.resultOffsets, true);
+    frozen.topicAbstract = this.topicAbstract;
+    frozen.answer = this.answer;
+    frozen.definition = this.definition;
+    frozen.redirect = this.redirect;
+    frozen.relatedTopics = freeze(this.relatedTopics, this.changedRelatedTopics);
+    frozen.results = freeze(this.results, this.changedResults);
+    frozen.materialized = this.materialized;
+    return frozen;
+  }
+
+  private static List<ResultItem> freeze(final List<ResultItem> items, final List<ResultItem> changed) {
+    return changed == null ? items : Collections.unmodifiableList(new ArrayList<>(changed));
+  }
+
+  @Override
+  public int hashCode() {
+    if(!this.frozen) {
+      return super.hashCode();
+    }
+
+    int hash = this.hash;
+    if(hash == 0) {
+      hash = super.hashCode();
+      this.hash = hash;
+    }
+    return hash;
+  }
+
+  private void checkMutable() {
+    if(this.frozen) {
+      throw FrozenSearchResult.frozen();
+    }
+  }
+
+  /*
+   * Only what is held right now: the response and its index, plus whatever has been materialized so far.
+   */
+  @Override
+  public synchronized long estimatedSize() {
+    long size = 96 + 16 + this.body.length + 16 + 4L * FIELD_COUNT
+            + 2 * 16 + 4L * (this.relatedTopicOffsets.length + this.resultOffsets.length)
+            + estimatedSize(this.topicAbstract) + estimatedSize(this.answer)
+            + estimatedSize(this.definition) + estimatedSize(this.redirect);
+
+    for(final List<ResultItem> items : Arrays.asList(this.relatedTopics, this.results)) {
+      if(items instanceof ItemList) {
+        size += ((ItemList) items).estimatedSize();
+      } else if(items != null) {
+        size += estimatedSize(items);
+      }
+    }
+
+    return size;
+  }
+
+  private void materialize(final int part) {
+    if((this.materialized & part) != 0) {
+      return;
+    }
+
+    synchronized(this) {
+      if((this.materialized & part) != 0) {
+        return;
+      }
+
+      switch (part) {
+        case TOPIC_ABSTRACT_PART:
+          this.topicAbstract = new TopicAbstract(
+                  this.text(HEADING),
+                  this.text(ABSTRACT_HTML),
+                  this.text(ABSTRACT_TEXT),
+                  this.text(ABSTRACT_SOURCE),
+                  this.text(ABSTRACT_URL),
+                  this.text(IMAGE)
+          );
+          break;
+        case ANSWER_PART:
+          this.answer = new Answer(this.text(ANSWER), Answer.Type.byName(this.text(ANSWER_TYPE)));
+          break;
+        case DEFINITION_PART:
+          this.definition = new Definition(this.text(DEFINITION), this.text(DEFINITION_SOURCE), this.text(DEFINITION_URL));
+          break;
+        case REDIRECT_PART:
+          this.redirect = new Redirect(this.text(REDIRECT));
+          break;
+        case RELATED_TOPICS_PART:
+          this.relatedTopics = new ItemList(this.relatedTopicOffsets);
+          break;
+        case RESULTS_PART:
+          this.results = new ItemList(this.resultOffsets);
+          break;
+        default:
+          throw new IllegalArgumentException(Integer.toString(part));
+      }
+
+      this.materialized |= part;
+    }
+  }
+
+  private String text(final int slot) {
+    final int offset = this.fieldOffsets[slot];
+    if(offset < 0) {
+      return "";
+    }
+
+    // a number or boolean cannot be parsed on its own as a root-level value here, but its text is its raw bytes
+    if(this.body[offset] != '"') {
+      int end = offset;
+      while(end < this.body.length && isScalarByte(this.body[end])) {
+        end++;
+      }
+      return new String(this.body, offset, end - offset, StandardCharsets.US_ASCII);
+    }
+
+    try(JsonParser parser = FACTORY.createParser(this.body, offset, this.body.length - offset)) {
+      parser.nextToken();
+      return SearchResultDeserializer.readText(parser);
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static boolean isScalarByte(final byte value) {
+    return value >= '0' && value <= '9' || value >= 'a' && value <= 'z' || value >= 'A' && value <= 'Z'
+            || value == '.' || value == '+' || value == '-';
+  }
+
+  private ResultItem item(final int offset) {
+    try(JsonParser parser = FACTORY.createParser(this.body, offset, this.body.length - offset)) {
+      parser.nextToken();
+      return SearchResultDeserializer.readResultItem(parser);
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  /*
+   * A read-only view that decodes each item the first time it is read. Items are immutable, so racing decodes of
+   * the same index are harmless.
+   */
+  private final class ItemList extends AbstractList<ResultItem> implements RandomAccess {
+    private final int[] offsets;
+    private final ResultItem[] items;
+
+    ItemList(final int[] offsets) {
+      this.offsets = offsets;
+      this.items = new ResultItem[offsets.length];
+    }
+
+    @Override
+    public ResultItem get(final int index) {
+      ResultItem item = this.items[index];
+      if(item == null) {
+        item = LazySearchResult.this.item(this.offsets[index]);
+        this.items[index] = item;
+      }
+
+      return item;
+    }
+
+    @Override
+    public int size() {
+      return this.offsets.length;
+    }
+
+    long estimatedSize() {
+      long size = 32 + 16 + 4L * this.items.length;
+      for(final ResultItem item : this.items) {
+        if(item != null) {
+          size += item.estimatedSize();
+        }
+      }
+      return size;
+    }
+  }
+
+  private static final class Offsets {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(final int value) {
+      if(this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+
+      this.values[this.size++] = value;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(this.values, this.size);
+    }
+  }
+}
@@ -23,6 +23,7 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -68,6 +69,26 @@ public class Redirect extends ApiObject {
     return this.hasRedirectUrl() ? this.redirectUrl() : null;
   }
 
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasRedirectUrl()) {
+      return false;
+    }
+
+    out.append(this.redirectUrl());
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 16 + sizeOf(this.redirectUrl);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.redirectUrl());
+  }
+
   @Override
   public boolean equals(final Object o) {
     if(this == o) return true;
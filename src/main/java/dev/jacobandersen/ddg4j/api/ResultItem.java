@@ -23,6 +23,7 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -170,25 +171,40 @@ public class ResultItem extends ApiObject {
 
   @Override
   public String instantInformation() {
-    final StringBuilder builder = new StringBuilder();
+    return this.renderInstantInformation();
+  }
+
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasText()) {
+      return false;
+    }
 
-    if(this.hasText()) {
-      builder.append(this.text()).append(" (");
+    out.append(this.text()).append(" (");
 
-      if(this.hasUrl()) {
-        builder.append(this.url());
-      } else {
-        builder.append("unknown source");
-      }
+    if(this.hasUrl()) {
+      out.append(this.url());
+    } else {
+      out.append("unknown source");
+    }
 
-      builder.append(")");
+    out.append(')');
 
-      if(this.hasDisambiguationName()) {
-        builder.append(" {").append(this.disambiguationName()).append("}");
-      }
+    if(this.hasDisambiguationName()) {
+      out.append(" {").append(this.disambiguationName()).append('}');
     }
 
-    return builder.length() == 0 ? null : builder.toString();
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 40 + sizeOf(this.url) + (this.icon != null ? this.icon.estimatedSize() : 0) + sizeOf(this.html) + sizeOf(this.text) + sizeOf(this.disambiguationName);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.url()).add(this.icon()).add(this.html()).add(this.text());
   }
 
   @Override
@@ -25,6 +25,8 @@ package dev.jacobandersen.ddg4j.api;
 
 import dev.jacobandersen.ddg4j.util.IllegalIndexException;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -35,7 +37,7 @@ import java.util.Objects;
  *
  * @since 1.0.0
  */
-public final class SearchResult {
+public class SearchResult {
   private final Type type;
   private TopicAbstract topicAbstract;
   private Answer answer;
@@ -44,10 +46,17 @@ public final class SearchResult {
   private final List<ResultItem> results;
   private Redirect redirect;
 
-  private SearchResult(final Type type) {
+  SearchResult(final Type type) {
+    this(type, new ArrayList<>(), new ArrayList<>());
+  }
+
+  /*
+   * For implementations that override every accessor and keep their lists elsewhere.
+   */
+  SearchResult(final Type type, final List<ResultItem> relatedTopics, final List<ResultItem> results) {
     this.type = type;
-    this.relatedTopics = new ArrayList<>();
-    this.results = new ArrayList<>();
+    this.relatedTopics = relatedTopics;
+    this.results = results;
   }
 
   /**
@@ -230,13 +239,56 @@ public final class SearchResult {
    * @see #instantInformation(String[]) the parent method with adjustable priorities.
    * @since 1.0.0
    */
-  public final String instantInformation() {
-    return this.instantInformation(new String[]{"answer", "abstract", "related.0", "definition", "redirect"});
+  public String instantInformation() {
+    return this.instantInformation(InstantInformationPlan.DEFAULT);
+  }
+
+  /**
+   * Tries to get the best possible answer to the query for a single reply, following a precompiled list of
+   * priorities. Only replies in plain text.
+   *
+   * @param plan the compiled priorities
+   * @return the best possible answer or "Sorry, no results."
+   * @see InstantInformationPlan#compile(String...)
+   * @since 1.1.0
+   */
+  public final String instantInformation(final InstantInformationPlan plan) {
+    return plan.apply(this);
+  }
+
+  /**
+   * Writes the best possible answer to the query to an {@link Appendable}, such as a {@link StringBuilder},
+   * {@link java.nio.CharBuffer} or {@link java.io.Writer}, without building an intermediate String.
+   * <p>Follows the same path as {@link #instantInformation()}, but writes nothing when there is no answer.</p>
+   *
+   * @param out where to write the answer
+   * @return true if an answer was written, or false if there was none
+   * @throws IOException if the Appendable cannot be written to
+   * @since 1.1.0
+   */
+  public final boolean renderInstantInformation(final Appendable out) throws IOException {
+    return InstantInformationPlan.DEFAULT.render(this, out);
+  }
+
+  /**
+   * Writes the best possible answer to the query to an {@link Appendable}, following a precompiled list of
+   * priorities.
+   *
+   * @param plan the compiled priorities
+   * @param out where to write the answer
+   * @return true if an answer was written, or false if there was none
+   * @throws IOException if the Appendable cannot be written to
+   * @see #renderInstantInformation(Appendable)
+   * @since 1.1.0
+   */
+  public final boolean renderInstantInformation(final InstantInformationPlan plan, final Appendable out) throws IOException {
+    return plan.render(this, out);
   }
 
   /**
    * Tries to get the best possible answer to the query for a single reply. Only replies in plain text.
-   * <p>Follows the given path of fields to check. Indexable fields may be specified with key.index notation.</p>
+   * <p>Follows the given path of fields to check. Indexable fields may be specified with key.index notation.
+   * The priorities are parsed on every call; compile an {@link InstantInformationPlan} to reuse them.</p>
    *
    * @param priorities the list of fields to check for a viable answer
    * @return the best possible answer or "Sorry, no results."
@@ -264,38 +316,44 @@ public final class SearchResult {
 
       switch (field) {
         case "abstract":
-          if(this.topicAbstract != null) {
-            instant = this.topicAbstract.instantInformation();
+          final TopicAbstract topicAbstract = this.topicAbstract();
+          if(topicAbstract != null) {
+            instant = topicAbstract.instantInformation();
             break;
           }
           break;
         case "answer":
-          if(this.answer != null) {
-            instant = this.answer.instantInformation();
+          final Answer answer = this.answer();
+          if(answer != null) {
+            instant = answer.instantInformation();
             break;
           }
           break;
         case "definition":
-          if(this.definition != null) {
-            instant = this.definition.instantInformation();
+          final Definition definition = this.definition();
+          if(definition != null) {
+            instant = definition.instantInformation();
             break;
           }
           break;
         case "related":
-          if(index >= 0 && this.relatedTopics.size() > index) {
-            instant = this.relatedTopics.get(index).instantInformation();
+          final List<ResultItem> relatedTopics = this.relatedTopics();
+          if(index >= 0 && relatedTopics.size() > index) {
+            instant = relatedTopics.get(index).instantInformation();
             break;
           }
           break;
         case "result":
-          if(index >= 0 && this.results.size() > index) {
-            instant = this.results.get(index).instantInformation();
+          final List<ResultItem> results = this.results();
+          if(index >= 0 && results.size() > index) {
+            instant = results.get(index).instantInformation();
             break;
           }
           break;
         case "redirect":
-          if(this.redirect != null) {
-            instant = this.redirect.instantInformation();
+          final Redirect redirect = this.redirect();
+          if(redirect != null) {
+            instant = redirect.instantInformation();
             break;
           }
           break;
@@ -311,6 +369,99 @@ public final class SearchResult {
     return "Sorry, no results.";
   }
 
+  /**
+   * Estimates how many bytes of heap this search result retains, for weighing it in caches.
+   * <p>The estimate assumes a 64-bit JVM with compressed references and is only meant to be roughly proportional
+   * to the real retained size.</p>
+   *
+   * @return the estimated retained size in bytes
+   * @since 1.1.0
+   */
+  public long estimatedSize() {
+    return 48 + estimatedSize(this.topicAbstract()) + estimatedSize(this.answer()) + estimatedSize(this.definition())
+            + estimatedSize(this.redirect()) + estimatedSize(this.relatedTopics()) + estimatedSize(this.results());
+  }
+
+  static long estimatedSize(final ApiObject object) {
+    return object == null ? 0 : object.estimatedSize();
+  }
+
+  static long estimatedSize(final List<ResultItem> items) {
+    long size = 24 + 4L * items.size();
+    for(final ResultItem item : items) {
+      size += item.estimatedSize();
+    }
+    return size;
+  }
+
+  /**
+   * Computes a 64-bit fingerprint of this search result's content.
+   * <p>Equal search results always have equal fingerprints, and unequal ones almost never do, so fingerprints can
+   * stand in for whole results as deduplication keys. Fingerprints are stable across JVMs and versions of the
+   * data, but not across versions of this library.</p>
+   *
+   * @return the fingerprint
+   * @see #freeze() frozen search results, which compute their fingerprint only once
+   * @since 1.1.0
+   */
+  public long fingerprint() {
+    return new Fingerprint()
+            .add(this.type())
+            .add(this.topicAbstract())
+            .add(this.answer())
+            .add(this.definition())
+            .add(this.redirect())
+            .add(this.relatedTopics())
+            .add(this.results())
+            .value();
+  }
+
+  /**
+   * Whether or not this search result is {@linkplain #freeze() frozen}.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public boolean isFrozen() {
+    return false;
+  }
+
+  /**
+   * Gets an immutable copy of this search result, which is safe to share between threads without copying.
+   * <p>The copy keeps its related topics and results in arrays trimmed to size, and computes its
+   * {@link #hashCode()}, {@link #fingerprint()} and {@link #instantInformation()} at most once. Its setters throw
+   * {@link UnsupportedOperationException}, as do its lists' mutators. Freezing a {@linkplain #lazy(byte[]) lazy}
+   * search result decodes nothing: the frozen result shares the response and whatever has been decoded so far, and
+   * decodes the rest on first access. Freezing a frozen search result returns it as-is.</p>
+   *
+   * @return the frozen search result
+   * @since 1.1.0
+   */
+  public SearchResult freeze() {
+    return new FrozenSearchResult(this);
+  }
+
+  /**
+   * Creates a search result that keeps the raw response and decodes its parts only when they are first accessed.
+   * <p>The response is scanned once up front to find where each part starts. After that, the abstract, answer,
+   * definition and redirect are decoded on first access, and each related topic and internal result is decoded the
+   * first time it is read from its list. Results that are never read cost little more than the response itself.</p>
+   * <p>Unlike other search results, the lazy result's lists of related topics and results are read-only: change them
+   * through its setters and add methods instead. The first change to a list decodes and copies it.</p>
+   *
+   * @param body the raw JSON response from DuckDuckGo
+   * @return the lazy search result
+   * @throws UncheckedIOException if the response is not a valid JSON object
+   * @since 1.1.0
+   */
+  public static SearchResult lazy(final byte[] body) {
+    try {
+      return LazySearchResult.index(body);
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
   /**
    * Creates a new search result builder to easily create a new search result.
    *
@@ -327,6 +478,8 @@ public final class SearchResult {
     if(this == o) return true;
     if(!(o instanceof SearchResult)) return false;
     final SearchResult that = (SearchResult) o;
+    // frozen results compute their fingerprints only once, so unequal ones are cheap to tell apart
+    if(this.isFrozen() && that.isFrozen() && this.fingerprint() != that.fingerprint()) return false;
     return this.type() == that.type()
             && Objects.equals(this.topicAbstract(), that.topicAbstract())
             && Objects.equals(this.answer(), that.answer())
@@ -344,13 +497,13 @@ public final class SearchResult {
   @Override
   public String toString() {
     return "SearchResult{" +
-            "type=" + this.type +
-            ", topicAbstract=" + this.topicAbstract +
-            ", answer=" + this.answer +
-            ", definition=" + this.definition +
-            ", relatedTopics=" + this.relatedTopics +
-            ", results=" + this.results +
-            ", redirect=" + this.redirect +
+            "type=" + this.type() +
+            ", topicAbstract=" + this.topicAbstract() +
+            ", answer=" + this.answer() +
+            ", definition=" + this.definition() +
+            ", relatedTopics=" + this.relatedTopics() +
+            ", results=" + this.results() +
+            ", redirect=" + this.redirect() +
             '}';
   }
 
@@ -23,6 +23,7 @@
  */
 package dev.jacobandersen.ddg4j.api;
 
+import java.io.IOException;
 import java.util.Objects;
 
 /**
@@ -180,25 +181,39 @@ public final class TopicAbstract extends ApiObject {
 
   @Override
   public String instantInformation() {
-    final StringBuilder builder = new StringBuilder();
+    return this.renderInstantInformation();
+  }
 
-    if(this.hasText()) {
-      if(this.hasHeading()) {
-        builder.append(this.heading()).append(" - ");
-      }
+  @Override
+  public boolean renderInstantInformation(final Appendable out) throws IOException {
+    if(!this.hasText()) {
+      return false;
+    }
 
-      builder.append(this.text()).append(" (");
+    if(this.hasHeading()) {
+      out.append(this.heading()).append(" - ");
+    }
 
-      if(this.hasUrl()) {
-        builder.append(this.url());
-      } else {
-        builder.append("unknown source");
-      }
+    out.append(this.text()).append(" (");
 
-      builder.append(")");
+    if(this.hasUrl()) {
+      out.append(this.url());
+    } else {
+      out.append("unknown source");
     }
 
-    return builder.length() == 0 ? null : builder.toString();
+    out.append(')');
+    return true;
+  }
+
+  @Override
+  long estimatedSize() {
+    return 40 + sizeOf(this.heading) + sizeOf(this.html) + sizeOf(this.text) + sizeOf(this.source) + sizeOf(this.url) + sizeOf(this.image);
+  }
+
+  @Override
+  void fingerprint(final Fingerprint fingerprint) {
+    fingerprint.add(this.heading()).add(this.html()).add(this.text()).add(this.source()).add(this.url()).add(this.image());
   }
 
   @Override
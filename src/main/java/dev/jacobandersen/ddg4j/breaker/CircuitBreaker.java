@@ -0,0 +1,373 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.breaker;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops requests from being sent while DuckDuckGo is failing or too slow, so callers fail fast rather than each
+ * waiting out a timeout.
+ * <p>The breaker starts closed, letting every request through and keeping the outcomes of the most recent ones.
+ * Once enough have completed and too many of them failed or were slow, it opens, and rejects every request for a
+ * while. It then lets a few probe requests through, half open: if all of them succeed in good time it closes again,
+ * and otherwise it reopens.</p>
+ * <p>Only failures that say something about DuckDuckGo's health count, such as 429 and 5xx responses and failing to
+ * get a response at all; other unsuccessful responses count as successes. A breaker keeps state, so each client
+ * needs its own.</p>
+ *
+ * @since 1.1.0
+ */
+public final class CircuitBreaker {
+  private static final byte SUCCESS = 0;
+  private static final byte FAILURE = 1;
+  private static final byte SLOW = 2;
+
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final long slowCallNanos;
+  private final int minimumCalls;
+  private final long openNanos;
+  private final int halfOpenCalls;
+  private final LongSupplier clock;
+  private final byte[] outcomes;
+  private int next;
+  private int calls;
+  private int failures;
+  private int slowCalls;
+  private long openedAt;
+  private int probes;
+  private int probesSucceeded;
+  private volatile State state = State.CLOSED;
+
+  private CircuitBreaker(final Builder builder) {
+    this.failureRateThreshold = builder.failureRateThreshold;
+    this.slowCallRateThreshold = builder.slowCallRateThreshold;
+    this.slowCallNanos = builder.slowCallThreshold.toNanos();
+    this.minimumCalls = builder.minimumCalls;
+    this.openNanos = builder.openDuration.toNanos();
+    this.halfOpenCalls = builder.halfOpenCalls;
+    this.clock = builder.clock;
+    this.outcomes = new byte[builder.windowSize];
+  }
+
+  /**
+   * Creates a new breaker builder.
+   *
+   * @return the breaker builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the state the breaker is in.
+   *
+   * @return the state
+   * @since 1.1.0
+   */
+  public State state() {
+    return this.state;
+  }
+
+  /**
+   * Asks whether a request may be sent. Every request that is let through must be reported back with
+   * {@link #onSuccess(long)}, {@link #onFailure(long)} or {@link #onIgnored()}.
+   *
+   * @return true if the request may be sent, or false if it should fail fast
+   * @since 1.1.0
+   */
+  public boolean tryAcquire() {
+    if(this.state == State.CLOSED) {
+      return true;
+    }
+
+    synchronized(this) {
+      if(this.state == State.OPEN) {
+        if(this.clock.getAsLong() - this.openedAt < this.openNanos) {
+          return false;
+        }
+
+        this.state = State.HALF_OPEN;
+        this.probes = 0;
+        this.probesSucceeded = 0;
+      }
+
+      if(this.state == State.HALF_OPEN) {
+        if(this.probes >= this.halfOpenCalls) {
+          return false;
+        }
+
+        this.probes++;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Reports a request that DuckDuckGo answered.
+   *
+   * @param nanos how long the request took, in nanoseconds
+   * @since 1.1.0
+   */
+  public void onSuccess(final long nanos) {
+    this.record(nanos >= this.slowCallNanos ? SLOW : SUCCESS);
+  }
+
+  /**
+   * Reports a request that failed in a way that suggests DuckDuckGo is unhealthy.
+   *
+   * @param nanos how long the request took, in nanoseconds
+   * @since 1.1.0
+   */
+  public void onFailure(final long nanos) {
+    this.record(FAILURE);
+  }
+
+  /**
+   * Reports a request that was let through but never completed, such as one that was cancelled.
+   *
+   * @since 1.1.0
+   */
+  public synchronized void onIgnored() {
+    if(this.state == State.HALF_OPEN && this.probes > this.probesSucceeded) {
+      this.probes--;
+    }
+  }
+
+  private synchronized void record(final byte outcome) {
+    switch (this.state) {
+      case CLOSED:
+        if(this.calls == this.outcomes.length) {
+          this.count(this.outcomes[this.next], -1);
+        } else {
+          this.calls++;
+        }
+        this.outcomes[this.next] = outcome;
+        this.next = (this.next + 1) % this.outcomes.length;
+        this.count(outcome, 1);
+
+        if(this.calls >= this.minimumCalls
+                && (this.failures >= this.failureRateThreshold * this.calls || this.slowCalls >= this.slowCallRateThreshold * this.calls)) {
+          this.open();
+        }
+        break;
+      case HALF_OPEN:
+        if(outcome != SUCCESS) {
+          this.open();
+        } else if(++this.probesSucceeded >= this.halfOpenCalls) {
+          this.state = State.CLOSED;
+        }
+        break;
+      default:
+        // a request sent before the breaker opened
+        break;
+    }
+  }
+
+  private void count(final byte outcome, final int delta) {
+    if(outcome == FAILURE) {
+      this.failures += delta;
+    } else if(outcome == SLOW) {
+      this.slowCalls += delta;
+    }
+  }
+
+  private void open() {
+    this.state = State.OPEN;
+    this.openedAt = this.clock.getAsLong();
+    this.next = 0;
+    this.calls = 0;
+    this.failures = 0;
+    this.slowCalls = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "CircuitBreaker{" +
+            "state=" + this.state +
+            '}';
+  }
+
+  /**
+   * Represents the states a breaker can be in.
+   *
+   * @since 1.1.0
+   */
+  public enum State {
+    /**
+     * Every request is let through.
+     */
+    CLOSED,
+    /**
+     * Every request fails fast.
+     */
+    OPEN,
+    /**
+     * A few probe requests are let through to see whether DuckDuckGo has recovered.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Provides utilities for building {@link CircuitBreaker}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private double failureRateThreshold = 0.5;
+    private double slowCallRateThreshold = 1;
+    private Duration slowCallThreshold = Duration.ofSeconds(5);
+    private int windowSize = 100;
+    private int minimumCalls = 20;
+    private Duration openDuration = Duration.ofSeconds(30);
+    private int halfOpenCalls = 5;
+    private LongSupplier clock = System::nanoTime;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the fraction of recent requests that must fail for the breaker to open. Defaults to 0.5.
+     *
+     * @param failureRateThreshold the failure rate, greater than 0 and at most 1
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder failureRateThreshold(final double failureRateThreshold) {
+      this.failureRateThreshold = rate(failureRateThreshold, "failureRateThreshold");
+      return this;
+    }
+
+    /**
+     * Sets the fraction of recent requests that must be slow for the breaker to open. Defaults to 1, that is every
+     * one of them.
+     *
+     * @param slowCallRateThreshold the slow call rate, greater than 0 and at most 1
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder slowCallRateThreshold(final double slowCallRateThreshold) {
+      this.slowCallRateThreshold = rate(slowCallRateThreshold, "slowCallRateThreshold");
+      return this;
+    }
+
+    /**
+     * Sets how long a request may take before it counts as slow. Defaults to 5 seconds.
+     *
+     * @param slowCallThreshold the slow call threshold
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder slowCallThreshold(final Duration slowCallThreshold) {
+      this.slowCallThreshold = Objects.requireNonNull(slowCallThreshold, "slowCallThreshold");
+      return this;
+    }
+
+    /**
+     * Sets how many of the most recent requests the failure and slow call rates are taken over. Defaults to 100.
+     *
+     * @param windowSize the number of requests
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder windowSize(final int windowSize) {
+      this.windowSize = positive(windowSize, "windowSize");
+      return this;
+    }
+
+    /**
+     * Sets how many requests must have completed before the breaker may open. Defaults to 20.
+     *
+     * @param minimumCalls the number of requests
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder minimumCalls(final int minimumCalls) {
+      this.minimumCalls = positive(minimumCalls, "minimumCalls");
+      return this;
+    }
+
+    /**
+     * Sets how long the breaker stays open before letting probe requests through. Defaults to 30 seconds.
+     *
+     * @param openDuration the open duration
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder openDuration(final Duration openDuration) {
+      this.openDuration = Objects.requireNonNull(openDuration, "openDuration");
+      return this;
+    }
+
+    /**
+     * Sets how many probe requests must succeed while half open for the breaker to close. Defaults to 5.
+     *
+     * @param halfOpenCalls the number of probe requests
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder halfOpenCalls(final int halfOpenCalls) {
+      this.halfOpenCalls = positive(halfOpenCalls, "halfOpenCalls");
+      return this;
+    }
+
+    Builder clock(final LongSupplier clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link CircuitBreaker} from this builder's configuration.
+     *
+     * @return the breaker
+     * @since 1.1.0
+     */
+    public CircuitBreaker build() {
+      if(this.minimumCalls > this.windowSize) {
+        throw new IllegalArgumentException(String.format("minimumCalls %d must not be greater than windowSize %d", this.minimumCalls, this.windowSize));
+      }
+
+      return new CircuitBreaker(this);
+    }
+
+    private static double rate(final double value, final String name) {
+      if(!(value > 0 && value <= 1)) {
+        throw new IllegalArgumentException(String.format("%s must be greater than 0 and at most 1, got %s", name, value));
+      }
+
+      return value;
+    }
+
+    private static int positive(final int value, final String name) {
+      if(value <= 0) {
+        throw new IllegalArgumentException(String.format("%s must be positive, got %d", name, value));
+      }
+
+      return value;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.cache;
+
+/**
+ * Represents a snapshot of a {@link ResultCache}'s statistics.
+ *
+ * @since 1.1.0
+ */
+public final class CacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long evictionWeight;
+  private final long weightedSize;
+
+  CacheStats(final long hitCount, final long missCount, final long evictionCount, final long evictionWeight, final long weightedSize) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.evictionWeight = evictionWeight;
+    this.weightedSize = weightedSize;
+  }
+
+  /**
+   * Gets the number of lookups that found a cached result.
+   *
+   * @return the hit count
+   * @since 1.1.0
+   */
+  public long hitCount() {
+    return this.hitCount;
+  }
+
+  /**
+   * Gets the number of lookups that did not find a cached result.
+   *
+   * @return the miss count
+   * @since 1.1.0
+   */
+  public long missCount() {
+    return this.missCount;
+  }
+
+  /**
+   * Gets the ratio of lookups that found a cached result, or 1.0 if there have been no lookups.
+   *
+   * @return the hit rate
+   * @since 1.1.0
+   */
+  public double hitRate() {
+    final long requests = this.hitCount + this.missCount;
+    return requests == 0 ? 1.0 : (double) this.hitCount / requests;
+  }
+
+  /**
+   * Gets the number of results evicted to keep the cache within its maximum weight.
+   *
+   * @return the eviction count
+   * @since 1.1.0
+   */
+  public long evictionCount() {
+    return this.evictionCount;
+  }
+
+  /**
+   * Gets the total estimated size, in bytes, of the evicted results.
+   *
+   * @return the eviction weight
+   * @since 1.1.0
+   */
+  public long evictionWeight() {
+    return this.evictionWeight;
+  }
+
+  /**
+   * Gets the total estimated size, in bytes, of the results currently cached.
+   *
+   * @return the weighted size
+   * @since 1.1.0
+   */
+  public long weightedSize() {
+    return this.weightedSize;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+            "hitCount=" + this.hitCount +
+            ", missCount=" + this.missCount +
+            ", evictionCount=" + this.evictionCount +
+            ", evictionWeight=" + this.evictionWeight +
+            ", weightedSize=" + this.weightedSize +
+            '}';
+  }
+}
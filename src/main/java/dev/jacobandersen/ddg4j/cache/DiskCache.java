@@ -0,0 +1,767 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.cache;
+
+import dev.jacobandersen.ddg4j.util.Queries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent cache of raw DuckDuckGo responses, keyed by {@linkplain Queries#normalize(String) normalized} query.
+ * <p>Responses are appended to a log of segment files in a directory through a {@link FileChannel}, and read back
+ * through memory mappings of those segments. An in-memory hash index maps each query to the location of its latest
+ * response, and is rebuilt by scanning the segments when the cache is opened, so a restarted client can serve warm
+ * responses straight from disk.</p>
+ * <p>Each record carries its write and expiry times and a checksum. Expired and superseded records are dropped
+ * from the index as they are found, and a background task periodically rewrites the live records of the older
+ * segments and deletes them once enough of their space is dead. A torn or corrupt record at the end of a segment,
+ * such as one left by a crash mid-write, is discarded when the cache is opened.</p>
+ *
+ * @since 1.1.0
+ */
+public final class DiskCache implements AutoCloseable {
+  private static final int MAGIC = 0x64646734;
+  private static final int TOMBSTONE = -1;
+  // magic, key length, write time, expiry time, body length and checksum
+  private static final int OVERHEAD = 4 + 4 + 8 + 8 + 4 + 4;
+  private static final String SUFFIX = ".segment";
+
+  private final Path directory;
+  private final long expireAfterWriteMillis;
+  private final long segmentSize;
+  private final LongSupplier clock;
+  private final ConcurrentMap<String, Entry> index = new ConcurrentHashMap<>();
+  private final List<Segment> segments = new ArrayList<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Lock compactionLock = new ReentrantLock();
+  private final FileChannel lockChannel;
+  private final FileLock directoryLock;
+  private final ScheduledExecutorService compactor;
+  private boolean closed;
+
+  private DiskCache(final Builder builder) throws IOException {
+    this.directory = builder.directory;
+    this.expireAfterWriteMillis = builder.expireAfterWrite.toMillis();
+    this.segmentSize = builder.segmentSize;
+    this.clock = builder.clock;
+
+    Files.createDirectories(this.directory);
+    this.lockChannel = FileChannel.open(this.directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock acquired;
+    try {
+      acquired = this.lockChannel.tryLock();
+    } catch(final OverlappingFileLockException ex) {
+      acquired = null;
+    }
+    if(acquired == null) {
+      this.lockChannel.close();
+      throw new IOException(String.format("Disk cache directory %s is already in use", this.directory));
+    }
+    this.directoryLock = acquired;
+
+    try {
+      this.load();
+    } catch(final IOException ex) {
+      this.closeFiles();
+      throw ex;
+    }
+
+    final long interval = builder.compactionInterval.toMillis();
+    this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "ddg4j-disk-cache-compactor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.compactor.scheduleWithFixedDelay(() -> {
+      try {
+        this.compact(false);
+      } catch(final RuntimeException ex) {
+        // a failed pass leaves the segments as they were; the next pass tries again
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates a new disk cache builder.
+   *
+   * @param directory the directory the segment files are kept in, created if it does not exist
+   * @return the disk cache builder
+   * @since 1.1.0
+   */
+  public static Builder builder(final Path directory) {
+    return new Builder(directory);
+  }
+
+  /**
+   * Gets the raw response cached for a query, if there is one that has not expired.
+   *
+   * @param query the query
+   * @return a copy of the cached response body, or null
+   * @throws UncheckedIOException if the segment holding the response cannot be read
+   * @since 1.1.0
+   */
+  public byte[] get(final String query) {
+    final String key = Queries.normalize(query);
+
+    this.lock.readLock().lock();
+    try {
+      this.ensureOpen();
+
+      final Entry entry = this.index.get(key);
+      if(entry == null) {
+        return null;
+      }
+
+      if(entry.expiresMillis <= this.clock.getAsLong()) {
+        if(this.index.remove(key, entry)) {
+          entry.segment.dead.addAndGet(entry.length);
+        }
+        return null;
+      }
+
+      final ByteBuffer view = entry.segment.view();
+      final byte[] body = new byte[entry.bodyLength];
+      view.position(entry.bodyOffset);
+      view.get(body);
+      return body;
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Caches the raw response for a query, replacing any response already cached for it.
+   *
+   * @param query the query
+   * @param body the response body
+   * @throws UncheckedIOException if the response cannot be written
+   * @since 1.1.0
+   */
+  public void put(final String query, final byte[] body) {
+    Objects.requireNonNull(body, "body");
+    final String key = Queries.normalize(query);
+    final long now = this.clock.getAsLong();
+
+    this.lock.writeLock().lock();
+    try {
+      this.ensureOpen();
+      this.replace(key, this.append(record(key, now, now + this.expireAfterWriteMillis, body)));
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the response cached for a query, if there is one.
+   *
+   * @param query the query
+   * @throws UncheckedIOException if the removal cannot be written
+   * @since 1.1.0
+   */
+  public void invalidate(final String query) {
+    final String key = Queries.normalize(query);
+
+    this.lock.writeLock().lock();
+    try {
+      this.ensureOpen();
+      if(!this.index.containsKey(key)) {
+        return;
+      }
+
+      // the tombstone keeps the removal in effect after a restart, until compaction drops the old record
+      final Entry tombstone = this.append(record(key, 0, 0, null));
+      tombstone.segment.dead.addAndGet(tombstone.length);
+      this.replace(key, null);
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of responses currently indexed, including any that have expired but not yet been dropped.
+   *
+   * @return the number of responses
+   * @since 1.1.0
+   */
+  public int size() {
+    return this.index.size();
+  }
+
+  /**
+   * Gets the total size, in bytes, of the segment files.
+   *
+   * @return the size on disk
+   * @since 1.1.0
+   */
+  public long sizeOnDisk() {
+    this.lock.readLock().lock();
+    try {
+      long size = 0;
+      for(final Segment segment : this.segments) {
+        size += segment.size;
+      }
+      return size;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Drops expired responses and rewrites the live responses of every segment but the newest, deleting the old
+   * segments. This runs in the background as needed, and only needs calling directly to reclaim space right away.
+   * Responses are read, written and invalidated as usual while the live responses are copied.
+   *
+   * @throws UncheckedIOException if a segment cannot be rewritten
+   * @since 1.1.0
+   */
+  public void compact() {
+    this.compact(true);
+  }
+
+  private void compact(final boolean force) {
+    this.compactionLock.lock();
+    try {
+      final List<Segment> sealed = new ArrayList<>();
+      final List<Copy> copies = new ArrayList<>();
+      int targetCount = 0;
+
+      // drop expired responses, and lay the live records of every segment but the newest out over new segments
+      this.lock.readLock().lock();
+      try {
+        if(this.closed) {
+          return;
+        }
+
+        final long now = this.clock.getAsLong();
+        for(final Map.Entry<String, Entry> mapping : this.index.entrySet()) {
+          final Entry entry = mapping.getValue();
+          if(entry.expiresMillis <= now && this.index.remove(mapping.getKey(), entry)) {
+            entry.segment.dead.addAndGet(entry.length);
+          }
+        }
+
+        sealed.addAll(this.segments.subList(0, this.segments.size() - 1));
+        long size = 0;
+        long dead = 0;
+        for(final Segment segment : sealed) {
+          size += segment.size;
+          dead += segment.dead.get();
+        }
+        if(sealed.isEmpty() || !force && dead * 2 < size) {
+          return;
+        }
+
+        long filled = 0;
+        for(final Map.Entry<String, Entry> mapping : this.index.entrySet()) {
+          final Entry entry = mapping.getValue();
+          if(sealed.contains(entry.segment)) {
+            if(targetCount == 0 || filled > 0 && filled + entry.length > this.segmentSize) {
+              targetCount++;
+              filled = 0;
+            }
+            copies.add(new Copy(mapping.getKey(), entry, targetCount - 1));
+            filled += entry.length;
+          }
+        }
+      } finally {
+        this.lock.readLock().unlock();
+      }
+
+      // the copies go in segments numbered after every record they could have been superseded by, and before
+      // every record written from now on, so they load in the right order if the cache is reopened
+      final List<Segment> targets = new ArrayList<>(targetCount);
+      final Segment newest;
+      this.lock.writeLock().lock();
+      try {
+        if(this.closed) {
+          return;
+        }
+
+        newest = this.segments.get(this.segments.size() - 1);
+        for(int i = 0; i < targetCount; i++) {
+          targets.add(this.openSegment(newest.id + 1 + i));
+        }
+        if(targetCount > 0) {
+          newest.channel.force(false);
+          this.segments.add(this.openSegment(newest.id + 1 + targetCount));
+        }
+      } catch(final IOException ex) {
+        discard(targets);
+        throw ex;
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+
+      // copy without holding the lock, so that searches carry on meanwhile; responses replaced, invalidated or
+      // expired since are skipped, and anything that changes from here on is caught by the swap below
+      try {
+        for(final Copy copy : copies) {
+          if(this.index.get(copy.key) == copy.from) {
+            final ByteBuffer record = copy.from.segment.view();
+            record.limit(Math.toIntExact(copy.from.offset + copy.from.length));
+            record.position(Math.toIntExact(copy.from.offset));
+            copy.to = write(targets.get(copy.target), record.slice());
+          }
+        }
+        for(final Segment target : targets) {
+          target.channel.force(false);
+        }
+      } catch(final IOException ex) {
+        discard(targets);
+        throw ex;
+      }
+
+      this.lock.writeLock().lock();
+      try {
+        if(this.closed) {
+          discard(targets);
+          return;
+        }
+
+        for(final Copy copy : copies) {
+          if(copy.to != null && !this.index.replace(copy.key, copy.from, copy.to)) {
+            copy.to.segment.dead.addAndGet(copy.to.length);
+          }
+        }
+
+        int position = this.segments.indexOf(newest) + 1;
+        for(final Segment target : targets) {
+          if(target.size > 0) {
+            this.segments.add(position++, target);
+          } else {
+            discard(Collections.singletonList(target));
+          }
+        }
+
+        for(final Segment segment : sealed) {
+          this.segments.remove(segment);
+          segment.channel.close();
+          Files.deleteIfExists(segment.path);
+        }
+      } finally {
+        this.lock.writeLock().unlock();
+      }
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      this.compactionLock.unlock();
+    }
+  }
+
+  /*
+   * Closes and deletes segments that never made it into the log.
+   */
+  private static void discard(final List<Segment> segments) {
+    for(final Segment segment : segments) {
+      try {
+        segment.channel.close();
+        Files.deleteIfExists(segment.path);
+      } catch(final IOException ex) {
+        // an orphaned segment only holds copies of records still in the log, and is compacted away when reopened
+      }
+    }
+  }
+
+  private void replace(final String key, final Entry entry) {
+    final Entry previous = entry != null ? this.index.put(key, entry) : this.index.remove(key);
+    if(previous != null) {
+      previous.segment.dead.addAndGet(previous.length);
+    }
+  }
+
+  private static ByteBuffer record(final String key, final long writeMillis, final long expiresMillis, final byte[] body) {
+    final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    final int bodyLength = body != null ? body.length : 0;
+    final ByteBuffer record = ByteBuffer.allocate(OVERHEAD + keyBytes.length + bodyLength);
+
+    record.putInt(MAGIC)
+            .putInt(keyBytes.length)
+            .put(keyBytes)
+            .putLong(writeMillis)
+            .putLong(expiresMillis)
+            .putInt(body != null ? body.length : TOMBSTONE);
+    if(body != null) {
+      record.put(body);
+    }
+
+    final CRC32 crc = new CRC32();
+    crc.update(record.array(), 4, record.position() - 4);
+    record.putInt((int) crc.getValue());
+    record.flip();
+    return record;
+  }
+
+  /*
+   * Appends a complete record to the newest segment, starting a new segment once it is full.
+   */
+  private Entry append(final ByteBuffer record) throws IOException {
+    Segment active = this.segments.get(this.segments.size() - 1);
+    if(active.size > 0 && active.size + record.remaining() > this.segmentSize) {
+      active.channel.force(false);
+      active = this.openSegment(active.id + 1);
+      this.segments.add(active);
+    }
+
+    return write(active, record);
+  }
+
+  /*
+   * Writes a complete record to the end of a segment.
+   */
+  private static Entry write(final Segment segment, final ByteBuffer record) throws IOException {
+    final long offset = segment.size;
+    final Entry entry = entry(segment, offset, record, record.position());
+
+    long position = offset;
+    while(record.hasRemaining()) {
+      position += segment.channel.write(record, position);
+    }
+    segment.size = position;
+
+    return entry;
+  }
+
+  /*
+   * Describes the record starting at the given position of a buffer, which is at the given offset of a segment.
+   */
+  private static Entry entry(final Segment segment, final long offset, final ByteBuffer buffer, final int position) {
+    final int keyLength = buffer.getInt(position + 4);
+    final long expiresMillis = buffer.getLong(position + 8 + keyLength + 8);
+    final int bodyLength = Math.max(buffer.getInt(position + 8 + keyLength + 16), 0);
+    final int bodyOffset = Math.toIntExact(offset + 8 + keyLength + 20);
+
+    return new Entry(segment, offset, OVERHEAD + keyLength + bodyLength, bodyOffset, bodyLength, expiresMillis);
+  }
+
+  private void load() throws IOException {
+    final List<Long> ids = new ArrayList<>();
+    try(DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+      for(final Path file : files) {
+        final String name = file.getFileName().toString();
+        try {
+          ids.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())));
+        } catch(final NumberFormatException ex) {
+          // not one of ours
+        }
+      }
+    }
+    ids.sort(null);
+
+    for(final long id : ids) {
+      final Segment segment = this.openSegment(id);
+      this.segments.add(segment);
+      this.scan(segment);
+    }
+
+    if(this.segments.isEmpty()) {
+      this.segments.add(this.openSegment(0));
+    }
+  }
+
+  /*
+   * Indexes every intact record in a segment, in order, truncating the segment at the first one that is not.
+   */
+  private void scan(final Segment segment) throws IOException {
+    final ByteBuffer view = segment.view();
+    final long now = this.clock.getAsLong();
+    final int limit = view.limit();
+    final CRC32 crc = new CRC32();
+
+    int position = 0;
+    while(limit - position >= OVERHEAD) {
+      if(view.getInt(position) != MAGIC) {
+        break;
+      }
+
+      final int keyLength = view.getInt(position + 4);
+      if(keyLength < 0 || keyLength > limit - position - OVERHEAD) {
+        break;
+      }
+
+      final int bodyLength = view.getInt(position + 8 + keyLength + 16);
+      if(bodyLength < TOMBSTONE || bodyLength > limit - position - OVERHEAD - keyLength) {
+        break;
+      }
+
+      final int length = OVERHEAD + keyLength + Math.max(bodyLength, 0);
+      final ByteBuffer checked = view.duplicate();
+      checked.limit(position + length - 4);
+      checked.position(position + 4);
+      crc.reset();
+      crc.update(checked);
+      if((int) crc.getValue() != view.getInt(position + length - 4)) {
+        break;
+      }
+
+      final byte[] keyBytes = new byte[keyLength];
+      final ByteBuffer keyView = view.duplicate();
+      keyView.position(position + 8);
+      keyView.get(keyBytes);
+      final String key = new String(keyBytes, StandardCharsets.UTF_8);
+      final Entry entry = entry(segment, position, view, position);
+      if(bodyLength == TOMBSTONE || entry.expiresMillis <= now) {
+        segment.dead.addAndGet(length);
+        this.replace(key, null);
+      } else {
+        this.replace(key, entry);
+      }
+
+      position += length;
+    }
+
+    if(position < segment.size) {
+      segment.channel.truncate(position);
+      segment.size = position;
+      segment.mapped = null;
+    }
+  }
+
+  private Segment openSegment(final long id) throws IOException {
+    final Path path = this.directory.resolve(String.format("%016d%s", id, SUFFIX));
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    return new Segment(id, path, channel);
+  }
+
+  private void ensureOpen() {
+    if(this.closed) {
+      throw new IllegalStateException("The disk cache is closed");
+    }
+  }
+
+  private void closeFiles() throws IOException {
+    for(final Segment segment : this.segments) {
+      segment.channel.close();
+    }
+    this.directoryLock.release();
+    this.lockChannel.close();
+  }
+
+  /**
+   * Stops background compaction, flushes the segments to disk and closes them.
+   *
+   * @throws UncheckedIOException if the segments cannot be flushed or closed
+   * @since 1.1.0
+   */
+  @Override
+  public void close() {
+    this.compactor.shutdownNow();
+
+    this.lock.writeLock().lock();
+    try {
+      if(this.closed) {
+        return;
+      }
+      this.closed = true;
+
+      for(final Segment segment : this.segments) {
+        segment.channel.force(false);
+      }
+      this.closeFiles();
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  private static final class Segment {
+    private final long id;
+    private final Path path;
+    private final FileChannel channel;
+    private final AtomicLong dead = new AtomicLong();
+    private volatile long size;
+    private MappedByteBuffer mapped;
+
+    private Segment(final long id, final Path path, final FileChannel channel) throws IOException {
+      this.id = id;
+      this.path = path;
+      this.channel = channel;
+      this.size = channel.size();
+    }
+
+    /*
+     * Returns a view of everything written to the segment so far, remapping it if it has grown since it was last
+     * mapped.
+     */
+    private synchronized ByteBuffer view() throws IOException {
+      if(this.mapped == null || this.mapped.capacity() < this.size) {
+        this.mapped = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.size);
+      }
+
+      return this.mapped.duplicate();
+    }
+  }
+
+  /*
+   * A live record to be copied out of a segment being compacted, into one of the segments replacing it.
+   */
+  private static final class Copy {
+    private final String key;
+    private final Entry from;
+    private final int target;
+    private Entry to;
+
+    private Copy(final String key, final Entry from, final int target) {
+      this.key = key;
+      this.from = from;
+      this.target = target;
+    }
+  }
+
+  private static final class Entry {
+    private final Segment segment;
+    private final long offset;
+    private final int length;
+    private final int bodyOffset;
+    private final int bodyLength;
+    private final long expiresMillis;
+
+    private Entry(final Segment segment, final long offset, final int length, final int bodyOffset, final int bodyLength, final long expiresMillis) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.bodyOffset = bodyOffset;
+      this.bodyLength = bodyLength;
+      this.expiresMillis = expiresMillis;
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link DiskCache}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private final Path directory;
+    private Duration expireAfterWrite = Duration.ofHours(1);
+    private long segmentSize = 64L * 1024 * 1024;
+    private Duration compactionInterval = Duration.ofMinutes(1);
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private Builder(final Path directory) {
+      this.directory = Objects.requireNonNull(directory, "directory");
+    }
+
+    /**
+     * Sets how long a response stays cached after it was written. Defaults to 1 hour.
+     *
+     * @param expireAfterWrite the time to live
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder expireAfterWrite(final Duration expireAfterWrite) {
+      if(expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+        throw new IllegalArgumentException(String.format("expireAfterWrite must be positive, got %s", expireAfterWrite));
+      }
+
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * Sets the size, in bytes, at which a segment is sealed and a new one started. Defaults to 64 MiB, and may
+     * be at most 1 GiB.
+     *
+     * @param segmentSize the segment size
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder segmentSize(final long segmentSize) {
+      if(segmentSize <= 0 || segmentSize > 1L << 30) {
+        throw new IllegalArgumentException(String.format("segmentSize must be between 1 and 1 GiB, got %d", segmentSize));
+      }
+
+      this.segmentSize = segmentSize;
+      return this;
+    }
+
+    /**
+     * Sets how often the background task checks whether the older segments are worth compacting. Defaults to
+     * 1 minute.
+     *
+     * @param compactionInterval the compaction interval
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder compactionInterval(final Duration compactionInterval) {
+      if(compactionInterval.isNegative() || compactionInterval.isZero()) {
+        throw new IllegalArgumentException(String.format("compactionInterval must be positive, got %s", compactionInterval));
+      }
+
+      this.compactionInterval = compactionInterval;
+      return this;
+    }
+
+    Builder clock(final LongSupplier clock) {
+      this.clock = clock;
+      return this;
+    }
+
+    /**
+     * Opens the {@link DiskCache}, indexing any responses already in its directory.
+     *
+     * @return the disk cache
+     * @throws IOException if the directory cannot be opened or read, or is in use by another disk cache
+     * @since 1.1.0
+     */
+    public DiskCache build() throws IOException {
+      return new DiskCache(this);
+    }
+  }
+}
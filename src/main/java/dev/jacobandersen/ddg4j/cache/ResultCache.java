@@ -0,0 +1,376 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.util.Queries;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, in-memory cache of {@link SearchResult}s keyed by {@linkplain Queries#normalize(String) normalized}
+ * query.
+ * <p>Admission and eviction are frequency-based (W-TinyLFU), so a burst of one-off queries does not flush out the
+ * popular ones. The cache is bounded by the {@linkplain SearchResult#estimatedSize() estimated size} of its results
+ * rather than their count, and results expire a fixed time after they were written. Expired results can be kept a
+ * while longer, to be served {@linkplain #getStale(String) stale} when DuckDuckGo cannot be reached, and popular
+ * results can be {@linkplain #get(String, Predicate) refreshed ahead} of expiring.</p>
+ *
+ * @since 1.1.0
+ */
+public final class ResultCache {
+  private final Cache<String, Entry> cache;
+  private final long maximumWeight;
+  private final Duration expireAfterWrite;
+  private final Duration staleFor;
+  private final long expireNanos;
+  private final double refreshAhead;
+  private final long refreshNanos;
+  private final int refreshMinReads;
+  private final LongSupplier ticker;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  private ResultCache(final Builder builder) {
+    this.maximumWeight = builder.maximumWeight;
+    this.expireAfterWrite = builder.expireAfterWrite;
+    this.staleFor = builder.staleFor;
+    this.expireNanos = builder.expireAfterWrite.toNanos();
+    this.refreshAhead = builder.refreshAhead;
+    this.refreshNanos = (long) (this.expireNanos * builder.refreshAhead);
+    this.refreshMinReads = builder.refreshMinReads;
+    this.ticker = builder.ticker;
+    // expired results are only dropped once they are too stale to serve; get() checks freshness itself
+    this.cache = Caffeine.newBuilder()
+            .maximumWeight(builder.maximumWeight)
+            .weigher((final String key, final Entry entry) -> weigh(key, entry.result))
+            .expireAfterWrite(builder.expireAfterWrite.plus(builder.staleFor).toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(builder.ticker::getAsLong)
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Creates a new cache builder.
+   *
+   * @return the cache builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  private static int weigh(final String key, final SearchResult result) {
+    return (int) Math.min(Integer.MAX_VALUE, 64 + 2L * key.length() + result.estimatedSize());
+  }
+
+  /**
+   * Gets the cached result for a query, if there is one that has not expired.
+   *
+   * @param query the query
+   * @return the cached result, or null
+   * @since 1.1.0
+   */
+  public SearchResult get(final String query) {
+    return this.get(query, null);
+  }
+
+  /**
+   * Gets the cached result for a query, if there is one that has not expired, and starts refreshing it if it is due.
+   * <p>A result is due to be refreshed once it has been read often enough and has passed the configured fraction of
+   * its time to live; see {@link Builder#refreshAhead(double)}. Only one refresh is started for each result, and it
+   * is served until the refresh {@linkplain #put(String, SearchResult) puts} its replacement. A refresh that fails
+   * is not retried, and the result expires as usual.</p>
+   *
+   * @param query the query
+   * @param refresher starts refreshing the query in the background, returning false if it could not, or null to
+   *     never refresh
+   * @return the cached result, or null
+   * @since 1.1.0
+   */
+  public SearchResult get(final String query, final Predicate<String> refresher) {
+    final Entry entry = this.cache.getIfPresent(Queries.normalize(query));
+    final long age = entry != null ? this.ticker.getAsLong() - entry.written : 0;
+    if(entry == null || age >= this.expireNanos) {
+      this.misses.increment();
+      return null;
+    }
+
+    this.hits.increment();
+    // an approximate count is all refreshing needs, and cheaper than contending on the hottest entries
+    final int reads = ++entry.reads;
+    if(refresher != null && this.refreshNanos > 0 && age >= this.refreshNanos && reads >= this.refreshMinReads && entry.claim()) {
+      if(!refresher.test(query)) {
+        entry.release();
+      }
+    }
+    return entry.result;
+  }
+
+  /**
+   * Gets the cached result for a query even if it has expired, as long as it is still kept to be served stale.
+   * See {@link Builder#staleFor(Duration)}. Not counted in the {@linkplain #stats() statistics}.
+   *
+   * @param query the query
+   * @return the cached result, or null
+   * @since 1.1.0
+   */
+  public SearchResult getStale(final String query) {
+    final Entry entry = this.cache.getIfPresent(Queries.normalize(query));
+    return entry != null ? entry.result : null;
+  }
+
+  /**
+   * Caches the result for a query, replacing any result already cached for it. The result is
+   * {@linkplain SearchResult#freeze() frozen} first, so that it can be shared by everyone it is served to.
+   *
+   * @param query the query
+   * @param result the result
+   * @since 1.1.0
+   */
+  public void put(final String query, final SearchResult result) {
+    this.cache.put(Queries.normalize(query), new Entry(Objects.requireNonNull(result, "result").freeze(), this.ticker.getAsLong()));
+  }
+
+  /**
+   * Removes the cached result for a query, if there is one.
+   *
+   * @param query the query
+   * @since 1.1.0
+   */
+  public void invalidate(final String query) {
+    this.cache.invalidate(Queries.normalize(query));
+  }
+
+  /**
+   * Removes every cached result.
+   *
+   * @since 1.1.0
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Gets the maximum total estimated size, in bytes, of the cached results.
+   *
+   * @return the maximum weight
+   * @since 1.1.0
+   */
+  public long maximumWeight() {
+    return this.maximumWeight;
+  }
+
+  /**
+   * Gets how long a result stays cached after it was written.
+   *
+   * @return the time to live
+   * @since 1.1.0
+   */
+  public Duration expireAfterWrite() {
+    return this.expireAfterWrite;
+  }
+
+  /**
+   * Gets the fraction of the time to live after which popular results are refreshed.
+   *
+   * @return the fraction, or 0 if results are never refreshed ahead of expiring
+   * @since 1.1.0
+   */
+  public double refreshAhead() {
+    return this.refreshAhead;
+  }
+
+  /**
+   * Gets how long an expired result is kept to be served stale.
+   *
+   * @return the staleness period
+   * @since 1.1.0
+   */
+  public Duration staleFor() {
+    return this.staleFor;
+  }
+
+  /**
+   * Gets a snapshot of this cache's hit, miss and eviction statistics.
+   *
+   * @return the statistics
+   * @since 1.1.0
+   */
+  public CacheStats stats() {
+    final com.github.benmanes.caffeine.cache.stats.CacheStats stats = this.cache.stats();
+    final long weightedSize = this.cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0))
+            .orElse(0L);
+
+    return new CacheStats(this.hits.sum(), this.misses.sum(), stats.evictionCount(), stats.evictionWeight(), weightedSize);
+  }
+
+  private static final class Entry {
+    private static final AtomicIntegerFieldUpdater<Entry> REFRESHING = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "refreshing");
+
+    private final SearchResult result;
+    private final long written;
+    private volatile int reads;
+    private volatile int refreshing;
+
+    private Entry(final SearchResult result, final long written) {
+      this.result = result;
+      this.written = written;
+    }
+
+    private boolean claim() {
+      return this.refreshing == 0 && REFRESHING.compareAndSet(this, 0, 1);
+    }
+
+    private void release() {
+      this.refreshing = 0;
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link ResultCache}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private long maximumWeight = 64L * 1024 * 1024;
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+    private Duration staleFor = Duration.ZERO;
+    private double refreshAhead = 0;
+    private int refreshMinReads = 2;
+    private LongSupplier ticker = System::nanoTime;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the maximum total estimated size, in bytes, of the cached results. Defaults to 64 MiB.
+     *
+     * @param maximumWeight the maximum weight
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maximumWeight(final long maximumWeight) {
+      if(maximumWeight < 0) {
+        throw new IllegalArgumentException(String.format("maximumWeight must not be negative, got %d", maximumWeight));
+      }
+
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    /**
+     * Sets how long a result stays cached after it was written. Defaults to 5 minutes.
+     *
+     * @param expireAfterWrite the time to live
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder expireAfterWrite(final Duration expireAfterWrite) {
+      if(expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+        throw new IllegalArgumentException(String.format("expireAfterWrite must be positive, got %s", expireAfterWrite));
+      }
+
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * Sets how long a result is kept after it expires, to be served stale when DuckDuckGo cannot be reached.
+     * Defaults to zero, dropping results as soon as they expire.
+     *
+     * @param staleFor the staleness period
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder staleFor(final Duration staleFor) {
+      if(staleFor.isNegative()) {
+        throw new IllegalArgumentException(String.format("staleFor must not be negative, got %s", staleFor));
+      }
+
+      this.staleFor = staleFor;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of the time to live after which a popular result is refreshed in the background, so that
+     * readers keep being served from the cache rather than waiting on DuckDuckGo once it expires. Defaults to 0,
+     * never refreshing ahead of expiring.
+     *
+     * @param refreshAhead the fraction, 0 or greater than 0 and less than 1
+     * @return this builder
+     * @see ResultCache#get(String, Predicate)
+     * @since 1.1.0
+     */
+    public Builder refreshAhead(final double refreshAhead) {
+      if(!(refreshAhead >= 0 && refreshAhead < 1)) {
+        throw new IllegalArgumentException(String.format("refreshAhead must be at least 0 and less than 1, got %s", refreshAhead));
+      }
+
+      this.refreshAhead = refreshAhead;
+      return this;
+    }
+
+    /**
+     * Sets how many times a result must have been read since it was written to be refreshed ahead of expiring.
+     * Defaults to 2.
+     *
+     * @param refreshMinReads the number of reads
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder refreshMinReads(final int refreshMinReads) {
+      if(refreshMinReads <= 0) {
+        throw new IllegalArgumentException(String.format("refreshMinReads must be positive, got %d", refreshMinReads));
+      }
+
+      this.refreshMinReads = refreshMinReads;
+      return this;
+    }
+
+    Builder ticker(final LongSupplier ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link ResultCache} from this builder's configuration.
+     *
+     * @return the cache
+     * @since 1.1.0
+     */
+    public ResultCache build() {
+      return new ResultCache(this);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.hedge;
+
+import dev.jacobandersen.ddg4j.metrics.Histogram;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a slow request is worth hedging with a duplicate, and how many duplicates may be sent.
+ * <p>The policy keeps a histogram of how long recent requests took. Once enough have completed, a request that has
+ * not been answered within the configured percentile of that latency is duplicated, and whichever answers first is
+ * used. Every request earns the policy a fraction of a hedge, and every hedge spends a whole one, so hedging can
+ * never add more than that fraction to the load on DuckDuckGo, even while it is slow across the board.</p>
+ * <p>A policy keeps state, so each client needs its own.</p>
+ *
+ * @since 1.1.0
+ */
+public final class HedgePolicy {
+  private static final int MIN_SAMPLES = 100;
+  private static final int RECOMPUTE_EVERY = 64;
+  private static final long TOKEN = 1000;
+
+  private final double percentile;
+  private final long minDelayNanos;
+  private final long windowNanos;
+  private final long deposit;
+  private final long maxBalance;
+  private final AtomicLong balance = new AtomicLong();
+  private volatile Histogram window = new Histogram();
+  private volatile long windowStart = System.nanoTime();
+  private volatile long delayNanos = -1;
+
+  private HedgePolicy(final Builder builder) {
+    this.percentile = builder.percentile;
+    this.minDelayNanos = builder.minDelay.toNanos();
+    this.windowNanos = builder.window.toNanos();
+    this.deposit = Math.round(builder.budget * TOKEN);
+    this.maxBalance = builder.maxBurst * TOKEN;
+  }
+
+  /**
+   * Creates a new policy builder.
+   *
+   * @return the policy builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets how long a request may go unanswered before it is hedged.
+   *
+   * @return the delay in nanoseconds, or -1 if too few requests have completed to tell
+   * @since 1.1.0
+   */
+  public long delayNanos() {
+    return this.delayNanos;
+  }
+
+  /**
+   * Records how long a request took to be answered.
+   *
+   * @param nanos the latency, in nanoseconds
+   * @since 1.1.0
+   */
+  public void record(final long nanos) {
+    final long now = System.nanoTime();
+    if(now - this.windowStart >= this.windowNanos) {
+      this.rotate(now);
+    }
+
+    final Histogram window = this.window;
+    window.record(nanos);
+    final long count = window.count();
+    if(count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+      // the delay is kept across windows until the next one has enough samples to replace it
+      this.delayNanos = Math.max(this.minDelayNanos, window.snapshot().valueAtPercentile(this.percentile));
+    }
+  }
+
+  private synchronized void rotate(final long now) {
+    if(now - this.windowStart >= this.windowNanos) {
+      this.window = new Histogram();
+      this.windowStart = now;
+    }
+  }
+
+  /**
+   * Earns the budget its share of a hedge for a request that was sent.
+   *
+   * @since 1.1.0
+   */
+  public void onRequest() {
+    long current;
+    do {
+      current = this.balance.get();
+      if(current >= this.maxBalance) {
+        return;
+      }
+    } while(!this.balance.compareAndSet(current, Math.min(this.maxBalance, current + this.deposit)));
+  }
+
+  /**
+   * Spends a hedge from the budget, if one has been earned.
+   *
+   * @return true if a hedge may be sent, or false if the budget is spent
+   * @since 1.1.0
+   */
+  public boolean tryAcquire() {
+    long current;
+    do {
+      current = this.balance.get();
+      if(current < TOKEN) {
+        return false;
+      }
+    } while(!this.balance.compareAndSet(current, current - TOKEN));
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "HedgePolicy{" +
+            "percentile=" + this.percentile +
+            ", delayNanos=" + this.delayNanos +
+            ", balance=" + (double) this.balance.get() / TOKEN +
+            '}';
+  }
+
+  /**
+   * Provides utilities for building {@link HedgePolicy}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private double percentile = 95;
+    private Duration minDelay = Duration.ofMillis(10);
+    private Duration window = Duration.ofSeconds(30);
+    private double budget = 0.05;
+    private int maxBurst = 10;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the percentile of recent latency a request must exceed before it is hedged. Defaults to 95.
+     *
+     * @param percentile the percentile, greater than 0 and less than 100
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder percentile(final double percentile) {
+      if(!(percentile > 0 && percentile < 100)) {
+        throw new IllegalArgumentException(String.format("percentile must be greater than 0 and less than 100, got %s", percentile));
+      }
+
+      this.percentile = percentile;
+      return this;
+    }
+
+    /**
+     * Sets the shortest time a request may go unanswered before it is hedged, however fast recent requests were.
+     * Defaults to 10 milliseconds.
+     *
+     * @param minDelay the minimum delay
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder minDelay(final Duration minDelay) {
+      this.minDelay = Objects.requireNonNull(minDelay, "minDelay");
+      return this;
+    }
+
+    /**
+     * Sets how long latency is measured over before measuring starts afresh. Defaults to 30 seconds.
+     *
+     * @param window the measurement window
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder window(final Duration window) {
+      this.window = Objects.requireNonNull(window, "window");
+      return this;
+    }
+
+    /**
+     * Sets the most hedging may add to the number of requests sent, as a fraction of them. Defaults to 0.05, that
+     * is at most one hedge for every twenty requests.
+     *
+     * @param budget the budget, greater than 0 and at most 1
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder budget(final double budget) {
+      if(!(budget > 0 && budget <= 1)) {
+        throw new IllegalArgumentException(String.format("budget must be greater than 0 and at most 1, got %s", budget));
+      }
+
+      this.budget = budget;
+      return this;
+    }
+
+    /**
+     * Sets how many unspent hedges the budget may save up for a burst of slow requests. Defaults to 10.
+     *
+     * @param maxBurst the most hedges that may be saved up
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxBurst(final int maxBurst) {
+      if(maxBurst <= 0) {
+        throw new IllegalArgumentException(String.format("maxBurst must be positive, got %d", maxBurst));
+      }
+
+      this.maxBurst = maxBurst;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link HedgePolicy} from this builder's configuration.
+     *
+     * @return the policy
+     * @since 1.1.0
+     */
+    public HedgePolicy build() {
+      if(this.window.isNegative() || this.window.isZero()) {
+        throw new IllegalArgumentException(String.format("window must be positive, got %s", this.window));
+      }
+
+      return new HedgePolicy(this);
+    }
+  }
+}
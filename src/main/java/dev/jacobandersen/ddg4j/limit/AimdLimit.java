@@ -0,0 +1,175 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.limit;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * A limit that grows additively and shrinks multiplicatively, as TCP's congestion window does.
+ * <p>Every request that completes in time while the limit is being used grows it by one. Every request that is
+ * dropped, or takes longer than the timeout, shrinks it by the backoff ratio. It finds the upstream's capacity
+ * quickly and reacts sharply to throttling, at the cost of oscillating around it.</p>
+ *
+ * @since 1.1.0
+ */
+public final class AimdLimit implements ConcurrencyLimit {
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long timeoutNanos;
+  private volatile int limit;
+
+  private AimdLimit(final Builder builder) {
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.backoffRatio = builder.backoffRatio;
+    this.timeoutNanos = builder.timeout.toNanos();
+    this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, builder.initialLimit));
+  }
+
+  /**
+   * Creates a new limit builder.
+   *
+   * @return the limit builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public int limit() {
+    return this.limit;
+  }
+
+  @Override
+  public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+    final int current = this.limit;
+    if(dropped || rttNanos > this.timeoutNanos) {
+      this.limit = Math.max(this.minLimit, Math.min(current - 1, (int) (current * this.backoffRatio)));
+    } else if(inFlight * 2 >= current) {
+      // only grow while the limit is actually being used, or it would climb without bound when idle
+      this.limit = Math.min(this.maxLimit, current + 1);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "AimdLimit{" +
+            "limit=" + this.limit +
+            '}';
+  }
+
+  /**
+   * Provides utilities for building {@link AimdLimit}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private double backoffRatio = 0.9;
+    private Duration timeout = Duration.ofSeconds(5);
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the limit to start from. Defaults to 20.
+     *
+     * @param initialLimit the initial limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder initialLimit(final int initialLimit) {
+      this.initialLimit = Limits.positive(initialLimit, "initialLimit");
+      return this;
+    }
+
+    /**
+     * Sets the lowest the limit may shrink to. Defaults to 1.
+     *
+     * @param minLimit the minimum limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder minLimit(final int minLimit) {
+      this.minLimit = Limits.positive(minLimit, "minLimit");
+      return this;
+    }
+
+    /**
+     * Sets the highest the limit may grow to. Defaults to 200.
+     *
+     * @param maxLimit the maximum limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxLimit(final int maxLimit) {
+      this.maxLimit = Limits.positive(maxLimit, "maxLimit");
+      return this;
+    }
+
+    /**
+     * Sets the ratio the limit is multiplied by when a request is dropped. Defaults to 0.9.
+     *
+     * @param backoffRatio the backoff ratio, between 0.5 and 1 exclusive
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder backoffRatio(final double backoffRatio) {
+      if(!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+        throw new IllegalArgumentException(String.format("backoffRatio must be at least 0.5 and less than 1, got %s", backoffRatio));
+      }
+
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /**
+     * Sets how long a request may take before it is treated as dropped. Defaults to 5 seconds.
+     *
+     * @param timeout the timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder timeout(final Duration timeout) {
+      this.timeout = Objects.requireNonNull(timeout, "timeout");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link AimdLimit} from this builder's configuration.
+     *
+     * @return the limit
+     * @since 1.1.0
+     */
+    public AimdLimit build() {
+      Limits.checkRange(this.minLimit, this.maxLimit);
+      return new AimdLimit(this);
+    }
+  }
+}
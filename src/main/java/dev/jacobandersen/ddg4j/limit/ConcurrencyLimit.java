@@ -0,0 +1,54 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.limit;
+
+/**
+ * Decides how many requests may be in flight at once, adjusting the limit as requests complete.
+ * <p>Implementations are told about every completed request, and must be thread safe.</p>
+ *
+ * @see AimdLimit
+ * @see GradientLimit
+ * @see FixedLimit
+ * @since 1.1.0
+ */
+public interface ConcurrencyLimit {
+  /**
+   * Gets the number of requests that may currently be in flight.
+   *
+   * @return the limit, at least 1
+   * @since 1.1.0
+   */
+  int limit();
+
+  /**
+   * Updates the limit from a completed request.
+   *
+   * @param rttNanos how long the request took, in nanoseconds
+   * @param inFlight how many requests were in flight when it was sent, including itself
+   * @param dropped whether the request failed in a way that suggests the upstream is overloaded, such as a 429
+   *     response or a timeout
+   * @since 1.1.0
+   */
+  void onSample(long rttNanos, int inFlight, boolean dropped);
+}
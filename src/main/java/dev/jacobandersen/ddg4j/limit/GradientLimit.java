@@ -0,0 +1,240 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.limit;
+
+/**
+ * A limit that follows the gradient of request latency, in the style of TCP Vegas.
+ * <p>A slow moving average of latency serves as the baseline the upstream can sustain, and a fast moving one as its
+ * latency now. While latency stays within the tolerated ratio of the baseline, the limit grows by a queue allowance
+ * of the square root of the limit. Once latency rises past it, the limit is scaled down in proportion, by at most
+ * half at a time. Dropped requests shrink the limit by the backoff ratio. Changes are smoothed, so the limit backs
+ * off as queues start to build rather than once requests start failing, and oscillates far less than
+ * {@link AimdLimit}.</p>
+ *
+ * @since 1.1.0
+ */
+public final class GradientLimit implements ConcurrencyLimit {
+  private static final int SHORT_WINDOW = 10;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final double rttTolerance;
+  private final double backoffRatio;
+  private final double longAlpha;
+  private final double shortAlpha = 2.0 / (SHORT_WINDOW + 1);
+  private double estimatedLimit;
+  private double longRtt;
+  private double shortRtt;
+  private volatile int limit;
+
+  private GradientLimit(final Builder builder) {
+    this.minLimit = builder.minLimit;
+    this.maxLimit = builder.maxLimit;
+    this.smoothing = builder.smoothing;
+    this.rttTolerance = builder.rttTolerance;
+    this.backoffRatio = builder.backoffRatio;
+    this.longAlpha = 2.0 / (builder.longWindow + 1);
+    this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, builder.initialLimit));
+    this.limit = (int) this.estimatedLimit;
+  }
+
+  /**
+   * Creates a new limit builder.
+   *
+   * @return the limit builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public int limit() {
+    return this.limit;
+  }
+
+  @Override
+  public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+    if(dropped) {
+      this.update(this.estimatedLimit * this.backoffRatio);
+      return;
+    }
+
+    final double rtt = Math.max(1, rttNanos);
+    this.shortRtt = this.shortRtt == 0 ? rtt : this.shortRtt + this.shortAlpha * (rtt - this.shortRtt);
+    this.longRtt = this.longRtt == 0 ? rtt : this.longRtt + this.longAlpha * (rtt - this.longRtt);
+
+    // after a sustained slowdown the baseline is left far above current latency; let it catch back up
+    if(this.longRtt / this.shortRtt > 2) {
+      this.longRtt *= 0.95;
+    }
+
+    // an idle client says nothing about what the upstream can take
+    if(inFlight < this.estimatedLimit / 2) {
+      return;
+    }
+
+    final double gradient = Math.max(0.5, Math.min(1.0, this.rttTolerance * this.longRtt / this.shortRtt));
+    final double target = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+    this.update(this.estimatedLimit * (1 - this.smoothing) + target * this.smoothing);
+  }
+
+  private void update(final double estimatedLimit) {
+    this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, estimatedLimit));
+    this.limit = (int) this.estimatedLimit;
+  }
+
+  @Override
+  public String toString() {
+    return "GradientLimit{" +
+            "limit=" + this.limit +
+            '}';
+  }
+
+  /**
+   * Provides utilities for building {@link GradientLimit}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 200;
+    private double smoothing = 0.2;
+    private double rttTolerance = 1.5;
+    private double backoffRatio = 0.9;
+    private int longWindow = 600;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the limit to start from. Defaults to 20.
+     *
+     * @param initialLimit the initial limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder initialLimit(final int initialLimit) {
+      this.initialLimit = Limits.positive(initialLimit, "initialLimit");
+      return this;
+    }
+
+    /**
+     * Sets the lowest the limit may shrink to. Defaults to 1.
+     *
+     * @param minLimit the minimum limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder minLimit(final int minLimit) {
+      this.minLimit = Limits.positive(minLimit, "minLimit");
+      return this;
+    }
+
+    /**
+     * Sets the highest the limit may grow to. Defaults to 200.
+     *
+     * @param maxLimit the maximum limit
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxLimit(final int maxLimit) {
+      this.maxLimit = Limits.positive(maxLimit, "maxLimit");
+      return this;
+    }
+
+    /**
+     * Sets how much of each adjustment is applied at once. Defaults to 0.2.
+     *
+     * @param smoothing the smoothing factor, greater than 0 and at most 1
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder smoothing(final double smoothing) {
+      if(!(smoothing > 0 && smoothing <= 1)) {
+        throw new IllegalArgumentException(String.format("smoothing must be greater than 0 and at most 1, got %s", smoothing));
+      }
+
+      this.smoothing = smoothing;
+      return this;
+    }
+
+    /**
+     * Sets how far latency may rise above its baseline before the limit is cut. Defaults to 1.5, that is 50% above.
+     *
+     * @param rttTolerance the tolerated ratio of current to baseline latency, at least 1
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder rttTolerance(final double rttTolerance) {
+      if(!(rttTolerance >= 1)) {
+        throw new IllegalArgumentException(String.format("rttTolerance must be at least 1, got %s", rttTolerance));
+      }
+
+      this.rttTolerance = rttTolerance;
+      return this;
+    }
+
+    /**
+     * Sets the ratio the limit is multiplied by when a request is dropped. Defaults to 0.9.
+     *
+     * @param backoffRatio the backoff ratio, between 0.5 and 1 exclusive
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder backoffRatio(final double backoffRatio) {
+      if(!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+        throw new IllegalArgumentException(String.format("backoffRatio must be at least 0.5 and less than 1, got %s", backoffRatio));
+      }
+
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /**
+     * Sets roughly how many requests the latency baseline is averaged over. Defaults to 600.
+     *
+     * @param longWindow the number of requests
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder longWindow(final int longWindow) {
+      this.longWindow = Limits.positive(longWindow, "longWindow");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link GradientLimit} from this builder's configuration.
+     *
+     * @return the limit
+     * @since 1.1.0
+     */
+    public GradientLimit build() {
+      Limits.checkRange(this.minLimit, this.maxLimit);
+      return new GradientLimit(this);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+/**
+ * Represents the events that are counted.
+ *
+ * @since 1.1.0
+ */
+public enum Counter {
+  /**
+   * Requests sent to DuckDuckGo.
+   */
+  REQUESTS,
+  /**
+   * Requests that failed, whether DuckDuckGo could not be reached, responded unsuccessfully or sent a response that
+   * could not be decoded.
+   */
+  ERRORS,
+  /**
+   * Searches served from a cache.
+   */
+  CACHE_HITS,
+  /**
+   * Searches that were not found in a cache. Only counted when a cache is configured.
+   */
+  CACHE_MISSES,
+  /**
+   * Bytes of response body read, after decompression.
+   */
+  BYTES_READ,
+  /**
+   * Searches rejected because the concurrency limit was reached and the queue was full.
+   */
+  REJECTED,
+  /**
+   * Duplicate requests sent because the original was slow to be answered.
+   */
+  HEDGES,
+  /**
+   * Requests the circuit breaker stopped from being sent, whether the search failed fast or was served stale.
+   */
+  SHORT_CIRCUITED,
+  /**
+   * Searches served an expired result from the cache because the circuit breaker was open.
+   */
+  STALE_HITS,
+  /**
+   * Requests sent to refresh a popular cached result ahead of it expiring.
+   */
+  REFRESHES,
+  /**
+   * Bytes of response body received over the network, before decompression. The same as {@link #BYTES_READ} for
+   * responses that were not compressed.
+   */
+  WIRE_BYTES
+}
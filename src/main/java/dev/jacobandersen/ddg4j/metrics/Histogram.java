@@ -0,0 +1,115 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of non-negative values, such as latencies in nanoseconds.
+ * <p>Values are counted in log-linear buckets, as in HdrHistogram: each power of two is split into 128 equal
+ * buckets, so any recorded value is reported to within 1% while the whole range up to an hour of nanoseconds fits
+ * in a fixed 36 KiB. Recording is a handful of arithmetic instructions and an atomic increment, and never
+ * allocates.</p>
+ *
+ * @since 1.1.0
+ */
+public final class Histogram {
+  private static final int SUB_BUCKET_BITS = 8;
+  private static final int HALF = 1 << (SUB_BUCKET_BITS - 1);
+  // values are clamped to 2^42 - 1 nanoseconds, a little over 73 minutes
+  private static final int MAX_BITS = 42;
+  private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+  static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a value. Negative values are recorded as zero.
+   *
+   * @param value the value
+   * @since 1.1.0
+   */
+  public void record(final long value) {
+    final long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+    this.buckets.incrementAndGet(index(clamped));
+    this.count.increment();
+    this.sum.add(clamped);
+    this.max.accumulate(clamped);
+  }
+
+  /**
+   * Gets the number of values recorded so far.
+   *
+   * @return the count
+   * @since 1.1.0
+   */
+  public long count() {
+    return this.count.sum();
+  }
+
+  /**
+   * Takes a snapshot of the values recorded so far. Values recorded while the snapshot is taken may or may not be
+   * included.
+   *
+   * @return the snapshot
+   * @since 1.1.0
+   */
+  public HistogramSnapshot snapshot() {
+    final long[] counts = new long[BUCKETS];
+    long total = 0;
+    for(int i = 0; i < BUCKETS; i++) {
+      counts[i] = this.buckets.get(i);
+      total += counts[i];
+    }
+    return new HistogramSnapshot(counts, total, this.sum.sum(), this.max.get());
+  }
+
+  /*
+   * Values below 2 * HALF get a bucket each. Above that, a value whose highest set bit is m is shifted right until
+   * only its top SUB_BUCKET_BITS bits are left, giving a mantissa in [HALF, 2 * HALF) and a bucket within the
+   * HALF buckets for that power of two.
+   */
+  static int index(final long value) {
+    final int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << (SUB_BUCKET_BITS - 1)) + (int) (value >>> shift);
+  }
+
+  /*
+   * The highest value that is counted in a bucket.
+   */
+  static long highestValue(final int index) {
+    if(index < 2 * HALF) {
+      return index;
+    }
+
+    final int shift = (index >>> (SUB_BUCKET_BITS - 1)) - 1;
+    final long mantissa = (index & (HALF - 1)) + HALF;
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+/**
+ * Represents the values recorded by a {@link Histogram} at a point in time.
+ *
+ * @since 1.1.0
+ */
+public final class HistogramSnapshot {
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  HistogramSnapshot(final long[] counts, final long count, final long sum, final long max) {
+    this.counts = counts;
+    this.count = count;
+    this.sum = sum;
+    this.max = max;
+  }
+
+  /**
+   * Gets the number of values recorded.
+   *
+   * @return the count
+   * @since 1.1.0
+   */
+  public long count() {
+    return this.count;
+  }
+
+  /**
+   * Gets the mean of the values recorded, or 0 if there are none.
+   *
+   * @return the mean
+   * @since 1.1.0
+   */
+  public double mean() {
+    return this.count == 0 ? 0 : (double) this.sum / this.count;
+  }
+
+  /**
+   * Gets the largest value recorded, or 0 if there are none.
+   *
+   * @return the maximum
+   * @since 1.1.0
+   */
+  public long max() {
+    return this.max;
+  }
+
+  /**
+   * Gets the value that the given percentage of recorded values are less than or equal to, to within 1%.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the value at the percentile, or 0 if no values were recorded
+   * @since 1.1.0
+   */
+  public long valueAtPercentile(final double percentile) {
+    if(!(percentile >= 0 && percentile <= 100)) {
+      throw new IllegalArgumentException(String.format("percentile must be between 0 and 100, got %s", percentile));
+    }
+
+    if(this.count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * this.count));
+    long seen = 0;
+    for(int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if(seen >= rank) {
+        // never report more than was actually recorded
+        return Math.min(Histogram.highestValue(i), this.max);
+      }
+    }
+    return this.max;
+  }
+
+  @Override
+  public String toString() {
+    return "HistogramSnapshot{" +
+            "count=" + this.count +
+            ", p50=" + this.valueAtPercentile(50) +
+            ", p99=" + this.valueAtPercentile(99) +
+            ", p99.9=" + this.valueAtPercentile(99.9) +
+            ", max=" + this.max +
+            '}';
+  }
+}
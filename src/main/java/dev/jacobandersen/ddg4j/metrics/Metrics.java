@@ -0,0 +1,128 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A {@link MetricsSink} that keeps a {@link Histogram} of every {@link Stage} and a striped total of every
+ * {@link Counter} in memory, and samples every registered {@link Gauge} when it is read.
+ *
+ * @since 1.1.0
+ */
+public final class Metrics implements MetricsSink {
+  private static final Stage[] STAGES = Stage.values();
+  private static final Counter[] COUNTERS = Counter.values();
+  private static final Gauge[] GAUGES = Gauge.values();
+
+  private final Histogram[] histograms = new Histogram[STAGES.length];
+  private final LongAdder[] counters = new LongAdder[COUNTERS.length];
+  private final AtomicReferenceArray<LongSupplier> gauges = new AtomicReferenceArray<>(GAUGES.length);
+
+  /**
+   * Constructs a new Metrics with nothing recorded.
+   *
+   * @since 1.1.0
+   */
+  public Metrics() {
+    for(int i = 0; i < this.histograms.length; i++) {
+      this.histograms[i] = new Histogram();
+    }
+    for(int i = 0; i < this.counters.length; i++) {
+      this.counters[i] = new LongAdder();
+    }
+  }
+
+  @Override
+  public void record(final Stage stage, final long nanos) {
+    this.histograms[stage.ordinal()].record(nanos);
+  }
+
+  @Override
+  public void increment(final Counter counter, final long amount) {
+    this.counters[counter.ordinal()].add(amount);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>If the same gauge is registered more than once, as when clients share a Metrics, the latest registration
+   * is the one sampled.</p>
+   */
+  @Override
+  public void gauge(final Gauge gauge, final LongSupplier value) {
+    this.gauges.set(gauge.ordinal(), value);
+  }
+
+  /**
+   * Gets the histogram of a stage's timings, in nanoseconds.
+   *
+   * @param stage the stage
+   * @return the histogram
+   * @since 1.1.0
+   */
+  public Histogram histogram(final Stage stage) {
+    return this.histograms[stage.ordinal()];
+  }
+
+  /**
+   * Gets a counter's total so far.
+   *
+   * @param counter the counter
+   * @return the total
+   * @since 1.1.0
+   */
+  public long count(final Counter counter) {
+    return this.counters[counter.ordinal()].sum();
+  }
+
+  /**
+   * Samples a gauge's current value.
+   *
+   * @param gauge the gauge
+   * @return the value, or 0 if nothing has registered the gauge
+   * @since 1.1.0
+   */
+  public long gauge(final Gauge gauge) {
+    final LongSupplier value = this.gauges.get(gauge.ordinal());
+    return value != null ? value.getAsLong() : 0;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder("Metrics{");
+    for(final Counter counter : COUNTERS) {
+      builder.append(counter).append('=').append(this.count(counter)).append(", ");
+    }
+    for(final Gauge gauge : GAUGES) {
+      builder.append(gauge).append('=').append(this.gauge(gauge)).append(", ");
+    }
+    for(final Stage stage : STAGES) {
+      builder.append(stage).append('=').append(this.histogram(stage).snapshot()).append(", ");
+    }
+    builder.setLength(builder.length() - 2);
+    return builder.append('}').toString();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Receives the timings and counts a {@link dev.jacobandersen.ddg4j.DuckDuckGoClient} records.
+ * <p>Implementations are called on the threads that perform searches, and so must be thread safe and should return
+ * quickly. {@link Metrics} keeps them in memory; other implementations can forward them to a monitoring system.
+ * A client without a sink does not measure anything.</p>
+ *
+ * @since 1.1.0
+ */
+public interface MetricsSink {
+  /**
+   * Records how long a stage of a search took.
+   *
+   * @param stage the stage
+   * @param nanos the time taken, in nanoseconds
+   * @since 1.1.0
+   */
+  void record(Stage stage, long nanos);
+
+  /**
+   * Counts events.
+   *
+   * @param counter the kind of event
+   * @param amount the number of events, or bytes for {@link Counter#BYTES_READ} and {@link Counter#WIRE_BYTES}
+   * @since 1.1.0
+   */
+  void increment(Counter counter, long amount);
+
+  /**
+   * Registers a value to be sampled whenever it is read.
+   * <p>Clients register their gauges once, when they are built. Does nothing by default.</p>
+   *
+   * @param gauge the kind of value
+   * @param value supplies the current value
+   * @since 1.1.0
+   */
+  default void gauge(final Gauge gauge, final LongSupplier value) {
+  }
+}
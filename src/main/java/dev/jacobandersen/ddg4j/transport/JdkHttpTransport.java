@@ -0,0 +1,164 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Transport} on the JDK's own {@code java.net.http} client, which multiplexes concurrent requests over a
+ * few HTTP/2 connections instead of holding a pooled connection for each.
+ * <p>This class is released as a multi-release jar. This, the Java 8 version, has the same public API as the real
+ * implementation, but as the JDK has no such client here, {@link Builder#build()} fails with an
+ * {@link IllegalStateException} and no instance is ever created. Java 11 and newer load the real implementation
+ * from {@code META-INF/versions/11} instead, where {@link #isSupported()} is true; check it before building one,
+ * or make sure the jar is not repackaged in a way that drops its multi-release section.</p>
+ *
+ * @since 1.1.0
+ */
+public final class JdkHttpTransport implements Transport {
+  private JdkHttpTransport() {
+  }
+
+  /**
+   * Whether or not the running JVM has the JDK HTTP client.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public static boolean isSupported() {
+    return false;
+  }
+
+  /**
+   * Creates a new transport builder.
+   *
+   * @return the transport builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  // never constructed, so neither is ever called
+  @Override
+  public <T> T send(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+    throw new AssertionError();
+  }
+
+  @Override
+  public <T> CompletableFuture<T> sendAsync(final TransportRequest request, final ResponseHandler<T> handler) {
+    throw new AssertionError();
+  }
+
+  /**
+   * Shuts down the threads owned by this transport.
+   *
+   * @since 1.1.0
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Provides utilities for building {@link JdkHttpTransport}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration requestTimeout = Duration.ofSeconds(60);
+    private boolean http2 = true;
+    private Executor executor;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established. Defaults to 10 seconds.
+     *
+     * @param connectTimeout the connect timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectTimeout(final Duration connectTimeout) {
+      this.connectTimeout = Objects.requireNonNull(connectTimeout, "connectTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for the response to a request to start arriving. Defaults to 60 seconds.
+     *
+     * @param requestTimeout the request timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder requestTimeout(final Duration requestTimeout) {
+      this.requestTimeout = Objects.requireNonNull(requestTimeout, "requestTimeout");
+      return this;
+    }
+
+    /**
+     * Sets whether to prefer HTTP/2, falling back to HTTP/1.1 for servers that do not speak it, or to always use
+     * HTTP/1.1. Defaults to true.
+     *
+     * @param http2 whether or not to prefer HTTP/2
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder http2(final boolean http2) {
+      this.http2 = http2;
+      return this;
+    }
+
+    /**
+     * Sets the executor responses are received and handled on, or null for a pool of daemon threads owned by the
+     * transport. Defaults to null. The executor must not bound its number of threads, as handlers block reading the
+     * body. An executor set here is not shut down with the transport.
+     *
+     * @param executor the executor
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder executor(final Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link JdkHttpTransport} from this builder's configuration.
+     *
+     * @return the transport
+     * @throws IllegalStateException on Java 8, where the JDK has no HTTP client, or if the jar's Java 11 version
+     *     of this class has been lost
+     * @since 1.1.0
+     */
+    public JdkHttpTransport build() {
+      throw new IllegalStateException(String.format("The JDK HTTP client requires Java 11 or newer, running from the multi-release jar (running on Java %s)", System.getProperty("java.specification.version")));
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends a client's HTTP requests to DuckDuckGo.
+ * <p>A transport owns its connections and is shared between every search a client makes, so it must be thread
+ * safe. Responses are handed to a {@link ResponseHandler} as a stream, and the transport releases the response
+ * once the handler returns, so that a body can be decoded as it arrives rather than after it has been buffered.</p>
+ * <p>Failures to send a request or to receive its response are reported as {@link IOException}s. Exceptions thrown
+ * by the handler are passed on as they are.</p>
+ *
+ * @see UnirestTransport
+ * @see JdkHttpTransport
+ * @since 1.1.0
+ */
+public interface Transport extends AutoCloseable {
+  /**
+   * Sends a request, blocking until its response has been handled.
+   *
+   * @param request the request
+   * @param handler the handler the response is passed to
+   * @param <T> the type of the handled response
+   * @return what the handler returned
+   * @throws IOException if the request could not be sent or its response received, or the handler threw one
+   * @since 1.1.0
+   */
+  <T> T send(TransportRequest request, ResponseHandler<T> handler) throws IOException;
+
+  /**
+   * Sends a request without blocking the calling thread.
+   * <p>Cancelling the returned future abandons the request.</p>
+   *
+   * @param request the request
+   * @param handler the handler the response is passed to
+   * @param <T> the type of the handled response
+   * @return a future completed with what the handler returned, or failed as {@link #send(TransportRequest,
+   *     ResponseHandler)} would have thrown
+   * @since 1.1.0
+   */
+  <T> CompletableFuture<T> sendAsync(TransportRequest request, ResponseHandler<T> handler);
+
+  /**
+   * Releases the connections and threads owned by this transport.
+   *
+   * @since 1.1.0
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A GET request to be sent by a {@link Transport}.
+ *
+ * @since 1.1.0
+ */
+public final class TransportRequest {
+  private final URI uri;
+  private final Map<String, String> headers;
+
+  /**
+   * Creates a new request.
+   *
+   * @param uri the URI to request, including its query string
+   * @param headers the headers to send, by name
+   * @since 1.1.0
+   */
+  public TransportRequest(final URI uri, final Map<String, String> headers) {
+    this.uri = Objects.requireNonNull(uri, "uri");
+    this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+  }
+
+  /**
+   * Gets the URI to request.
+   *
+   * @return the URI
+   * @since 1.1.0
+   */
+  public URI uri() {
+    return this.uri;
+  }
+
+  /**
+   * Gets the headers to send.
+   *
+   * @return the headers, by name
+   * @since 1.1.0
+   */
+  public Map<String, String> headers() {
+    return this.headers;
+  }
+
+  @Override
+  public String toString() {
+    return "TransportRequest{" +
+            "uri=" + this.uri +
+            ", headers=" + this.headers +
+            '}';
+  }
+}
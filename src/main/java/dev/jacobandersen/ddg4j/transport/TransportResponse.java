@@ -0,0 +1,59 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import java.io.InputStream;
+
+/**
+ * A response received by a {@link Transport}, whose body has not necessarily arrived yet.
+ *
+ * @since 1.1.0
+ */
+public interface TransportResponse {
+  /**
+   * Gets the HTTP status code.
+   *
+   * @return the status code
+   * @since 1.1.0
+   */
+  int status();
+
+  /**
+   * Gets the first value of a header.
+   *
+   * @param name the header name, in any case
+   * @return the value, or null if the header is absent
+   * @since 1.1.0
+   */
+  String header(String name);
+
+  /**
+   * Gets the body, which is read as it arrives from the network. It is still encoded as its
+   * {@code Content-Encoding} header says, if the server compressed it. The transport closes it.
+   *
+   * @return the body
+   * @since 1.1.0
+   */
+  InputStream body();
+}
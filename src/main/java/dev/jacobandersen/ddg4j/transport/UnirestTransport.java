@@ -0,0 +1,302 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import kong.unirest.Config;
+import kong.unirest.GetRequest;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponse;
+import kong.unirest.Unirest;
+import kong.unirest.UnirestInstance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A {@link Transport} on Unirest and its pooled Apache HTTP client, speaking HTTP/1.1.
+ * <p>This is the transport clients use unless they are given another. It does not negotiate or undo compression
+ * itself, so a handler sees a body exactly as the server sent it.</p>
+ *
+ * @since 1.1.0
+ */
+public final class UnirestTransport implements Transport {
+  private final UnirestInstance http;
+
+  private UnirestTransport(final Builder builder) {
+    this.http = Unirest.spawnInstance();
+    final Config config = this.http.config();
+    config.concurrency(builder.maxConnections, builder.maxConnectionsPerRoute);
+    config.connectTimeout(Math.toIntExact(builder.connectTimeout.toMillis()));
+    config.socketTimeout(Math.toIntExact(builder.socketTimeout.toMillis()));
+    config.connectionTTL(builder.connectionTtl.toMillis(), TimeUnit.MILLISECONDS);
+    // bodies are handed over as they came off the wire, leaving any decompression to the handler
+    config.requestCompression(false);
+  }
+
+  /**
+   * Creates a new transport builder.
+   *
+   * @return the transport builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public <T> T send(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+    final HttpResponse<T> response;
+    try {
+      response = this.request(request).asObject(handled(handler));
+    } catch(final RuntimeException ex) {
+      throw rethrow(ex);
+    }
+
+    return body(response);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> sendAsync(final TransportRequest request, final ResponseHandler<T> handler) {
+    final CompletableFuture<HttpResponse<T>> response = this.request(request).asObjectAsync(handled(handler));
+    final CompletableFuture<T> result = response.handle((value, error) -> {
+      try {
+        if(error != null) {
+          throw rethrow(error);
+        }
+
+        return body(value);
+      } catch(final IOException ex) {
+        throw new CompletionException(ex);
+      }
+    });
+    result.whenComplete((value, error) -> {
+      if(result.isCancelled()) {
+        response.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private GetRequest request(final TransportRequest request) {
+    final GetRequest get = this.http.get(request.uri().toString());
+    for(final Map.Entry<String, String> header : request.headers().entrySet()) {
+      get.header(header.getKey(), header.getValue());
+    }
+
+    return get;
+  }
+
+  /*
+   * Unirest reports whatever a response function throws as a parsing error or a UnirestException, depending on where
+   * it was thrown from, so the handler's own exceptions are marked to tell them apart from Unirest's.
+   */
+  private static <T> Function<RawResponse, T> handled(final ResponseHandler<T> handler) {
+    return raw -> {
+      try {
+        return handler.handle(new Response(raw));
+      } catch(final IOException | RuntimeException ex) {
+        throw new HandlerException(ex);
+      }
+    };
+  }
+
+  private static <T> T body(final HttpResponse<T> response) throws IOException {
+    if(response.getParsingError().isPresent()) {
+      throw rethrow(response.getParsingError().get());
+    }
+
+    return response.getBody();
+  }
+
+  private static RuntimeException rethrow(final Throwable error) throws IOException {
+    for(Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if(cause instanceof HandlerException) {
+        if(cause.getCause() instanceof IOException) {
+          throw (IOException) cause.getCause();
+        }
+
+        return (RuntimeException) cause.getCause();
+      }
+    }
+
+    final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if(cause instanceof Error) {
+      throw (Error) cause;
+    }
+
+    throw new IOException(cause.getMessage(), cause);
+  }
+
+  /**
+   * Shuts down the connection pool.
+   *
+   * @since 1.1.0
+   */
+  @Override
+  public void close() {
+    this.http.close();
+  }
+
+  private static final class Response implements TransportResponse {
+    private final RawResponse raw;
+
+    private Response(final RawResponse raw) {
+      this.raw = raw;
+    }
+
+    @Override
+    public int status() {
+      return this.raw.getStatus();
+    }
+
+    @Override
+    public String header(final String name) {
+      // Unirest answers an absent header with an empty value
+      final String value = this.raw.getHeaders().getFirst(name);
+      return value == null || value.isEmpty() ? null : value;
+    }
+
+    @Override
+    public InputStream body() {
+      return this.raw.getContent();
+    }
+  }
+
+  private static final class HandlerException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private HandlerException(final Exception cause) {
+      super(cause);
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link UnirestTransport}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private int maxConnections = 200;
+    private int maxConnectionsPerRoute = 20;
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration socketTimeout = Duration.ofSeconds(60);
+    private Duration connectionTtl = Duration.ofMinutes(1);
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the maximum number of pooled connections, across all routes. Defaults to 200.
+     *
+     * @param maxConnections the maximum number of connections
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxConnections(final int maxConnections) {
+      this.maxConnections = positive(maxConnections, "maxConnections");
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections to a single host. Defaults to 20.
+     *
+     * @param maxConnectionsPerRoute the maximum number of connections per host
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+      this.maxConnectionsPerRoute = positive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established. Defaults to 10 seconds.
+     *
+     * @param connectTimeout the connect timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectTimeout(final Duration connectTimeout) {
+      this.connectTimeout = positive(connectTimeout, "connectTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for data on an established connection. Defaults to 60 seconds.
+     *
+     * @param socketTimeout the socket timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder socketTimeout(final Duration socketTimeout) {
+      this.socketTimeout = positive(socketTimeout, "socketTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long a pooled connection may be kept alive and reused before it is discarded. Defaults to 1 minute.
+     *
+     * @param connectionTtl the connection time to live
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectionTtl(final Duration connectionTtl) {
+      this.connectionTtl = positive(connectionTtl, "connectionTtl");
+      return this;
+    }
+
+    /**
+     * Builds a new {@link UnirestTransport} from this builder's configuration.
+     *
+     * @return the transport
+     * @since 1.1.0
+     */
+    public UnirestTransport build() {
+      return new UnirestTransport(this);
+    }
+
+    private static int positive(final int value, final String name) {
+      if(value <= 0) {
+        throw new IllegalArgumentException(String.format("%s must be positive, got %d", name, value));
+      }
+
+      return value;
+    }
+
+    private static Duration positive(final Duration value, final String name) {
+      if(Objects.requireNonNull(value, name).isNegative() || value.isZero()) {
+        throw new IllegalArgumentException(String.format("%s must be positive, got %s", name, value));
+      }
+
+      return value;
+    }
+  }
+}
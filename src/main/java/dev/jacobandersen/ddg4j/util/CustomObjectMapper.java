@@ -25,9 +25,15 @@ package dev.jacobandersen.ddg4j.util;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import dev.jacobandersen.ddg4j.api.Fields;
 import dev.jacobandersen.ddg4j.api.SearchResult;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
 /**
  * Provides an {@link kong.unirest.ObjectMapper} that has a registered Deserializer for {@link SearchResult}.
  * This object proxies {@link ObjectMapper}.
@@ -36,6 +42,7 @@ import dev.jacobandersen.ddg4j.api.SearchResult;
  */
 public class CustomObjectMapper implements kong.unirest.ObjectMapper {
   private final ObjectMapper mapper;
+  private final ObjectReader searchResultReader;
 
   /**
    * Constructs a new {@link CustomObjectMapper}.
@@ -49,6 +56,7 @@ public class CustomObjectMapper implements kong.unirest.ObjectMapper {
     mapper.registerModule(deserializerModule);
 
     this.mapper = mapper;
+    this.searchResultReader = mapper.readerFor(SearchResult.class);
   }
 
   @Override
@@ -60,6 +68,62 @@ public class CustomObjectMapper implements kong.unirest.ObjectMapper {
     }
   }
 
+  /**
+   * Reads a value directly from encoded bytes, without first decoding them into a {@link String}.
+   *
+   * @param value the JSON bytes
+   * @param valueType the type to read
+   * @param <T> the type to read
+   * @return the value
+   * @since 1.1.0
+   */
+  public <T> T readValue(final byte[] value, final Class<T> valueType) {
+    try {
+      return this.mapper.readValue(value, valueType);
+    } catch(final IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /**
+   * Reads a value directly from a stream of encoded bytes, without first buffering it into a {@link String}.
+   * The stream is closed once the value has been read.
+   *
+   * @param value the JSON stream
+   * @param valueType the type to read
+   * @param <T> the type to read
+   * @return the value
+   * @since 1.1.0
+   */
+  public <T> T readValue(final InputStream value, final Class<T> valueType) {
+    try {
+      return this.mapper.readValue(value, valueType);
+    } catch(final IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  /**
+   * Reads a {@link SearchResult} from a stream of encoded bytes, decoding only the given fields.
+   * The stream is closed once the result has been read.
+   *
+   * @param value the JSON stream
+   * @param fields the fields to decode, or null to decode every field
+   * @return the search result
+   * @since 1.1.0
+   */
+  public SearchResult readSearchResult(final InputStream value, final Set<Fields> fields) {
+    try {
+      if(fields == null) {
+        return this.searchResultReader.readValue(value);
+      }
+
+      return this.searchResultReader.withAttribute(SearchResultDeserializer.FIELDS, fields).readValue(value);
+    } catch(final IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
   @Override
   public String writeValue(final Object value) {
     try {
@@ -0,0 +1,308 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * A precomputed table for finding an enum's constants by name, the same way {@link EnumUtil#constantByName(Class,
+ * String)} does: ignoring case, underscores, and leading and trailing whitespace in the name looked up. As with the
+ * original scan, which compared each constant's name to the name looked up with its underscores removed, constants
+ * whose own names contain underscores are never found.
+ * <p>Names can be looked up from a {@link CharSequence}, a slice of a {@code char[]} such as a JSON parser's text
+ * buffer, or a slice of UTF-8 bytes. Lookups of ASCII names allocate nothing; other names fall back to a slower
+ * path that matches exactly what {@link String#toUpperCase(Locale)} would. Tables are created once per enum class
+ * and shared.</p>
+ *
+ * @param <T> the enum type
+ * @since 1.1.0
+ */
+public final class EnumLookup<T extends Enum<T>> {
+  private static final ClassValue<EnumLookup<?>> LOOKUPS = new ClassValue<EnumLookup<?>>() {
+    @Override
+    protected EnumLookup<?> computeValue(final Class<?> type) {
+      return create(type);
+    }
+  };
+
+  private final T[] constants;
+  private final char[][] keys;
+  private final int[] hashes;
+  private final T[] table;
+  private final int mask;
+
+  @SuppressWarnings("unchecked")
+  private EnumLookup(final T[] constants) {
+    int size = 2;
+    while(size < constants.length * 2) {
+      size <<= 1;
+    }
+
+    this.constants = constants;
+    this.keys = new char[size][];
+    this.hashes = new int[size];
+    this.table = (T[]) new Enum<?>[size];
+    this.mask = size - 1;
+
+    for(final T constant : constants) {
+      // names are compared with their underscores removed, so the original scan never matched a constant with one
+      if(constant.name().indexOf('_') >= 0) {
+        continue;
+      }
+
+      final char[] key = constant.name().toCharArray();
+      final int hash = hash(key);
+
+      int slot = spread(hash) & this.mask;
+      while(this.keys[slot] != null) {
+        slot = (slot + 1) & this.mask;
+      }
+
+      this.keys[slot] = key;
+      this.hashes[slot] = hash;
+      this.table[slot] = constant;
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static EnumLookup<?> create(final Class<?> type) {
+    if(!type.isEnum()) {
+      throw new IllegalArgumentException(String.format("%s is not an enum", type.getName()));
+    }
+
+    return new EnumLookup((Enum[]) type.getEnumConstants());
+  }
+
+  /**
+   * Gets the lookup table for an enum class, creating it the first time it is asked for.
+   *
+   * @param enumClass the enum class
+   * @param <T> the enum type
+   * @return the lookup table
+   * @since 1.1.0
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends Enum<T>> EnumLookup<T> of(final Class<T> enumClass) {
+    return (EnumLookup<T>) LOOKUPS.get(enumClass);
+  }
+
+  /**
+   * Finds the constant with the given name.
+   *
+   * @param name the name to search for
+   * @return the constant, or null if there is no such constant
+   * @since 1.1.0
+   */
+  public T find(final CharSequence name) {
+    if(name == null) {
+      return null;
+    }
+
+    int start = 0;
+    int end = name.length();
+    while(start < end && isIgnoredAtEnds(name.charAt(start))) {
+      start++;
+    }
+    while(end > start && isIgnoredAtEnds(name.charAt(end - 1))) {
+      end--;
+    }
+
+    int hash = 0;
+    int length = 0;
+    for(int i = start; i < end; i++) {
+      final char c = name.charAt(i);
+      if(c >= 0x80) {
+        return this.findSlow(name.toString());
+      }
+      if(c != '_') {
+        hash = 31 * hash + upper(c);
+        length++;
+      }
+    }
+
+    for(int slot = spread(hash) & this.mask; this.keys[slot] != null; slot = (slot + 1) & this.mask) {
+      if(this.hashes[slot] == hash && this.keys[slot].length == length && matches(this.keys[slot], name, start, end)) {
+        return this.table[slot];
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Finds the constant with the name held in a slice of a char array.
+   *
+   * @param chars the characters
+   * @param offset where the name starts
+   * @param length the length of the name
+   * @return the constant, or null if there is no such constant
+   * @since 1.1.0
+   */
+  public T find(final char[] chars, final int offset, final int length) {
+    int start = offset;
+    int end = offset + length;
+    while(start < end && isIgnoredAtEnds(chars[start])) {
+      start++;
+    }
+    while(end > start && isIgnoredAtEnds(chars[end - 1])) {
+      end--;
+    }
+
+    int hash = 0;
+    int keyLength = 0;
+    for(int i = start; i < end; i++) {
+      final char c = chars[i];
+      if(c >= 0x80) {
+        return this.findSlow(new String(chars, offset, length));
+      }
+      if(c != '_') {
+        hash = 31 * hash + upper(c);
+        keyLength++;
+      }
+    }
+
+    for(int slot = spread(hash) & this.mask; this.keys[slot] != null; slot = (slot + 1) & this.mask) {
+      if(this.hashes[slot] == hash && this.keys[slot].length == keyLength && matches(this.keys[slot], chars, start, end)) {
+        return this.table[slot];
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Finds the constant with the name held, as UTF-8, in a slice of a byte array.
+   *
+   * @param bytes the bytes
+   * @param offset where the name starts
+   * @param length the length of the name, in bytes
+   * @return the constant, or null if there is no such constant
+   * @since 1.1.0
+   */
+  public T find(final byte[] bytes, final int offset, final int length) {
+    int start = offset;
+    int end = offset + length;
+    while(start < end && bytes[start] >= 0 && isIgnoredAtEnds((char) bytes[start])) {
+      start++;
+    }
+    while(end > start && bytes[end - 1] >= 0 && isIgnoredAtEnds((char) bytes[end - 1])) {
+      end--;
+    }
+
+    int hash = 0;
+    int keyLength = 0;
+    for(int i = start; i < end; i++) {
+      final byte b = bytes[i];
+      if(b < 0) {
+        return this.findSlow(new String(bytes, offset, length, StandardCharsets.UTF_8));
+      }
+      if(b != '_') {
+        hash = 31 * hash + upper((char) b);
+        keyLength++;
+      }
+    }
+
+    for(int slot = spread(hash) & this.mask; this.keys[slot] != null; slot = (slot + 1) & this.mask) {
+      if(this.hashes[slot] == hash && this.keys[slot].length == keyLength && matches(this.keys[slot], bytes, start, end)) {
+        return this.table[slot];
+      }
+    }
+
+    return null;
+  }
+
+  /*
+   * The exact rules of the original lookup, for names whose upper case may not be a simple per-character mapping.
+   */
+  private T findSlow(final String name) {
+    final String normalized = name.replace("_", "").toUpperCase(Locale.ROOT).trim();
+    for(final T constant : this.constants) {
+      if(constant.name().equals(normalized)) {
+        return constant;
+      }
+    }
+
+    return null;
+  }
+
+  private static boolean matches(final char[] key, final CharSequence name, final int start, final int end) {
+    int k = 0;
+    for(int i = start; i < end; i++) {
+      final char c = name.charAt(i);
+      if(c != '_' && key[k++] != upper(c)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean matches(final char[] key, final char[] chars, final int start, final int end) {
+    int k = 0;
+    for(int i = start; i < end; i++) {
+      final char c = chars[i];
+      if(c != '_' && key[k++] != upper(c)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean matches(final char[] key, final byte[] bytes, final int start, final int end) {
+    int k = 0;
+    for(int i = start; i < end; i++) {
+      final char c = (char) bytes[i];
+      if(c != '_' && key[k++] != upper(c)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /*
+   * Underscores are removed and whitespace trimmed, so a run of either at the ends of a name is ignored.
+   */
+  private static boolean isIgnoredAtEnds(final char c) {
+    return c <= ' ' || c == '_';
+  }
+
+  private static char upper(final char c) {
+    return c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : c;
+  }
+
+  private static int hash(final char[] key) {
+    int hash = 0;
+    for(final char c : key) {
+      hash = 31 * hash + c;
+    }
+    return hash;
+  }
+
+  private static int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
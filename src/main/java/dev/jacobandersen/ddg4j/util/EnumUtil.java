@@ -23,12 +23,12 @@
  */
 package dev.jacobandersen.ddg4j.util;
 
-import java.util.Arrays;
-import java.util.Locale;
 import java.util.Optional;
 
 /**
  * Provides a utility for finding enum constants by name.
+ * <p>Names are matched ignoring case, underscores, and leading and trailing whitespace, through a table cached per
+ * enum class. See {@link EnumLookup}.</p>
  *
  * @since 1.0.0
  */
@@ -46,15 +46,7 @@ public final class EnumUtil {
    * @since 1.0.0
    */
   public static <T extends Enum<T>> Optional<T> constantByName(final Class<T> enumClass, final String name) {
-    if(name == null || name.isEmpty()) {
-      return Optional.empty();
-    }
-
-    return Arrays.stream(enumClass.getEnumConstants())
-            .filter(type -> type.name().equals(
-                    name.replaceAll("_", "").toUpperCase(Locale.ROOT).trim()
-            ))
-            .findFirst();
+    return Optional.ofNullable(EnumLookup.of(enumClass).find(name));
   }
 
   /**
@@ -68,6 +60,7 @@ public final class EnumUtil {
    * @since 1.0.0
    */
   public static <T extends Enum<T>> T constantByNameOrElse(final Class<T> enumClass, final String name, final T def) {
-    return constantByName(enumClass, name).orElse(def);
+    final T constant = EnumLookup.of(enumClass).find(name);
+    return constant != null ? constant : def;
   }
 }
@@ -0,0 +1,288 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.limit.ConcurrencyLimit;
+import dev.jacobandersen.ddg4j.limit.FixedLimit;
+import dev.jacobandersen.ddg4j.limit.LimitExceededException;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of operations that may be in flight at once without blocking asynchronous callers.
+ * Operations submitted while the cap is reached are queued and started, in order, as earlier ones complete.
+ * <p>The cap is taken from a {@link ConcurrencyLimit}, which is told how long every operation took and whether it
+ * failed in a way that counts as dropped, so an adaptive limit can raise or lower it as operations complete.</p>
+ *
+ * @since 1.1.0
+ */
+public final class InFlightLimiter {
+  private final ConcurrencyLimit limit;
+  private final int maxQueued;
+  private final Predicate<Throwable> dropped;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger drains = new AtomicInteger();
+  private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Constructs a new InFlightLimiter with a fixed cap and an unbounded queue.
+   *
+   * @param maxInFlight the maximum number of operations that may be in flight at once
+   * @since 1.1.0
+   */
+  public InFlightLimiter(final int maxInFlight) {
+    this(new FixedLimit(maxInFlight), Integer.MAX_VALUE, error -> false);
+  }
+
+  /**
+   * Constructs a new InFlightLimiter.
+   *
+   * @param limit decides how many operations may be in flight at once
+   * @param maxQueued the maximum number of operations that may wait for the limit before further ones are rejected
+   * @param dropped decides whether an operation's failure counts as dropped, for example because the upstream is
+   *     overloaded
+   * @since 1.1.0
+   */
+  public InFlightLimiter(final ConcurrencyLimit limit, final int maxQueued, final Predicate<Throwable> dropped) {
+    if(maxQueued < 0) {
+      throw new IllegalArgumentException(String.format("maxQueued must not be negative, got %d", maxQueued));
+    }
+
+    this.limit = Objects.requireNonNull(limit, "limit");
+    this.maxQueued = maxQueued;
+    this.dropped = Objects.requireNonNull(dropped, "dropped");
+  }
+
+  /**
+   * Gets the limit deciding how many operations may be in flight at once.
+   *
+   * @return the concurrency limit
+   * @since 1.1.0
+   */
+  public ConcurrencyLimit limit() {
+    return this.limit;
+  }
+
+  /**
+   * Gets the maximum number of operations that may currently be in flight at once.
+   *
+   * @return the maximum number of in-flight operations
+   * @since 1.1.0
+   */
+  public int maxInFlight() {
+    return this.limit.limit();
+  }
+
+  /**
+   * Gets the number of operations currently in flight.
+   *
+   * @return the number of in-flight operations
+   * @since 1.1.0
+   */
+  public int inFlight() {
+    return this.inFlight.get();
+  }
+
+  /**
+   * Gets the number of operations waiting for the limit to allow them through.
+   *
+   * @return the number of queued operations
+   * @since 1.1.0
+   */
+  public int queued() {
+    return this.queued.get();
+  }
+
+  /**
+   * Starts an operation as soon as the cap allows it.
+   * <p>Cancelling the returned future before the operation has started removes it from the queue, and cancelling
+   * it afterwards cancels the operation's own future.</p>
+   *
+   * @param operation starts the operation and returns its future
+   * @param <T> the operation's result type
+   * @return a future completed with the operation's result, or failed with a {@link LimitExceededException} if the
+   *     queue is full
+   * @since 1.1.0
+   */
+  public <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> operation) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+
+    final Runnable task = () -> {
+      // queued tasks only run from drain(), which picks up the next one once this permit is handed back
+      if(result.isDone()) {
+        this.inFlight.decrementAndGet();
+        return;
+      }
+
+      final int inFlight = this.inFlight.get();
+      final long start = System.nanoTime();
+      final CompletableFuture<T> started;
+      try {
+        started = operation.get();
+      } catch(final RuntimeException ex) {
+        this.inFlight.decrementAndGet();
+        result.completeExceptionally(ex);
+        return;
+      }
+
+      result.whenComplete((value, error) -> {
+        if(result.isCancelled()) {
+          started.cancel(true);
+        }
+      });
+      started.whenComplete((value, error) -> {
+        this.sample(start, inFlight, error);
+        this.release();
+
+        if(error != null) {
+          result.completeExceptionally(error);
+        } else {
+          result.complete(value);
+        }
+      });
+    };
+    if(!this.enqueue(task)) {
+      result.completeExceptionally(this.rejected());
+      return result;
+    }
+
+    result.whenComplete((value, error) -> {
+      // only a task still in the queue can be removed, so it is counted out here or by drain(), never both
+      if(result.isCancelled() && this.pending.remove(task)) {
+        this.queued.decrementAndGet();
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Runs a blocking operation on the calling thread as soon as the cap allows it, waiting in the queue until then.
+   * <p>Waiting in the queue cannot be interrupted; bound the wait with the maximum number of queued operations
+   * instead. An interrupt that arrives meanwhile stays set for the operation to see.</p>
+   *
+   * @param operation the operation
+   * @param <T> the operation's result type
+   * @return the operation's result
+   * @throws LimitExceededException if the queue is full
+   * @since 1.1.0
+   */
+  public <T> T call(final Supplier<T> operation) {
+    final CompletableFuture<Integer> permit = new CompletableFuture<>();
+    if(!this.enqueue(() -> permit.complete(this.inFlight.get()))) {
+      throw this.rejected();
+    }
+
+    final int inFlight = permit.join();
+    final long start = System.nanoTime();
+    try {
+      final T result = operation.get();
+      this.sample(start, inFlight, null);
+      return result;
+    } catch(final RuntimeException ex) {
+      this.sample(start, inFlight, ex);
+      throw ex;
+    } finally {
+      this.release();
+    }
+  }
+
+  private boolean enqueue(final Runnable task) {
+    // the queue bound is approximate under contention, which is all it needs to be
+    if(this.queued.incrementAndGet() > this.maxQueued && this.inFlight.get() >= this.limit.limit()) {
+      this.queued.decrementAndGet();
+      return false;
+    }
+
+    this.pending.add(task);
+    this.drain();
+    return true;
+  }
+
+  private void sample(final long start, final int inFlight, final Throwable error) {
+    final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if(cause instanceof CancellationException) {
+      // a cancelled operation never finished, so how long it took says nothing
+      return;
+    }
+
+    this.limit.onSample(System.nanoTime() - start, inFlight, cause != null && this.dropped.test(cause));
+  }
+
+  private LimitExceededException rejected() {
+    return new LimitExceededException(String.format("%d operations are already in flight and %d queued", this.inFlight.get(), this.maxQueued));
+  }
+
+  private void release() {
+    this.inFlight.decrementAndGet();
+    this.drain();
+  }
+
+  /*
+   * Only the outermost call drains. A task whose operation completes as it starts releases its permit from within
+   * the drain, and a drain started by another thread meanwhile, only bump the count so that the outermost call goes
+   * round again, instead of recursing once per queued task.
+   */
+  private void drain() {
+    if(this.drains.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      this.drainPending();
+      missed = this.drains.addAndGet(-missed);
+    } while(missed != 0);
+  }
+
+  private void drainPending() {
+    while(!this.pending.isEmpty()) {
+      final int current = this.inFlight.get();
+      if(current >= this.limit.limit()) {
+        return;
+      }
+
+      if(!this.inFlight.compareAndSet(current, current + 1)) {
+        continue;
+      }
+
+      final Runnable next = this.pending.poll();
+      if(next == null) {
+        this.inFlight.decrementAndGet();
+        continue;
+      }
+
+      this.queued.decrementAndGet();
+      next.run();
+    }
+  }
+}
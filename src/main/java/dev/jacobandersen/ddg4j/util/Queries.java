@@ -0,0 +1,89 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import java.util.Locale;
+
+/**
+ * Provides utilities for working with search queries.
+ *
+ * @since 1.1.0
+ */
+public final class Queries {
+  private Queries() {
+  }
+
+  /**
+   * Normalizes a query so that queries DuckDuckGo treats the same way map to the same key.
+   * <p>Leading and trailing whitespace is removed, every other run of whitespace becomes a single space, and the
+   * query is lower-cased. Queries that are already normalized are returned as-is, without allocating.</p>
+   *
+   * @param query the query
+   * @return the normalized query
+   * @since 1.1.0
+   */
+  public static String normalize(final String query) {
+    if(isNormalized(query)) {
+      return query;
+    }
+
+    final StringBuilder builder = new StringBuilder(query.length());
+    boolean pendingSpace = false;
+    for(int i = 0; i < query.length(); i++) {
+      final char c = query.charAt(i);
+      if(Character.isWhitespace(c)) {
+        pendingSpace = builder.length() > 0;
+        continue;
+      }
+
+      if(pendingSpace) {
+        builder.append(' ');
+        pendingSpace = false;
+      }
+      builder.append(c);
+    }
+
+    return builder.toString().toLowerCase(Locale.ROOT);
+  }
+
+  private static boolean isNormalized(final String query) {
+    boolean afterSpace = true;
+    for(int i = 0; i < query.length(); i++) {
+      final char c = query.charAt(i);
+      if(Character.isWhitespace(c)) {
+        if(c != ' ' || afterSpace) {
+          return false;
+        }
+        afterSpace = true;
+      } else {
+        if(Character.toLowerCase(c) != c) {
+          return false;
+        }
+        afterSpace = false;
+      }
+    }
+
+    return query.isEmpty() || !afterSpace;
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+/**
+ * Represents an error that occurs while searching, such as an unsuccessful HTTP status or an undecodable response.
+ *
+ * @since 1.1.0
+ */
+public class SearchException extends RuntimeException {
+  private static final long serialVersionUID = 7136518029471382044L;
+
+  private final int status;
+
+  /**
+   * Constructs a new SearchException for an unsuccessful HTTP response.
+   *
+   * @param message the detail message
+   * @param status the HTTP status of the response
+   * @since 1.1.0
+   */
+  public SearchException(final String message, final int status) {
+    super(message);
+    this.status = status;
+  }
+
+  /**
+   * Constructs a new SearchException caused by another error.
+   *
+   * @param message the detail message
+   * @param cause the underlying error
+   * @since 1.1.0
+   */
+  public SearchException(final String message, final Throwable cause) {
+    super(message, cause);
+    this.status = -1;
+  }
+
+  /**
+   * Gets the HTTP status of the response that caused this error.
+   *
+   * @return the HTTP status, or -1 if the error was not caused by an unsuccessful response
+   * @since 1.1.0
+   */
+  public int status() {
+    return this.status;
+  }
+}
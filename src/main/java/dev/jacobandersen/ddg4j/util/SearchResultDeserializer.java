@@ -24,11 +24,13 @@
 package dev.jacobandersen.ddg4j.util;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import dev.jacobandersen.ddg4j.api.Answer;
 import dev.jacobandersen.ddg4j.api.Definition;
+import dev.jacobandersen.ddg4j.api.Fields;
 import dev.jacobandersen.ddg4j.api.Icon;
 import dev.jacobandersen.ddg4j.api.Redirect;
 import dev.jacobandersen.ddg4j.api.ResultItem;
@@ -39,14 +41,28 @@ import dev.jacobandersen.ddg4j.api.Type;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Handles deserialization of the raw responses from DuckDuckGo.
+ * <p>Responses are decoded in a single pass over the parser's token stream, without building an intermediate
+ * tree. Fields that are not part of a {@link SearchResult} are skipped.</p>
+ * <p>If the {@link #FIELDS} attribute is set on the reader, only the requested {@link Fields} are decoded and the
+ * rest of the response is skipped without allocating anything for it.</p>
  *
  * @since 1.0.0
  */
 public class SearchResultDeserializer extends StdDeserializer<SearchResult> {
+  /**
+   * The reader attribute holding the {@link Set} of {@link Fields} to decode. When absent, every field is decoded.
+   *
+   * @since 1.1.0
+   */
+  public static final String FIELDS = "ddg4j.fields";
+
   private static final long serialVersionUID = 99482938294345242L;
+  private static final EnumLookup<Type> TYPES = EnumLookup.of(Type.class);
+  private static final EnumLookup<Answer.Type> ANSWER_TYPES = EnumLookup.of(Answer.Type.class);
 
   /**
    * Constructs a new SearchResultDeserializer.
@@ -59,76 +75,331 @@ public class SearchResultDeserializer extends StdDeserializer<SearchResult> {
 
   @Override
   public SearchResult deserialize(final JsonParser parser, final DeserializationContext ctx) throws IOException {
-    final JsonNode node = parser.getCodec().readTree(parser);
-
-    final Type type = Type.byName(node.get("Type").asText(""));
-    final List<ResultItem> relatedTopics = this.deserializeResultItems(node.get("RelatedTopics"));
-    final List<ResultItem> results = this.deserializeResultItems(node.get("Results"));
-
-    return SearchResult.builder(type)
-            .topicAbstract(new TopicAbstract(
-                    node.get("Heading").asText(""),
-                    node.get("Abstract").asText(""),
-                    node.get("AbstractText").asText(""),
-                    node.get("AbstractSource").asText(""),
-                    node.get("AbstractURL").asText(""),
-                    node.get("Image").asText("")
-            ))
-            .answer(new Answer(
-                    node.get("Answer").asText(""),
-                    Answer.Type.byName(node.get("AnswerType").asText(""))
-            ))
-            .definition(new Definition(
-                    node.get("Definition").asText(""),
-                    node.get("DefinitionSource").asText(""),
-                    node.get("DefinitionURL").asText("")
-            ))
-            .relatedTopics(relatedTopics)
-            .results(results)
-            .redirect(new Redirect(node.get("Redirect").asText("")))
-            .build();
+    JsonToken token = parser.currentToken();
+    if(token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    } else if(token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+      return (SearchResult) ctx.handleUnexpectedToken(SearchResult.class, parser);
+    }
+
+    @SuppressWarnings("unchecked")
+    final Set<Fields> fields = (Set<Fields>) ctx.getAttribute(FIELDS);
+    final boolean abstracts = fields == null || fields.contains(Fields.ABSTRACT);
+    final boolean answers = fields == null || fields.contains(Fields.ANSWER);
+    final boolean definitions = fields == null || fields.contains(Fields.DEFINITION);
+    final boolean redirects = fields == null || fields.contains(Fields.REDIRECT);
+
+    Type type = Type.NULL;
+    String heading = "";
+    String abstractHtml = "";
+    String abstractText = "";
+    String abstractSource = "";
+    String abstractUrl = "";
+    String image = "";
+    String answer = "";
+    Answer.Type answerType = Answer.Type.ANSWER;
+    String definition = "";
+    String definitionSource = "";
+    String definitionUrl = "";
+    String redirect = "";
+    final List<ResultItem> relatedTopics = fields == null || fields.contains(Fields.RELATED_TOPICS) ? new ArrayList<>() : null;
+    final List<ResultItem> results = fields == null || fields.contains(Fields.RESULTS) ? new ArrayList<>() : null;
+
+    for(; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      final String field = parser.currentName();
+      parser.nextToken();
+
+      switch (field) {
+        case "Type":
+          type = readEnum(parser, TYPES, Type.NULL);
+          break;
+        case "Heading":
+          heading = readText(parser, abstracts);
+          break;
+        case "Abstract":
+          abstractHtml = readText(parser, abstracts);
+          break;
+        case "AbstractText":
+          abstractText = readText(parser, abstracts);
+          break;
+        case "AbstractSource":
+          abstractSource = readText(parser, abstracts);
+          break;
+        case "AbstractURL":
+          abstractUrl = readText(parser, abstracts);
+          break;
+        case "Image":
+          image = readText(parser, abstracts);
+          break;
+        case "Answer":
+          answer = readText(parser, answers);
+          break;
+        case "AnswerType":
+          if(answers) {
+            answerType = readEnum(parser, ANSWER_TYPES, Answer.Type.ANSWER);
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "Definition":
+          definition = readText(parser, definitions);
+          break;
+        case "DefinitionSource":
+          definitionSource = readText(parser, definitions);
+          break;
+        case "DefinitionURL":
+          definitionUrl = readText(parser, definitions);
+          break;
+        case "RelatedTopics":
+          if(relatedTopics != null) {
+            readResultItems(parser, relatedTopics);
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "Results":
+          if(results != null) {
+            readResultItems(parser, results);
+          } else {
+            parser.skipChildren();
+          }
+          break;
+        case "Redirect":
+          redirect = readText(parser, redirects);
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+
+    final SearchResult.Builder builder = SearchResult.builder(type);
+    if(abstracts) {
+      builder.topicAbstract(new TopicAbstract(heading, abstractHtml, abstractText, abstractSource, abstractUrl, image));
+    }
+    if(answers) {
+      builder.answer(new Answer(answer, answerType));
+    }
+    if(definitions) {
+      builder.definition(new Definition(definition, definitionSource, definitionUrl));
+    }
+    if(relatedTopics != null) {
+      builder.relatedTopics(relatedTopics);
+    }
+    if(results != null) {
+      builder.results(results);
+    }
+    if(redirects) {
+      builder.redirect(new Redirect(redirect));
+    }
+
+    return builder.build();
   }
 
-  private List<ResultItem> deserializeResultItems(final JsonNode node) {
-    final List<ResultItem> items = new ArrayList<>();
+  private static void readResultItems(final JsonParser parser, final List<ResultItem> items) throws IOException {
+    if(parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
+
+    while(parser.nextToken() != JsonToken.END_ARRAY) {
+      if(parser.currentToken() == JsonToken.START_OBJECT) {
+        final ResultItem item = readResultItem(parser, items);
+        if(item != null) {
+          items.add(item);
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Reads the single result item object the parser is positioned at.
+   * <p>The parser must be positioned at the item's {@code START_OBJECT} token, and is left at its matching
+   * {@code END_OBJECT} token.</p>
+   *
+   * @param parser the parser
+   * @return the result item
+   * @throws IOException if the item could not be read
+   * @since 1.1.0
+   */
+  public static ResultItem readResultItem(final JsonParser parser) throws IOException {
+    return readResultItem(parser, null);
+  }
+
+  /*
+   * When groupItems is given, an object with both a Name and Topics (a disambiguation category) contributes its
+   * topics to groupItems instead of itself, and null is returned. Those topics are appended as they are read and
+   * dropped again if the object turns out not to be a group.
+   */
+  private static ResultItem readResultItem(final JsonParser parser, final List<ResultItem> groupItems) throws IOException {
+    final int start = groupItems != null ? groupItems.size() : 0;
+    String url = "";
+    Icon icon = null;
+    String html = "";
+    String text = "";
+    boolean hasName = false;
+    boolean hasTopics = false;
 
-    if(node.isArray()) {
-      for(final JsonNode inner : node) {
-        if(inner.has("Name") && inner.has("Topics")) {
-          final JsonNode topics = inner.get("Topics");
-          if(topics.isArray()) {
-            for(final JsonNode topic : topics) {
-              items.add(this.deserializeResultItem(topic));
+    while(parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.currentName();
+      final JsonToken value = parser.nextToken();
+
+      switch (field) {
+        case "FirstURL":
+          url = readText(parser);
+          break;
+        case "Icon":
+          icon = readIcon(parser);
+          break;
+        case "Result":
+          html = readText(parser);
+          break;
+        case "Text":
+          text = readText(parser);
+          break;
+        case "Name":
+          hasName = true;
+          parser.skipChildren();
+          break;
+        case "Topics":
+          hasTopics = true;
+          if(groupItems != null && value == JsonToken.START_ARRAY) {
+            while(parser.nextToken() != JsonToken.END_ARRAY) {
+              if(parser.currentToken() == JsonToken.START_OBJECT) {
+                groupItems.add(readResultItem(parser, null));
+              } else {
+                parser.skipChildren();
+              }
             }
+          } else {
+            parser.skipChildren();
           }
-        } else {
-          items.add(this.deserializeResultItem(inner));
-        }
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+
+    if(groupItems != null) {
+      if(hasName && hasTopics) {
+        return null;
       }
+
+      if(groupItems.size() > start) {
+        groupItems.subList(start, groupItems.size()).clear();
+      }
+    }
+
+    return new ResultItem(url, icon != null ? icon : new Icon("", -1, -1), html, text);
+  }
+
+  private static Icon readIcon(final JsonParser parser) throws IOException {
+    if(parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+
+    String url = "";
+    int height = -1;
+    int width = -1;
+
+    while(parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.currentName();
+      parser.nextToken();
+
+      switch (field) {
+        case "URL":
+          url = readText(parser);
+          break;
+        case "Height":
+          height = readInt(parser);
+          break;
+        case "Width":
+          width = readInt(parser);
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+
+    return new Icon(url, height, width);
+  }
+
+  private static String readText(final JsonParser parser, final boolean wanted) throws IOException {
+    if(!wanted) {
+      parser.skipChildren();
+      return null;
     }
 
-    return items;
+    return readText(parser);
+  }
+
+  /**
+   * Reads the value the parser is positioned at as text, the same way {@code JsonNode.asText("")} would: scalars as
+   * their text, and null and containers as the empty string. Containers are skipped.
+   *
+   * @param parser the parser
+   * @return the text
+   * @throws IOException if the value could not be read
+   * @since 1.1.0
+   */
+  public static String readText(final JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case VALUE_STRING:
+        return parser.getText();
+      case START_OBJECT:
+      case START_ARRAY:
+        parser.skipChildren();
+        return "";
+      case VALUE_NULL:
+        return "";
+      default:
+        return parser.getText();
+    }
   }
 
-  private ResultItem deserializeResultItem(final JsonNode node) {
-    final JsonNode iconNode = node.has("Icon") ? node.get("Icon") : null;
-
-    final Icon icon;
-    if(iconNode != null) {
-      icon = new Icon(
-              iconNode.get("URL").asText(""),
-              iconNode.get("Height").asInt(-1),
-              iconNode.get("Width").asInt(-1)
-      );
-    } else {
-      icon = new Icon("", -1, -1);
-    }
-
-    return new ResultItem(
-            node.get("FirstURL").asText(""),
-            icon,
-            node.get("Result").asText(""),
-            node.get("Text").asText("")
-    );
+  /**
+   * Reads the value the parser is positioned at as an enum constant, matching its {@linkplain #readText(JsonParser)
+   * text} the same way {@link EnumUtil} does. Strings are matched straight from the parser's text buffer.
+   *
+   * @param parser the parser
+   * @param lookup the enum's lookup table
+   * @param def the constant to fall back to if there is no match
+   * @param <T> the enum type
+   * @return the constant, or the fallback
+   * @throws IOException if the value could not be read
+   * @since 1.1.0
+   */
+  public static <T extends Enum<T>> T readEnum(final JsonParser parser, final EnumLookup<T> lookup, final T def) throws IOException {
+    final T constant = parser.currentToken() == JsonToken.VALUE_STRING
+            ? lookup.find(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength())
+            : lookup.find(readText(parser));
+
+    return constant != null ? constant : def;
+  }
+
+  /*
+   * Mirrors JsonNode.asInt(-1): numbers truncated, numeric strings parsed, null as 0, anything else as -1.
+   */
+  private static int readInt(final JsonParser parser) throws IOException {
+    switch (parser.currentToken()) {
+      case VALUE_NUMBER_INT:
+      case VALUE_NUMBER_FLOAT:
+        return parser.getNumberValue().intValue();
+      case VALUE_STRING:
+        return NumberInput.parseAsInt(parser.getText(), -1);
+      case VALUE_TRUE:
+        return 1;
+      case VALUE_FALSE:
+      case VALUE_NULL:
+        return 0;
+      default:
+        parser.skipChildren();
+        return -1;
+    }
   }
 }
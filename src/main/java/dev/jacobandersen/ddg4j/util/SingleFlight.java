@@ -0,0 +1,170 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent operations with the same key into a single outstanding operation.
+ * <p>The first caller for a key starts the operation; callers arriving while it is still in flight share its
+ * outcome instead of starting their own. Every caller gets its own future, so cancelling one does not affect the
+ * others. The shared operation itself is only cancelled once every caller waiting on it has cancelled.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ * @since 1.1.0
+ */
+public final class SingleFlight<K, V> {
+  private final ConcurrentMap<K, Flight> flights = new ConcurrentHashMap<>();
+
+  /**
+   * Runs an operation, or joins the one already in flight for the same key.
+   * <p>The operation is started on the calling thread, so a blocking operation blocks only the caller that
+   * started it.</p>
+   *
+   * @param key the key identifying the operation
+   * @param operation starts the operation and returns its future
+   * @return a future completed with the operation's result
+   * @since 1.1.0
+   */
+  public CompletableFuture<V> execute(final K key, final Supplier<CompletableFuture<V>> operation) {
+    while(true) {
+      final Flight existing = this.flights.get(key);
+      if(existing != null) {
+        final CompletableFuture<V> joined = existing.subscribe();
+        if(joined != null) {
+          return joined;
+        }
+
+        // the flight was abandoned by all its callers and is being removed; start a fresh one
+        this.flights.remove(key, existing);
+        continue;
+      }
+
+      final Flight flight = new Flight(key);
+      if(this.flights.putIfAbsent(key, flight) != null) {
+        continue;
+      }
+
+      final CompletableFuture<V> result = flight.subscribe();
+      flight.start(operation);
+      return result;
+    }
+  }
+
+  /**
+   * Gets the number of distinct operations currently in flight.
+   *
+   * @return the number of in-flight operations
+   * @since 1.1.0
+   */
+  public int inFlight() {
+    return this.flights.size();
+  }
+
+  private final class Flight {
+    private final K key;
+    private final CompletableFuture<V> result = new CompletableFuture<>();
+    private CompletableFuture<V> operation;
+    private int subscribers;
+    private boolean abandoned;
+
+    private Flight(final K key) {
+      this.key = key;
+    }
+
+    private void start(final Supplier<CompletableFuture<V>> operation) {
+      final CompletableFuture<V> started;
+      try {
+        started = operation.get();
+      } catch(final RuntimeException ex) {
+        this.finish(null, ex);
+        return;
+      }
+
+      synchronized(this) {
+        this.operation = started;
+        if(this.abandoned) {
+          started.cancel(true);
+        }
+      }
+      started.whenComplete(this::finish);
+    }
+
+    private void finish(final V value, final Throwable error) {
+      SingleFlight.this.flights.remove(this.key, this);
+
+      if(error != null) {
+        this.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+      } else {
+        this.result.complete(value);
+      }
+    }
+
+    private synchronized CompletableFuture<V> subscribe() {
+      if(this.abandoned) {
+        return null;
+      }
+
+      this.subscribers++;
+
+      final CompletableFuture<V> subscriber = new CompletableFuture<>();
+      this.result.whenComplete((value, error) -> {
+        if(error != null) {
+          subscriber.completeExceptionally(error);
+        } else {
+          subscriber.complete(value);
+        }
+      });
+      subscriber.whenComplete((value, error) -> {
+        if(subscriber.isCancelled()) {
+          this.unsubscribe();
+        }
+      });
+
+      return subscriber;
+    }
+
+    private void unsubscribe() {
+      final CompletableFuture<V> cancelled;
+      synchronized(this) {
+        if(--this.subscribers > 0 || this.result.isDone()) {
+          return;
+        }
+
+        this.abandoned = true;
+        cancelled = this.operation;
+      }
+
+      SingleFlight.this.flights.remove(this.key, this);
+      if(cancelled != null) {
+        cancelled.cancel(true);
+      }
+    }
+  }
+}
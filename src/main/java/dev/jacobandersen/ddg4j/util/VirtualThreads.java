@@ -0,0 +1,60 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Provides access to virtual threads on runtimes that support them.
+ * <p>This is the Java 8 implementation, where virtual threads are never available. Java 21 and newer load an
+ * implementation from the multi-release section of the jar instead.</p>
+ *
+ * @since 1.1.0
+ */
+public final class VirtualThreads {
+  private VirtualThreads() {
+  }
+
+  /**
+   * Whether or not the running JVM supports virtual threads.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public static boolean isSupported() {
+    return false;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for each task.
+   *
+   * @param name the name prefix for the created threads
+   * @return the executor
+   * @throws UnsupportedOperationException if virtual threads are not {@link #isSupported() supported}
+   * @since 1.1.0
+   */
+  public static ExecutorService newExecutor(final String name) {
+    throw new UnsupportedOperationException("Virtual threads require Java 21 or newer");
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A {@link Transport} on the JDK's own {@code java.net.http} client, which multiplexes concurrent requests over a
+ * few HTTP/2 connections instead of holding a pooled connection for each.
+ * <p>This is the Java 11 implementation, loaded from the multi-release section of the jar. HTTP/2 is negotiated
+ * over TLS, and plain HTTP connections are offered an upgrade to it; servers that decline are spoken to over
+ * HTTP/1.1.</p>
+ *
+ * @since 1.1.0
+ */
+public final class JdkHttpTransport implements Transport {
+  private final HttpClient http;
+  private final Duration requestTimeout;
+  private final ExecutorService ownedExecutor;
+
+  private JdkHttpTransport(final Builder builder) {
+    this.requestTimeout = builder.requestTimeout;
+    this.ownedExecutor = builder.executor == null ? Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "ddg4j-http");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
+    this.http = HttpClient.newBuilder()
+            .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+            .connectTimeout(builder.connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(builder.executor != null ? builder.executor : this.ownedExecutor)
+            .build();
+  }
+
+  /**
+   * Whether or not the running JVM has the JDK HTTP client.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public static boolean isSupported() {
+    return true;
+  }
+
+  /**
+   * Creates a new transport builder.
+   *
+   * @return the transport builder
+   * @since 1.1.0
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @Override
+  public <T> T send(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+    final HttpResponse<InputStream> response;
+    try {
+      response = this.http.send(this.request(request), HttpResponse.BodyHandlers.ofInputStream());
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a response");
+    }
+
+    return handle(response, handler);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> sendAsync(final TransportRequest request, final ResponseHandler<T> handler) {
+    final CompletableFuture<HttpResponse<InputStream>> response = this.http.sendAsync(this.request(request), HttpResponse.BodyHandlers.ofInputStream());
+    // the body arrives on the client's executor while the handler blocks reading it on another of its threads
+    final CompletableFuture<T> result = response.thenApply(value -> {
+      try {
+        return handle(value, handler);
+      } catch(final IOException ex) {
+        throw new CompletionException(ex);
+      }
+    });
+    result.whenComplete((value, error) -> {
+      // older JDKs ignore cancelling a response once its headers are in, but closing its body fails the handler's read
+      if(result.isCancelled() && !response.cancel(true) && !response.isCompletedExceptionally()) {
+        try {
+          response.join().body().close();
+        } catch(final IOException ex) {
+          // the handler is failing already
+        }
+      }
+    });
+    return result;
+  }
+
+  private HttpRequest request(final TransportRequest request) {
+    final HttpRequest.Builder builder = HttpRequest.newBuilder(request.uri()).timeout(this.requestTimeout).GET();
+    for(final Map.Entry<String, String> header : request.headers().entrySet()) {
+      builder.header(header.getKey(), header.getValue());
+    }
+
+    return builder.build();
+  }
+
+  private static <T> T handle(final HttpResponse<InputStream> response, final ResponseHandler<T> handler) throws IOException {
+    try(InputStream body = response.body()) {
+      final T value = handler.handle(new Response(response.statusCode(), response.headers(), body));
+      // closing a body that has not been read to the end would throw away its HTTP/1.1 connection
+      body.transferTo(OutputStream.nullOutputStream());
+      return value;
+    }
+  }
+
+  /**
+   * Shuts down the threads owned by this transport.
+   *
+   * @since 1.1.0
+   */
+  @Override
+  public void close() {
+    if(this.ownedExecutor != null) {
+      this.ownedExecutor.shutdown();
+    }
+  }
+
+  private static final class Response implements TransportResponse {
+    private final int status;
+    private final HttpHeaders headers;
+    private final InputStream body;
+
+    private Response(final int status, final HttpHeaders headers, final InputStream body) {
+      this.status = status;
+      this.headers = headers;
+      // decoders close what they read from, and the body has to stay open to be drained
+      this.body = new FilterInputStream(body) {
+        @Override
+        public void close() {
+        }
+      };
+    }
+
+    @Override
+    public int status() {
+      return this.status;
+    }
+
+    @Override
+    public String header(final String name) {
+      return this.headers.firstValue(name).orElse(null);
+    }
+
+    @Override
+    public InputStream body() {
+      return this.body;
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link JdkHttpTransport}s.
+   *
+   * @since 1.1.0
+   */
+  public static final class Builder {
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration requestTimeout = Duration.ofSeconds(60);
+    private boolean http2 = true;
+    private Executor executor;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets how long to wait for a connection to be established. Defaults to 10 seconds.
+     *
+     * @param connectTimeout the connect timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder connectTimeout(final Duration connectTimeout) {
+      this.connectTimeout = Objects.requireNonNull(connectTimeout, "connectTimeout");
+      return this;
+    }
+
+    /**
+     * Sets how long to wait for the response to a request to start arriving. Defaults to 60 seconds.
+     *
+     * @param requestTimeout the request timeout
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder requestTimeout(final Duration requestTimeout) {
+      this.requestTimeout = Objects.requireNonNull(requestTimeout, "requestTimeout");
+      return this;
+    }
+
+    /**
+     * Sets whether to prefer HTTP/2, falling back to HTTP/1.1 for servers that do not speak it, or to always use
+     * HTTP/1.1. Defaults to true.
+     *
+     * @param http2 whether or not to prefer HTTP/2
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder http2(final boolean http2) {
+      this.http2 = http2;
+      return this;
+    }
+
+    /**
+     * Sets the executor responses are received and handled on, or null for a pool of daemon threads owned by the
+     * transport. Defaults to null. The executor must not bound its number of threads, as handlers block reading the
+     * body. An executor set here is not shut down with the transport.
+     *
+     * @param executor the executor
+     * @return this builder
+     * @since 1.1.0
+     */
+    public Builder executor(final Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Builds a new {@link JdkHttpTransport} from this builder's configuration.
+     *
+     * @return the transport
+     * @since 1.1.0
+     */
+    public JdkHttpTransport build() {
+      return new JdkHttpTransport(this);
+    }
+  }
+}
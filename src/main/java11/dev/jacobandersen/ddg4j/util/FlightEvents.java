@@ -0,0 +1,230 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.api.Type;
+import jdk.jfr.EventType;
+
+/**
+ * Emits JDK Flight Recorder events for searches, decoding, cache lookups and retries.
+ * <p>This is the Java 11 implementation, loaded from the multi-release section of the jar. Its events are named
+ * {@code ddg4j.Search}, {@code ddg4j.Deserialize}, {@code ddg4j.CacheLookup} and {@code ddg4j.Retry}. On a
+ * runtime without the {@code jdk.jfr} module nothing is emitted.</p>
+ * <p>Each timed event is begun with a {@code begin} method, which returns null unless a recording has the event
+ * enabled, and finished with the matching {@code commit} method, which does nothing when passed null. Queries are
+ * identified by the hash of their {@linkplain Queries#normalize(String) normalized} form, never their text.</p>
+ *
+ * @since 1.1.0
+ */
+public final class FlightEvents {
+  private static final boolean SUPPORTED = supported();
+
+  private FlightEvents() {
+  }
+
+  /**
+   * Whether or not the running JVM can record these events.
+   *
+   * @return true or false
+   * @since 1.1.0
+   */
+  public static boolean isSupported() {
+    return SUPPORTED;
+  }
+
+  /**
+   * Begins a {@code ddg4j.Search} event.
+   *
+   * @return the event, or null if it is not being recorded
+   * @since 1.1.0
+   */
+  public static Object beginSearch() {
+    if(!SUPPORTED || !Types.SEARCH.isEnabled()) {
+      return null;
+    }
+
+    final SearchEvent event = new SearchEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a {@code ddg4j.Search} event.
+   *
+   * @param event the event, or null
+   * @param query the query searched for
+   * @param type the type of the result, or null if the search failed
+   * @param cached whether or not the result was served from a cache
+   * @param projected whether or not only part of the result was decoded
+   * @param error the error the search failed with, or null
+   * @since 1.1.0
+   */
+  public static void commitSearch(final Object event, final String query, final Type type, final boolean cached, final boolean projected, final Throwable error) {
+    if(event == null) {
+      return;
+    }
+
+    final SearchEvent search = (SearchEvent) event;
+    search.end();
+    if(search.shouldCommit()) {
+      search.queryHash = hash(query);
+      search.type = type != null ? type.name() : null;
+      search.cached = cached;
+      search.projected = projected;
+      search.error = error != null ? error.getClass().getName() + ": " + error.getMessage() : null;
+      search.status = error instanceof SearchException ? ((SearchException) error).status() : -1;
+      search.commit();
+    }
+  }
+
+  /**
+   * Begins a {@code ddg4j.Deserialize} event.
+   *
+   * @return the event, or null if it is not being recorded
+   * @since 1.1.0
+   */
+  public static Object beginDeserialize() {
+    if(!SUPPORTED || !Types.DESERIALIZE.isEnabled()) {
+      return null;
+    }
+
+    final DeserializeEvent event = new DeserializeEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a {@code ddg4j.Deserialize} event.
+   *
+   * @param event the event, or null
+   * @param query the query the response is for
+   * @param type the type of the decoded result, or null if it could not be decoded
+   * @param payloadSize the size of the response body, in bytes
+   * @param lazy whether or not the result was left to decode lazily
+   * @param projected whether or not only part of the result was decoded
+   * @since 1.1.0
+   */
+  public static void commitDeserialize(final Object event, final String query, final Type type, final long payloadSize, final boolean lazy, final boolean projected) {
+    if(event == null) {
+      return;
+    }
+
+    final DeserializeEvent deserialize = (DeserializeEvent) event;
+    deserialize.end();
+    if(deserialize.shouldCommit()) {
+      deserialize.queryHash = hash(query);
+      deserialize.type = type != null ? type.name() : null;
+      deserialize.payloadSize = payloadSize;
+      deserialize.lazy = lazy;
+      deserialize.projected = projected;
+      deserialize.commit();
+    }
+  }
+
+  /**
+   * Begins a {@code ddg4j.CacheLookup} event.
+   *
+   * @return the event, or null if it is not being recorded
+   * @since 1.1.0
+   */
+  public static Object beginCacheLookup() {
+    if(!SUPPORTED || !Types.CACHE_LOOKUP.isEnabled()) {
+      return null;
+    }
+
+    final CacheLookupEvent event = new CacheLookupEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Commits a {@code ddg4j.CacheLookup} event.
+   *
+   * @param event the event, or null
+   * @param query the query looked up
+   * @param tier the cache looked in, such as "memory" or "disk"
+   * @param hit whether or not the query was found
+   * @param payloadSize the size of the cached response, in bytes, or -1 if it is not known
+   * @since 1.1.0
+   */
+  public static void commitCacheLookup(final Object event, final String query, final String tier, final boolean hit, final long payloadSize) {
+    if(event == null) {
+      return;
+    }
+
+    final CacheLookupEvent lookup = (CacheLookupEvent) event;
+    lookup.end();
+    if(lookup.shouldCommit()) {
+      lookup.queryHash = hash(query);
+      lookup.tier = tier;
+      lookup.hit = hit;
+      lookup.payloadSize = payloadSize;
+      lookup.commit();
+    }
+  }
+
+  /**
+   * Emits a {@code ddg4j.Retry} event, marking another attempt at a request.
+   *
+   * @param query the query being retried
+   * @param attempt the attempt about to be made, starting from 2 for the first retry
+   * @param reason why the request is being retried
+   * @since 1.1.0
+   */
+  public static void retry(final String query, final int attempt, final String reason) {
+    if(!SUPPORTED || !Types.RETRY.isEnabled()) {
+      return;
+    }
+
+    final RetryEvent event = new RetryEvent();
+    event.queryHash = hash(query);
+    event.attempt = attempt;
+    event.reason = reason;
+    event.commit();
+  }
+
+  private static int hash(final String query) {
+    return Queries.normalize(query).hashCode();
+  }
+
+  private static boolean supported() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, FlightEvents.class.getClassLoader());
+      return true;
+    } catch(final ClassNotFoundException | LinkageError ex) {
+      // a runtime image built without the jdk.jfr module
+      return false;
+    }
+  }
+
+  /*
+   * Only loaded once jdk.jfr is known to be present.
+   */
+  private static final class Types {
+    private static final EventType SEARCH = EventType.getEventType(SearchEvent.class);
+    private static final EventType DESERIALIZE = EventType.getEventType(DeserializeEvent.class);
+    private static final EventType CACHE_LOOKUP = EventType.getEventType(CacheLookupEvent.class);
+    private static final EventType RETRY = EventType.getEventType(RetryEvent.class);
+  }
+}
@@ -0,0 +1,306 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j;
+
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.api.Type;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.limit.LimitExceededException;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.transport.ResponseHandler;
+import dev.jacobandersen.ddg4j.transport.Transport;
+import dev.jacobandersen.ddg4j.transport.TransportRequest;
+import dev.jacobandersen.ddg4j.transport.UnirestTransport;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import dev.jacobandersen.ddg4j.util.VirtualThreads;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DuckDuckGoClientTest {
+  private static final List<String> QUERIES = Arrays.asList("valley forge national park", "simpsons characters", "apple", "!imdb rushmore", "what is my ip address");
+  private static final String[] FIXTURES = {"article", "category", "disambiguation", "bang", "answer"};
+
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+  private StubServer server;
+
+  @BeforeEach
+  public void start() throws IOException {
+    // answer in a random order, so that results arriving out of order would show
+    this.server = StubServer.builder()
+            .recorded()
+            .fallback("{".getBytes(StandardCharsets.UTF_8))
+            .faults(Faults.builder().latency(random -> TimeUnit.MILLISECONDS.toNanos(random.nextInt(40))).build())
+            .start();
+  }
+
+  @AfterEach
+  public void stop() throws IOException {
+    this.server.close();
+  }
+
+  @Test
+  @DisplayName("The builder should reject pool sizes and timeouts that are not positive")
+  public void testBuilderValidation() {
+    final DuckDuckGoClient.Builder builder = DuckDuckGoClient.builder();
+    assertThrows(IllegalArgumentException.class, () -> builder.maxConnections(0));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxConnectionsPerRoute(-1));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxInFlightRequests(0));
+    assertThrows(IllegalArgumentException.class, () -> builder.maxQueuedRequests(-1));
+    assertThrows(IllegalArgumentException.class, () -> builder.connectTimeout(Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> builder.socketTimeout(Duration.ofMillis(-1)));
+    assertThrows(IllegalArgumentException.class, () -> builder.connectionTtl(Duration.ZERO));
+    assertThrows(NullPointerException.class, () -> builder.connectTimeout(null));
+    assertThrows(NullPointerException.class, () -> builder.baseUrl(null));
+
+    builder.maxConnections(1).maxConnectionsPerRoute(1).maxQueuedRequests(0).socketTimeout(Duration.ofMillis(1));
+    try(DuckDuckGoClient client = builder.baseUrl(this.server.baseUrl()).socketTimeout(Duration.ofSeconds(5)).build()) {
+      assertEquals("Valley Forge National Historical Park", client.search("valley forge national park").topicAbstract().heading());
+    }
+  }
+
+  @Test
+  @DisplayName("Clients should not share timeouts, caches or connection pools, nor be affected by each other closing")
+  public void testIsolation() {
+    this.server.faults(Faults.builder().latency(random -> TimeUnit.MILLISECONDS.toNanos(300)).build());
+    try(DuckDuckGoClient impatient = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).socketTimeout(Duration.ofMillis(50)).build();
+        DuckDuckGoClient patient = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).cache(ResultCache.builder().build()).build()) {
+      assertEquals(-1, assertThrows(SearchException.class, () -> impatient.search("apple")).status());
+      assertEquals(Type.D, patient.search("apple").type());
+      assertEquals(Type.D, patient.search("apple").type());
+      assertEquals(2, this.server.requests("apple"));
+
+      // the patient client's cache is its own
+      assertThrows(SearchException.class, () -> impatient.search("apple"));
+      assertEquals(3, this.server.requests("apple"));
+
+      impatient.close();
+      assertEquals(Type.C, patient.search("simpsons characters").type());
+    }
+  }
+
+  @Test
+  @DisplayName("One client should be safe to share between many threads searching at once")
+  public void testConcurrentSharing() throws InterruptedException, ExecutionException {
+    final ExecutorService executor = Executors.newFixedThreadPool(16);
+    try(DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).maxConnectionsPerRoute(8).build()) {
+      final List<Future<?>> futures = new ArrayList<>();
+      for(int thread = 0; thread < 16; thread++) {
+        final int offset = thread;
+        futures.add(executor.submit(() -> {
+          for(int i = 0; i < 20; i++) {
+            final int query = (offset + i) % QUERIES.size();
+            assertEquals(this.mapper.readValue(Fixtures.read(FIXTURES[query]), SearchResult.class), client.search(QUERIES.get(query)), QUERIES.get(query));
+          }
+        }));
+      }
+      for(final Future<?> future : futures) {
+        future.get();
+      }
+
+      assertEquals(0, client.inFlightRequests());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("An asynchronous search should return at once, and complete when the response arrives")
+  public void testSearchAsync() {
+    this.server.faults(Faults.builder().latency(random -> TimeUnit.MILLISECONDS.toNanos(300)).build());
+    try(DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).build()) {
+      client.search("apple");
+
+      final long start = System.nanoTime();
+      final CompletableFuture<SearchResult> future = client.searchAsync("valley forge national park");
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(150), "the caller should not wait for the response");
+      assertFalse(future.isDone());
+      assertEquals(1, client.inFlightRequests());
+
+      assertEquals("Valley Forge National Historical Park", future.join().topicAbstract().heading());
+      assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(300));
+    }
+  }
+
+  @Test
+  @DisplayName("No more asynchronous searches than the in-flight cap should be sent at once")
+  public void testSearchAsyncCap() {
+    this.server.faults(Faults.builder().latency(random -> TimeUnit.MILLISECONDS.toNanos(20)).build());
+    try(Recording transport = new Recording(); DuckDuckGoClient client = this.client(transport).maxInFlightRequests(3).coalesceRequests(false).build()) {
+      final List<CompletableFuture<SearchResult>> futures = new ArrayList<>();
+      for(int i = 0; i < 30; i++) {
+        futures.add(client.searchAsync(QUERIES.get(i % QUERIES.size())));
+      }
+      assertTrue(client.inFlightRequests() <= 3);
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+      assertEquals(30, transport.async.get());
+      assertEquals(3, transport.maxActive.get());
+      assertEquals(0, client.inFlightRequests());
+    }
+  }
+
+  @Test
+  @DisplayName("A failed asynchronous search should complete its future exceptionally rather than throw")
+  public void testSearchAsyncFailure() throws IOException {
+    try(DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).maxInFlightRequests(1).maxQueuedRequests(0).build()) {
+      this.server.faults(Faults.builder().status(1, 503).build());
+      final CompletableFuture<SearchResult> unavailable = client.searchAsync("apple");
+      assertEquals(503, cause(unavailable).status());
+
+      this.server.faults(Faults.builder().latency(random -> TimeUnit.MILLISECONDS.toNanos(200)).build());
+      final CompletableFuture<SearchResult> slow = client.searchAsync("apple");
+      assertTrue(cause(client.searchAsync("simpsons characters")) instanceof LimitExceededException);
+      slow.join();
+
+      this.server.close();
+      assertEquals(-1, cause(client.searchAsync("apple")).status());
+    }
+  }
+
+  @Test
+  @DisplayName("Searching for many queries should return their results in the order of the queries")
+  public void testSearchAll() {
+    try(Recording transport = new Recording(); DuckDuckGoClient client = this.client(transport).virtualThreads(false).build()) {
+      assertFalse(client.usesVirtualThreads());
+      for(int i = 0; i < 5; i++) {
+        this.assertResults(client.searchAll(QUERIES));
+      }
+
+      // without virtual threads, every search is sent asynchronously, never blocking a thread of its own
+      assertEquals(5 * QUERIES.size(), transport.async.get());
+      assertTrue(transport.threads.isEmpty());
+    }
+  }
+
+  @Test
+  @DisplayName("A failed search should fail the whole fan-out with its own exception")
+  public void testSearchAllFailure() {
+    final List<String> queries = new ArrayList<>(QUERIES);
+    queries.add(2, "not recorded");
+    try(DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).virtualThreads(false).build()) {
+      // the stub answers queries it has no recording for with a truncated body
+      assertEquals(-1, assertThrows(SearchException.class, () -> client.searchAll(queries)).status());
+
+      this.server.faults(Faults.builder().status(1, 503).build());
+      assertEquals(503, assertThrows(SearchException.class, () -> client.searchAll(QUERIES)).status());
+    }
+  }
+
+  @Test
+  @DisplayName("On Java 21 and newer, each query in a fan-out should be searched on its own virtual thread")
+  public void testSearchAllVirtualThreads() throws ReflectiveOperationException {
+    // on Java 21 and newer the tests run with the overlay in front, so virtual threads are always tested there
+    assertEquals(Fixtures.javaVersion() >= 21, VirtualThreads.isSupported());
+    if(!VirtualThreads.isSupported()) {
+      assertThrows(UnsupportedOperationException.class, () -> DuckDuckGoClient.builder().virtualThreads(true));
+      return;
+    }
+
+    try(Recording transport = new Recording(); DuckDuckGoClient client = this.client(transport).build()) {
+      assertTrue(client.usesVirtualThreads());
+      this.assertResults(client.searchAll(QUERIES));
+
+      assertEquals(0, transport.async.get());
+      assertEquals(QUERIES.size(), transport.threads.size());
+      for(final Thread thread : transport.threads) {
+        assertTrue(thread.getName().startsWith("ddg4j-search-"), thread.getName());
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread), thread.getName());
+      }
+    }
+  }
+
+  private DuckDuckGoClient.Builder client(final Transport transport) {
+    return DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).transport(transport);
+  }
+
+  private static SearchException cause(final CompletableFuture<SearchResult> future) {
+    final CompletionException ex = assertThrows(CompletionException.class, future::join);
+    assertTrue(future.isCompletedExceptionally());
+    assertTrue(ex.getCause() instanceof SearchException, String.valueOf(ex.getCause()));
+    return (SearchException) ex.getCause();
+  }
+
+  private void assertResults(final List<SearchResult> results) {
+    assertEquals(FIXTURES.length, results.size());
+    for(int i = 0; i < FIXTURES.length; i++) {
+      assertEquals(this.mapper.readValue(Fixtures.read(FIXTURES[i]), SearchResult.class), results.get(i), QUERIES.get(i));
+    }
+  }
+
+  /*
+   * Sends with Unirest, noting the threads blocking sends are made on, and how many are made asynchronously and at
+   * most at once.
+   */
+  private static final class Recording implements Transport {
+    private final Transport delegate = UnirestTransport.builder().build();
+    private final Queue<Thread> threads = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger async = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    @Override
+    public <T> T send(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+      this.threads.add(Thread.currentThread());
+      return this.delegate.send(request, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAsync(final TransportRequest request, final ResponseHandler<T> handler) {
+      this.async.incrementAndGet();
+      this.maxActive.accumulateAndGet(this.active.incrementAndGet(), Math::max);
+      return this.delegate.sendAsync(request, handler).whenComplete((result, error) -> this.active.decrementAndGet());
+    }
+
+    @Override
+    public void close() {
+      this.delegate.close();
+    }
+  }
+}
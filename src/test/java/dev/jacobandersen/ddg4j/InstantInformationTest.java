@@ -23,13 +23,34 @@
  */
 package dev.jacobandersen.ddg4j;
 
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class InstantInformationTest {
+  // replays responses recorded from DuckDuckGo, so the test runs offline and repeatably
+  private static StubServer server;
+  private static DuckDuckGoClient client;
+
+  @BeforeAll
+  public static void start() throws IOException {
+    server = StubServer.builder().recorded().start();
+    client = DuckDuckGoClient.builder().baseUrl(server.baseUrl()).build();
+  }
+
+  @AfterAll
+  public static void stop() throws IOException {
+    client.close();
+    server.close();
+  }
+
   @Test
   @DisplayName("A request known to result in a topic abstract should show topic abstract instant information")
   public void testTopicAbstractInstantInformation() {
@@ -67,6 +88,6 @@ public class InstantInformationTest {
   }
 
   private String instant(final String query) {
-    return DuckDuckGo.search(query).instantInformation();
+    return client.search(query).instantInformation();
   }
 }
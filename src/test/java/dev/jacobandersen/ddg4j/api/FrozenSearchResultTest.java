@@ -0,0 +1,125 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrozenSearchResultTest {
+  private static final String[] FIXTURES = {"article", "category", "disambiguation", "bang", "answer"};
+
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+
+  @Test
+  @DisplayName("A frozen result should be equal to, and hash like, the result it was frozen from")
+  public void testEqualToOriginal() {
+    for(final String fixture : FIXTURES) {
+      final SearchResult result = this.decode(fixture);
+      final SearchResult frozen = result.freeze();
+
+      assertTrue(frozen.isFrozen(), fixture);
+      assertSame(frozen, frozen.freeze(), fixture);
+      assertEquals(result, frozen, fixture);
+      assertEquals(frozen, result, fixture);
+      assertEquals(result.hashCode(), frozen.hashCode(), fixture);
+      assertEquals(result.fingerprint(), frozen.fingerprint(), fixture);
+      assertEquals(result.instantInformation(), frozen.instantInformation(), fixture);
+      assertSame(frozen.instantInformation(), frozen.instantInformation(), fixture);
+      assertEquals(frozen, SearchResult.lazy(Fixtures.read(fixture)).freeze(), fixture);
+    }
+  }
+
+  @Test
+  @DisplayName("Different results should have different fingerprints")
+  public void testFingerprints() {
+    for(int i = 0; i < FIXTURES.length; i++) {
+      for(int j = i + 1; j < FIXTURES.length; j++) {
+        assertNotEquals(this.decode(FIXTURES[i]).fingerprint(), this.decode(FIXTURES[j]).fingerprint());
+      }
+    }
+
+    final SearchResult result = this.decode("disambiguation");
+    final long before = result.fingerprint();
+    result.addResult(new ResultItem("u", new Icon("", -1, -1), "h", "t"));
+    assertNotEquals(before, result.fingerprint());
+  }
+
+  @Test
+  @DisplayName("Results equal with a missing field and an empty one should have equal fingerprints")
+  public void testMissingFieldFingerprints() {
+    final SearchResult missing = SearchResult.builder(Type.A)
+            .topicAbstract(new TopicAbstract("h", null, "t", null, "u", null))
+            .answer(new Answer(null, Answer.Type.CALC))
+            .definition(new Definition(null, "s", null))
+            .result(new ResultItem(null, new Icon(null, -1, -1), "h", null))
+            .redirect(new Redirect(null))
+            .build();
+    final SearchResult empty = SearchResult.builder(Type.A)
+            .topicAbstract(new TopicAbstract("h", "", "t", "", "u", ""))
+            .answer(new Answer("", Answer.Type.CALC))
+            .definition(new Definition("", "s", ""))
+            .result(new ResultItem("", new Icon("", -1, -1), "h", ""))
+            .redirect(new Redirect(""))
+            .build();
+
+    assertEquals(missing, empty);
+    assertEquals(missing.hashCode(), empty.hashCode());
+    assertEquals(missing.fingerprint(), empty.fingerprint());
+    assertEquals(missing.freeze(), empty.freeze());
+    assertEquals(missing.freeze(), empty);
+  }
+
+  @Test
+  @DisplayName("A frozen result should reject every change, and be unaffected by changes to the original")
+  public void testImmutable() {
+    final SearchResult result = this.decode("disambiguation");
+    final SearchResult frozen = result.freeze();
+    final ResultItem item = new ResultItem("u", new Icon("", -1, -1), "h", "t");
+
+    assertThrows(UnsupportedOperationException.class, () -> frozen.addRelatedTopic(item));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.results(Collections.singletonList(item)));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.redirect(new Redirect("r")));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.relatedTopics().add(item));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.relatedTopics().set(0, item));
+
+    result.addRelatedTopic(item);
+    assertEquals(5, frozen.relatedTopics().size());
+    assertFalse(frozen.equals(result));
+  }
+
+  private SearchResult decode(final String fixture) {
+    return this.mapper.readValue(Fixtures.read(fixture), SearchResult.class);
+  }
+}
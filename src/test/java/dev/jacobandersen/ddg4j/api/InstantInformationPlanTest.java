@@ -0,0 +1,92 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import dev.jacobandersen.ddg4j.util.IllegalIndexException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InstantInformationPlanTest {
+  private static final String[][] PRIORITIES = {
+          {"answer", "abstract", "related.0", "definition", "redirect"},
+          {"related.2", "result.0", "abstract"},
+          {"related", "related.x", "related..1", "unknown", "result.99", "redirect"},
+          {"definition.3", "abstract.0"},
+          {}
+  };
+
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+
+  @Test
+  @DisplayName("A compiled plan should give the same answer as the priorities it was compiled from")
+  public void testEquivalence() {
+    for(final String fixture : new String[]{"article", "category", "disambiguation", "bang", "answer"}) {
+      final SearchResult result = this.mapper.readValue(Fixtures.read(fixture), SearchResult.class);
+
+      assertEquals(result.instantInformation(InstantInformationPlan.DEFAULT.priorities()), result.instantInformation(), fixture);
+      for(final String[] priorities : PRIORITIES) {
+        assertEquals(result.instantInformation(priorities), InstantInformationPlan.compile(priorities).apply(result), fixture);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Rendering should write exactly the instant information, and nothing when there is none")
+  public void testRender() throws IOException {
+    for(final String fixture : new String[]{"article", "category", "disambiguation", "bang", "answer"}) {
+      final SearchResult result = this.mapper.readValue(Fixtures.read(fixture), SearchResult.class);
+
+      final StringBuilder builder = new StringBuilder();
+      assertEquals(!"Sorry, no results.".equals(result.instantInformation()), result.renderInstantInformation(builder), fixture);
+      assertEquals(result.instantInformation(), builder.length() == 0 ? "Sorry, no results." : builder.toString(), fixture);
+
+      for(final ResultItem item : result.relatedTopics()) {
+        final CharBuffer buffer = CharBuffer.allocate(4096);
+        assertEquals(item.instantInformation() != null, item.renderInstantInformation(buffer), fixture);
+        buffer.flip();
+        assertEquals(item.instantInformation() == null ? "" : item.instantInformation(), buffer.toString(), fixture);
+      }
+    }
+
+    final StringBuilder builder = new StringBuilder();
+    assertFalse(InstantInformationPlan.compile("unknown").render(SearchResult.lazy("{}".getBytes(StandardCharsets.UTF_8)), builder));
+    assertEquals(0, builder.length());
+  }
+
+  @Test
+  @DisplayName("A negative index should be rejected when the plan is compiled")
+  public void testIllegalIndex() {
+    assertThrows(IllegalIndexException.class, () -> InstantInformationPlan.compile("answer", "related.-1"));
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.api;
+
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazySearchResultTest {
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+
+  @Test
+  @DisplayName("A lazy result should be equal to the eagerly decoded result of the same response")
+  public void testEqualToEager() {
+    for(final String fixture : new String[]{"article", "category", "disambiguation", "bang", "answer"}) {
+      final byte[] body = Fixtures.read(fixture);
+      final SearchResult eager = this.mapper.readValue(body, SearchResult.class);
+      final SearchResult lazy = SearchResult.lazy(body);
+
+      assertEquals(eager.instantInformation(), lazy.instantInformation(), fixture);
+      assertEquals(eager, lazy, fixture);
+      assertEquals(eager.hashCode(), lazy.hashCode(), fixture);
+    }
+  }
+
+  @Test
+  @DisplayName("A lazy result should decode each related topic once and accept changes through its setters, not its lists")
+  public void testItemsAndMutation() {
+    final SearchResult lazy = SearchResult.lazy(Fixtures.read("disambiguation"));
+
+    assertEquals(5, lazy.relatedTopics().size());
+    assertSame(lazy.relatedTopics().get(3), lazy.relatedTopics().get(3));
+    assertEquals("https://duckduckgo.com/Apple_Corps", lazy.relatedTopics().get(3).url());
+
+    final ResultItem item = new ResultItem("u", new Icon("", -1, -1), "h", "t");
+    assertThrows(UnsupportedOperationException.class, () -> lazy.relatedTopics().add(item));
+    lazy.addRelatedTopic(item);
+    assertEquals(6, lazy.relatedTopics().size());
+    assertEquals("https://duckduckgo.com/Apple_Corps", lazy.relatedTopics().get(3).url());
+
+    for(int i = 0; i < 1000; i++) {
+      lazy.addRelatedTopic(item);
+    }
+    lazy.addRelatedTopics(Arrays.asList(item, item));
+    assertEquals(1008, lazy.relatedTopics().size());
+    assertThrows(UnsupportedOperationException.class, () -> lazy.relatedTopics().add(item));
+
+    lazy.results(Collections.singletonList(item));
+    lazy.addResult(item);
+    assertEquals(2, lazy.results().size());
+    assertThrows(UnsupportedOperationException.class, () -> lazy.results().clear());
+  }
+
+  @Test
+  @DisplayName("A frozen lazy result should share what has been decoded, reject changes and ignore the original's")
+  public void testFreeze() {
+    final SearchResult lazy = SearchResult.lazy(Fixtures.read("disambiguation"));
+    final ResultItem first = lazy.relatedTopics().get(0);
+    final SearchResult frozen = lazy.freeze();
+    final ResultItem item = new ResultItem("u", new Icon("", -1, -1), "h", "t");
+
+    assertTrue(frozen.isFrozen());
+    assertSame(frozen, frozen.freeze());
+    assertSame(first, frozen.relatedTopics().get(0));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.addRelatedTopic(item));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.redirect(new Redirect("r")));
+    assertThrows(UnsupportedOperationException.class, () -> frozen.results().add(item));
+
+    lazy.addRelatedTopic(item);
+    final SearchResult refrozen = lazy.freeze();
+    lazy.addRelatedTopic(item);
+    assertEquals(5, frozen.relatedTopics().size());
+    assertEquals(6, refrozen.relatedTopics().size());
+    assertThrows(UnsupportedOperationException.class, () -> refrozen.relatedTopics().remove(0));
+    assertEquals(frozen, this.mapper.readValue(Fixtures.read("disambiguation"), SearchResult.class).freeze());
+    assertNotEquals(frozen, refrozen);
+  }
+
+  @Test
+  @DisplayName("A lazy result should reject a response that is not a JSON object")
+  public void testInvalidResponse() {
+    assertThrows(UncheckedIOException.class, () -> SearchResult.lazy("[1,2]".getBytes("UTF-8")));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.breaker;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  @DisplayName("The breaker should open once enough recent requests fail, and fail fast until it is time to probe")
+  public void testOpen() {
+    final CircuitBreaker breaker = this.breaker().build();
+    for(int i = 0; i < 9; i++) {
+      assertTrue(breaker.tryAcquire());
+      breaker.onFailure(MILLIS);
+    }
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state(), "too few requests to tell");
+
+    breaker.onSuccess(MILLIS);
+    breaker.onFailure(MILLIS);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    assertFalse(breaker.tryAcquire());
+
+    this.clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertTrue(breaker.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+  }
+
+  @Test
+  @DisplayName("The breaker should open when every recent request is slow, even if none failed")
+  public void testSlowCalls() {
+    final CircuitBreaker breaker = this.breaker().slowCallThreshold(Duration.ofSeconds(1)).build();
+    for(int i = 0; i < 10; i++) {
+      breaker.onSuccess(TimeUnit.SECONDS.toNanos(2));
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+  }
+
+  @Test
+  @DisplayName("Half open, the breaker should let a few probes through, closing if they succeed and reopening if not")
+  public void testHalfOpen() {
+    final CircuitBreaker breaker = this.breaker().halfOpenCalls(2).build();
+    this.open(breaker);
+
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+    assertFalse(breaker.tryAcquire());
+    breaker.onIgnored();
+    assertTrue(breaker.tryAcquire(), "a probe that never completed should hand back its permit");
+    breaker.onSuccess(MILLIS);
+    breaker.onFailure(MILLIS);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+    this.clock.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertTrue(breaker.tryAcquire());
+    assertTrue(breaker.tryAcquire());
+    breaker.onSuccess(MILLIS);
+    breaker.onSuccess(MILLIS);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+  }
+
+  @Test
+  @DisplayName("While the breaker is open, searches should be served stale results, or fail fast without one")
+  public void testClient() throws IOException {
+    final Metrics metrics = new Metrics();
+    final CircuitBreaker breaker = CircuitBreaker.builder().windowSize(10).minimumCalls(10).build();
+    try(StubServer server = StubServer.builder().recorded().start();
+        DuckDuckGoClient client = DuckDuckGoClient.builder()
+                .baseUrl(server.baseUrl())
+                .cache(ResultCache.builder().expireAfterWrite(Duration.ofMillis(1)).staleFor(Duration.ofMinutes(1)).build())
+                .circuitBreaker(breaker)
+                .metrics(metrics)
+                .build()) {
+      final SearchResult apple = client.search("apple");
+
+      server.faults(Faults.builder().status(1, 503).build());
+      for(int i = 0; i < 9; i++) {
+        assertThrows(SearchException.class, () -> client.search("simpsons characters"));
+      }
+      assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+      final long sent = server.requests();
+
+      assertEquals(apple, client.search("apple"));
+      assertSame(client.search("apple"), client.searchAsync("APPLE").join());
+      assertThrows(CircuitOpenException.class, () -> client.search("simpsons characters"));
+      assertTrue(assertThrows(CompletionException.class, () -> client.searchAsync("valley forge national park").join())
+              .getCause() instanceof CircuitOpenException);
+
+      assertEquals(sent, server.requests());
+      assertEquals(5, metrics.count(Counter.SHORT_CIRCUITED));
+      assertEquals(3, metrics.count(Counter.STALE_HITS));
+    }
+  }
+
+  private CircuitBreaker.Builder breaker() {
+    return CircuitBreaker.builder()
+            .windowSize(10)
+            .minimumCalls(10)
+            .clock(this.clock::get);
+  }
+
+  private void open(final CircuitBreaker breaker) {
+    for(int i = 0; i < 10; i++) {
+      breaker.onFailure(MILLIS);
+    }
+    this.clock.addAndGet(Duration.ofSeconds(30).toNanos());
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskCacheTest {
+  private final AtomicLong clock = new AtomicLong(1_000_000L);
+  private Path directory;
+
+  @BeforeEach
+  public void createDirectory() throws IOException {
+    this.directory = Files.createTempDirectory("ddg4j-disk-cache");
+  }
+
+  @AfterEach
+  public void deleteDirectory() throws IOException {
+    try(Stream<Path> files = Files.walk(this.directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+    }
+  }
+
+  @Test
+  @DisplayName("Responses should be served by normalized query and survive reopening the cache")
+  public void testPersistence() throws IOException {
+    try(DiskCache cache = this.open(1024)) {
+      cache.put("Valley Forge", body("valley"));
+      cache.put("apple", body("apple"));
+      cache.put("APPLE", body("apple, again"));
+      cache.invalidate("valley forge");
+
+      assertNull(cache.get("valley forge"));
+      assertArrayEquals(body("apple, again"), cache.get(" apple "));
+    }
+
+    try(DiskCache cache = this.open(1024)) {
+      assertEquals(1, cache.size());
+      assertNull(cache.get("valley forge"));
+      assertArrayEquals(body("apple, again"), cache.get("apple"));
+    }
+  }
+
+  @Test
+  @DisplayName("Responses should expire after their time to live, including across reopening")
+  public void testExpiry() throws IOException {
+    try(DiskCache cache = this.open(1024)) {
+      cache.put("apple", body("apple"));
+      this.clock.addAndGet(Duration.ofMinutes(5).toMillis());
+      cache.put("banana", body("banana"));
+      this.clock.addAndGet(Duration.ofMinutes(6).toMillis());
+
+      assertNull(cache.get("apple"));
+      assertArrayEquals(body("banana"), cache.get("banana"));
+    }
+
+    this.clock.addAndGet(Duration.ofMinutes(5).toMillis());
+    try(DiskCache cache = this.open(1024)) {
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test
+  @DisplayName("Compaction should keep live responses and delete the space taken by dead ones")
+  public void testCompaction() throws IOException {
+    try(DiskCache cache = this.open(256)) {
+      for(int i = 0; i < 50; i++) {
+        cache.put("query " + (i % 5), body("response " + i));
+      }
+
+      final long before = cache.sizeOnDisk();
+      cache.compact();
+      assertTrue(cache.sizeOnDisk() < before);
+
+      for(int i = 0; i < 5; i++) {
+        assertArrayEquals(body("response " + (45 + i)), cache.get("query " + i));
+      }
+    }
+
+    try(DiskCache cache = this.open(256)) {
+      assertEquals(5, cache.size());
+      assertArrayEquals(body("response 49"), cache.get("query 4"));
+    }
+  }
+
+  @Test
+  @DisplayName("Responses written, invalidated and read while compaction copies should all be kept straight")
+  public void testConcurrentCompaction() throws IOException, InterruptedException {
+    final String[] latest = new String[20];
+    final AtomicBoolean done = new AtomicBoolean();
+    final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    try(DiskCache cache = this.open(512)) {
+      final Thread compactor = new Thread(() -> {
+        while(!done.get()) {
+          cache.compact();
+        }
+      });
+      final Thread reader = new Thread(() -> {
+        while(!done.get()) {
+          for(int i = 0; i < latest.length; i++) {
+            final byte[] body = cache.get("query " + i);
+            if(body != null && !new String(body, StandardCharsets.UTF_8).contains("query " + i + ",")) {
+              errors.add(new AssertionError("query " + i + " was answered with " + new String(body, StandardCharsets.UTF_8)));
+            }
+          }
+        }
+      });
+      compactor.setUncaughtExceptionHandler((thread, ex) -> errors.add(ex));
+      reader.setUncaughtExceptionHandler((thread, ex) -> errors.add(ex));
+      compactor.start();
+      reader.start();
+
+      for(int i = 0; i < 5000; i++) {
+        final int query = i % latest.length;
+        if(i % 7 == 0) {
+          cache.invalidate("query " + query);
+          latest[query] = null;
+        } else {
+          latest[query] = "query " + query + ", response " + i;
+          cache.put("query " + query, body(latest[query]));
+        }
+      }
+      done.set(true);
+      compactor.join();
+      reader.join();
+
+      assertTrue(errors.isEmpty(), String.valueOf(errors.peek()));
+      this.assertLatest(cache, latest);
+      cache.compact();
+      this.assertLatest(cache, latest);
+    }
+
+    try(DiskCache cache = this.open(512)) {
+      this.assertLatest(cache, latest);
+    }
+  }
+
+  @Test
+  @DisplayName("A torn record at the end of a segment should be discarded when the cache is opened")
+  public void testTornWrite() throws IOException {
+    try(DiskCache cache = this.open(1024)) {
+      cache.put("apple", body("apple"));
+      cache.put("banana", body("banana"));
+    }
+
+    final Path segment;
+    try(Stream<Path> files = Files.list(this.directory)) {
+      segment = files.filter(file -> file.toString().endsWith(".segment")).findFirst().orElseThrow(IllegalStateException::new);
+    }
+    try(FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    try(DiskCache cache = this.open(1024)) {
+      assertArrayEquals(body("apple"), cache.get("apple"));
+      assertNull(cache.get("banana"));
+
+      cache.put("banana", body("banana"));
+      assertArrayEquals(body("banana"), cache.get("banana"));
+    }
+  }
+
+  @Test
+  @DisplayName("A directory should only be opened by one disk cache at a time")
+  public void testExclusive() throws IOException {
+    try(DiskCache cache = this.open(1024)) {
+      assertThrows(IOException.class, () -> this.open(1024));
+    }
+  }
+
+  private void assertLatest(final DiskCache cache, final String[] latest) {
+    for(int i = 0; i < latest.length; i++) {
+      if(latest[i] == null) {
+        assertNull(cache.get("query " + i), "query " + i);
+      } else {
+        assertArrayEquals(body(latest[i]), cache.get("query " + i), "query " + i);
+      }
+    }
+  }
+
+  private DiskCache open(final long segmentSize) throws IOException {
+    return DiskCache.builder(this.directory)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .segmentSize(segmentSize)
+            .clock(this.clock::get)
+            .build();
+  }
+
+  private static byte[] body(final String text) {
+    return ("{\"Heading\":\"" + text + "\"}").getBytes(StandardCharsets.UTF_8);
+  }
+}
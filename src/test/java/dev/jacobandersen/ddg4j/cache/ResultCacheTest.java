@@ -0,0 +1,204 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.cache;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.util.CustomObjectMapper;
+import dev.jacobandersen.ddg4j.util.Queries;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResultCacheTest {
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+
+  @Test
+  @DisplayName("Queries should normalize whitespace and case, returning normalized queries as-is")
+  public void testNormalize() {
+    assertEquals("valley forge", Queries.normalize("  Valley \t\nFORGE "));
+    assertEquals("", Queries.normalize("   "));
+
+    final String normalized = "valley forge";
+    assertSame(normalized, Queries.normalize(normalized));
+  }
+
+  @Test
+  @DisplayName("Queries that normalize to the same key should share a cached, frozen result")
+  public void testNormalizedKeys() {
+    final ResultCache cache = ResultCache.builder().build();
+    final SearchResult result = this.mapper.readValue(Fixtures.read("article"), SearchResult.class);
+
+    cache.put("Valley Forge", result);
+    final SearchResult cached = cache.get(" valley   forge");
+    assertEquals(result, cached);
+    assertTrue(cached.isFrozen());
+    assertSame(cached, cache.get("valley forge"));
+    assertNull(cache.get("valley"));
+
+    final CacheStats stats = cache.stats();
+    assertEquals(2, stats.hitCount());
+    assertEquals(1, stats.missCount());
+    assertEquals(2.0 / 3, stats.hitRate());
+    assertTrue(stats.weightedSize() >= result.estimatedSize());
+
+    cache.invalidate("VALLEY FORGE");
+    assertNull(cache.get("valley forge"));
+  }
+
+  @Test
+  @DisplayName("Expired results should only be served stale, and only until they are too stale to keep")
+  public void testStale() {
+    final AtomicLong ticker = new AtomicLong();
+    final ResultCache cache = ResultCache.builder()
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .staleFor(Duration.ofMinutes(10))
+            .ticker(ticker::get)
+            .build();
+    final SearchResult result = this.mapper.readValue(Fixtures.read("article"), SearchResult.class);
+
+    cache.put("valley forge", result);
+    assertEquals(result, cache.get("valley forge"));
+    assertEquals(result, cache.getStale("valley forge"));
+
+    ticker.addAndGet(Duration.ofMinutes(6).toNanos());
+    assertNull(cache.get("valley forge"));
+    assertEquals(result, cache.getStale("valley forge"));
+
+    ticker.addAndGet(Duration.ofMinutes(10).toNanos());
+    assertNull(cache.getStale("valley forge"));
+    assertEquals(1, cache.stats().hitCount());
+    assertEquals(1, cache.stats().missCount());
+  }
+
+  @Test
+  @DisplayName("A popular result should be handed to the refresher once, when it passes the refresh fraction of its time to live")
+  public void testRefreshAhead() {
+    final AtomicLong ticker = new AtomicLong();
+    final ResultCache cache = ResultCache.builder()
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .refreshAhead(0.5)
+            .refreshMinReads(2)
+            .ticker(ticker::get)
+            .build();
+    final SearchResult result = this.mapper.readValue(Fixtures.read("article"), SearchResult.class);
+    final List<String> refreshed = new ArrayList<>();
+
+    cache.put("valley forge", result);
+    cache.put("apple", result);
+    ticker.addAndGet(Duration.ofMinutes(6).toNanos());
+    assertEquals(result, cache.get("valley forge", refreshed::add));
+    assertEquals(result, cache.get("apple", refreshed::add));
+    assertEquals(result, cache.get("apple", query -> false));
+    assertEquals(result, cache.get("apple", refreshed::add));
+    assertEquals(result, cache.get("valley forge", refreshed::add));
+    assertEquals(result, cache.get("Valley Forge", refreshed::add));
+    assertEquals(Arrays.asList("apple", "valley forge"), refreshed, "a rejected refresh should be tried again, and a started one not");
+
+    cache.put("valley forge", result);
+    ticker.addAndGet(Duration.ofMinutes(6).toNanos());
+    cache.get("valley forge", refreshed::add);
+    cache.get("valley forge", refreshed::add);
+    assertEquals(3, refreshed.size(), "the replacement should be refreshed in its turn");
+  }
+
+  @Test
+  @DisplayName("A client should refresh a popular result in the background while still serving it from the cache")
+  public void testClientRefresh() throws IOException, InterruptedException {
+    final Metrics metrics = new Metrics();
+    final ResultCache cache = ResultCache.builder().expireAfterWrite(Duration.ofMillis(500)).refreshAhead(0.2).build();
+    try(StubServer server = StubServer.builder().recorded().start();
+        DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(server.baseUrl()).cache(cache).metrics(metrics).build()) {
+      final SearchResult first = client.search("apple");
+      Thread.sleep(150);
+      assertSame(first, client.search("apple"));
+      assertSame(first, client.search("apple"));
+
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while(cache.get("apple") == first && System.nanoTime() < deadline) {
+        Thread.sleep(5);
+      }
+      assertNotSame(first, cache.get("apple"));
+      assertEquals(first, cache.get("apple"));
+      assertEquals(2, server.requests("apple"));
+      assertEquals(1, metrics.count(Counter.REFRESHES));
+    }
+  }
+
+  @Test
+  @DisplayName("A larger response should weigh more than a smaller one")
+  public void testEstimatedSize() {
+    final SearchResult small = this.mapper.readValue(Fixtures.read("bang"), SearchResult.class);
+    final SearchResult large = this.mapper.readValue(Fixtures.read("disambiguation"), SearchResult.class);
+
+    assertTrue(large.estimatedSize() > small.estimatedSize());
+    assertTrue(SearchResult.lazy(Fixtures.read("disambiguation")).estimatedSize() > small.estimatedSize());
+  }
+
+  @Test
+  @DisplayName("Caching a lazy result should freeze it without decoding any of it")
+  public void testLazyResult() {
+    final ResultCache cache = ResultCache.builder().build();
+    final byte[] body = Fixtures.read("disambiguation");
+    final SearchResult lazy = SearchResult.lazy(body);
+    final long undecoded = lazy.estimatedSize();
+
+    cache.put("apple", lazy);
+    final SearchResult cached = cache.get("apple");
+    assertTrue(cached.isFrozen());
+    assertEquals(undecoded, cached.estimatedSize());
+    assertEquals(undecoded, lazy.estimatedSize());
+
+    assertEquals("https://duckduckgo.com/Apple_Corps", cached.relatedTopics().get(3).url());
+    assertTrue(cached.estimatedSize() > undecoded);
+    assertEquals(this.mapper.readValue(body, SearchResult.class), cached);
+  }
+
+  @Test
+  @DisplayName("The cache builder should reject invalid times to live, staleness periods and refresh fractions")
+  public void testInvalidConfiguration() {
+    assertThrows(IllegalArgumentException.class, () -> ResultCache.builder().expireAfterWrite(Duration.ZERO));
+    assertThrows(IllegalArgumentException.class, () -> ResultCache.builder().maximumWeight(-1));
+    assertThrows(IllegalArgumentException.class, () -> ResultCache.builder().staleFor(Duration.ofSeconds(-1)));
+    assertThrows(IllegalArgumentException.class, () -> ResultCache.builder().refreshAhead(1));
+  }
+}
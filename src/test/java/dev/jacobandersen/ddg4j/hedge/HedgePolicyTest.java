@@ -0,0 +1,117 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.hedge;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgePolicyTest {
+  private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Test
+  @DisplayName("The hedge delay should follow the configured percentile once enough requests have completed")
+  public void testDelay() {
+    final HedgePolicy policy = HedgePolicy.builder().percentile(90).minDelay(Duration.ofMillis(1)).build();
+    for(int i = 0; i < 64; i++) {
+      policy.record(5 * MILLIS);
+    }
+    assertEquals(-1, policy.delayNanos(), "too few requests to tell");
+
+    for(int i = 0; i < 128; i++) {
+      policy.record((i % 10 == 0 ? 200 : 5) * MILLIS);
+    }
+    assertEquals(5 * MILLIS, policy.delayNanos(), 0.01 * 5 * MILLIS);
+
+    for(int i = 0; i < 64; i++) {
+      policy.record(MILLIS / 10);
+    }
+    assertTrue(policy.delayNanos() >= MILLIS, "the delay should never fall below the minimum");
+  }
+
+  @Test
+  @DisplayName("Hedges should be limited to the budget earned by requests, up to the maximum burst")
+  public void testBudget() {
+    final HedgePolicy policy = HedgePolicy.builder().budget(0.25).maxBurst(2).build();
+    assertFalse(policy.tryAcquire());
+
+    for(int i = 0; i < 4; i++) {
+      policy.onRequest();
+    }
+    assertTrue(policy.tryAcquire());
+    assertFalse(policy.tryAcquire());
+
+    for(int i = 0; i < 100; i++) {
+      policy.onRequest();
+    }
+    assertTrue(policy.tryAcquire());
+    assertTrue(policy.tryAcquire());
+    assertFalse(policy.tryAcquire());
+  }
+
+  @Test
+  @DisplayName("A stalled search should be answered by its hedge, without waiting for the stalled request")
+  public void testHedgedSearch() throws IOException {
+    final AtomicBoolean stall = new AtomicBoolean();
+    final Faults faults = Faults.builder()
+            .latency(random -> stall.getAndSet(false) ? TimeUnit.SECONDS.toNanos(2) : MILLIS)
+            .build();
+    final Metrics metrics = new Metrics();
+    try(StubServer server = StubServer.builder().recorded().faults(faults).start();
+        DuckDuckGoClient client = DuckDuckGoClient.builder()
+                .baseUrl(server.baseUrl())
+                .hedging(HedgePolicy.builder().minDelay(Duration.ofMillis(100)).build())
+                .metrics(metrics)
+                .build()) {
+      for(int i = 0; i < 200; i++) {
+        client.search("apple");
+      }
+      assertEquals(0, metrics.count(Counter.HEDGES));
+
+      stall.set(true);
+      final long start = System.nanoTime();
+      final SearchResult result = client.searchAsync("valley forge national park").join();
+      final long elapsed = System.nanoTime() - start;
+
+      assertEquals("Valley Forge National Historical Park", result.topicAbstract().heading());
+      assertTrue(elapsed < TimeUnit.SECONDS.toNanos(1), "the search should not have waited for the stalled request");
+      assertEquals(1, metrics.count(Counter.HEDGES));
+      assertEquals(2, server.requests("valley forge national park"));
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(60);
+
+  @Test
+  @DisplayName("AIMD should grow by one while the limit is used, and back off multiplicatively on drops and timeouts")
+  public void testAimd() {
+    final AimdLimit limit = AimdLimit.builder().initialLimit(10).minLimit(2).maxLimit(12).timeout(Duration.ofMillis(50)).build();
+
+    limit.onSample(FAST, 2, false);
+    assertEquals(10, limit.limit(), "an idle client should not raise the limit");
+
+    limit.onSample(FAST, 10, false);
+    assertEquals(11, limit.limit());
+    for(int i = 0; i < 5; i++) {
+      limit.onSample(FAST, 12, false);
+    }
+    assertEquals(12, limit.limit());
+
+    limit.onSample(FAST, 12, true);
+    assertEquals(10, limit.limit());
+    limit.onSample(SLOW, 1, false);
+    assertEquals(9, limit.limit());
+
+    for(int i = 0; i < 20; i++) {
+      limit.onSample(FAST, 1, true);
+    }
+    assertEquals(2, limit.limit());
+  }
+
+  @Test
+  @DisplayName("The gradient limit should grow while latency holds steady and shrink once it rises")
+  public void testGradient() {
+    final GradientLimit limit = GradientLimit.builder().initialLimit(20).maxLimit(100).build();
+
+    for(int i = 0; i < 100; i++) {
+      limit.onSample(FAST, limit.limit(), false);
+    }
+    final int grown = limit.limit();
+    assertTrue(grown > 40, "expected the limit to grow, got " + grown);
+
+    for(int i = 0; i < 20; i++) {
+      limit.onSample(SLOW, limit.limit(), false);
+    }
+    assertTrue(limit.limit() < grown / 2, "expected the limit to shrink from " + grown + ", got " + limit.limit());
+
+    final int before = limit.limit();
+    for(int i = 0; i < 50; i++) {
+      limit.onSample(FAST, 1, false);
+    }
+    assertEquals(before, limit.limit(), "an idle client should not change the limit");
+
+    limit.onSample(FAST, 1, true);
+    assertEquals((int) (before * 0.9), limit.limit(), 1);
+  }
+
+  @Test
+  @DisplayName("Limits should reject invalid configuration")
+  public void testValidation() {
+    assertThrows(IllegalArgumentException.class, () -> new FixedLimit(0));
+    assertThrows(IllegalArgumentException.class, () -> AimdLimit.builder().minLimit(10).maxLimit(5).build());
+    assertThrows(IllegalArgumentException.class, () -> AimdLimit.builder().backoffRatio(1));
+    assertThrows(IllegalArgumentException.class, () -> GradientLimit.builder().rttTolerance(0.5));
+    assertThrows(IllegalArgumentException.class, () -> GradientLimit.builder().smoothing(0));
+  }
+}
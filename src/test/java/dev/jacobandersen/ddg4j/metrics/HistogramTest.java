@@ -0,0 +1,103 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTest {
+  @Test
+  @DisplayName("Buckets should cover every value contiguously, each no wider than 1% of its values")
+  public void testBuckets() {
+    long previous = -1;
+    for(int i = 0; i < Histogram.BUCKETS; i++) {
+      final long highest = Histogram.highestValue(i);
+      final long lowest = previous + 1;
+      assertEquals(i, Histogram.index(lowest));
+      assertEquals(i, Histogram.index(highest));
+      assertTrue(highest - lowest <= Math.max(0, lowest / 100), "bucket " + i + " is too wide");
+      previous = highest;
+    }
+  }
+
+  @Test
+  @DisplayName("Percentiles should be reported to within 1%")
+  public void testPercentiles() {
+    final Histogram histogram = new Histogram();
+    for(long value = 1; value <= 100_000; value++) {
+      histogram.record(value * 1000);
+    }
+
+    final HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(100_000, snapshot.count());
+    assertEquals(100_000_000, snapshot.max());
+    assertEquals(50_000_500, snapshot.mean(), 1);
+    for(final double percentile : new double[] {0, 50, 90, 99, 99.9, 100}) {
+      final double expected = Math.max(1, percentile * 1000) * 1000;
+      final long actual = snapshot.valueAtPercentile(percentile);
+      assertTrue(Math.abs(actual - expected) <= expected / 100, "p" + percentile + " was " + actual);
+    }
+  }
+
+  @Test
+  @DisplayName("Out of range values should be clamped, and an empty histogram should report zeroes")
+  public void testEdges() {
+    final Histogram histogram = new Histogram();
+    assertEquals(0, histogram.snapshot().valueAtPercentile(99));
+    assertEquals(0, histogram.snapshot().max());
+
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    final HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.valueAtPercentile(50));
+    assertEquals(Histogram.highestValue(Histogram.BUCKETS - 1), snapshot.valueAtPercentile(100));
+  }
+
+  @Test
+  @DisplayName("Concurrent recording should not lose values")
+  public void testConcurrency() throws InterruptedException {
+    final Histogram histogram = new Histogram();
+    final Thread[] threads = new Thread[4];
+    for(int i = 0; i < threads.length; i++) {
+      final Random random = new Random(i);
+      threads[i] = new Thread(() -> {
+        for(int j = 0; j < 50_000; j++) {
+          histogram.record(random.nextInt(1_000_000));
+        }
+      });
+      threads[i].start();
+    }
+    for(final Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(200_000, histogram.count());
+    assertEquals(200_000, histogram.snapshot().count());
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.metrics;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.limit.AimdLimit;
+import dev.jacobandersen.ddg4j.limit.LimitExceededException;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.Latency;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+  private StubServer server;
+  private Metrics metrics;
+  private DuckDuckGoClient client;
+
+  @BeforeEach
+  public void start() throws IOException {
+    this.server = StubServer.builder().recorded().start();
+    this.metrics = new Metrics();
+    this.client = DuckDuckGoClient.builder()
+            .baseUrl(this.server.baseUrl())
+            .cache(ResultCache.builder().build())
+            .metrics(this.metrics)
+            .build();
+  }
+
+  @AfterEach
+  public void stop() throws IOException {
+    this.client.close();
+    this.server.close();
+  }
+
+  @Test
+  @DisplayName("Searches should be counted, with cache hits and misses and the bytes read")
+  public void testCounters() {
+    this.client.search("apple");
+    this.client.search("apple");
+    this.client.searchAsync("simpsons characters").join();
+
+    assertEquals(2, this.metrics.count(Counter.REQUESTS));
+    assertEquals(0, this.metrics.count(Counter.ERRORS));
+    assertEquals(1, this.metrics.count(Counter.CACHE_HITS));
+    assertEquals(2, this.metrics.count(Counter.CACHE_MISSES));
+    assertEquals(Fixtures.read("disambiguation").length + Fixtures.read("category").length, this.metrics.count(Counter.BYTES_READ));
+    assertEquals(this.metrics.count(Counter.BYTES_READ), this.metrics.count(Counter.WIRE_BYTES));
+  }
+
+  @Test
+  @DisplayName("Compressed responses should be decoded as they arrive, counting both the bytes received and decoded")
+  public void testCompression() throws IOException {
+    try(StubServer compressing = StubServer.builder().recorded().compression(true).start();
+        DuckDuckGoClient client = DuckDuckGoClient.builder().baseUrl(compressing.baseUrl()).metrics(this.metrics).build()) {
+      assertFalse(client.search("simpsons characters").relatedTopics().isEmpty());
+      assertEquals(1, this.metrics.histogram(Stage.BODY).count());
+      assertEquals(1, this.metrics.histogram(Stage.DESERIALIZE).count());
+    }
+
+    assertEquals(Fixtures.read("category").length, this.metrics.count(Counter.BYTES_READ));
+    // the related topics of a category page repeat the same few keys and URL prefixes over and over
+    assertTrue(this.metrics.count(Counter.WIRE_BYTES) * 4 < this.metrics.count(Counter.BYTES_READ),
+            "only " + this.metrics.count(Counter.WIRE_BYTES) + " of " + this.metrics.count(Counter.BYTES_READ) + " bytes");
+  }
+
+  @Test
+  @DisplayName("Failed requests should be counted as errors")
+  public void testErrors() {
+    this.server.faults(Faults.builder().status(1, 503).build());
+    assertThrows(SearchException.class, () -> this.client.search("apple"));
+    assertThrows(Exception.class, () -> this.client.searchAsync("apple").join());
+
+    assertEquals(2, this.metrics.count(Counter.REQUESTS));
+    assertEquals(2, this.metrics.count(Counter.ERRORS));
+    assertEquals(2, this.metrics.histogram(Stage.TOTAL).count());
+  }
+
+  @Test
+  @DisplayName("Each stage of a request should be timed, with waiting on the network kept out of decoding")
+  public void testStages() {
+    this.server.faults(Faults.builder()
+            .latency(Latency.fixed(Duration.ofMillis(30)))
+            .slowDrip(1, 4096, Duration.ofMillis(10))
+            .build());
+    this.client.search("simpsons characters");
+    this.client.searchAsync("apple").join();
+
+    assertEquals(2, this.metrics.histogram(Stage.QUEUE).count());
+    assertEquals(2, this.metrics.histogram(Stage.TIME_TO_FIRST_BYTE).count());
+    assertEquals(2, this.metrics.histogram(Stage.BODY).count());
+    assertEquals(2, this.metrics.histogram(Stage.DESERIALIZE).count());
+    assertEquals(2, this.metrics.histogram(Stage.TOTAL).count());
+
+    final long millis = Duration.ofMillis(1).toNanos();
+    assertTrue(this.metrics.histogram(Stage.TIME_TO_FIRST_BYTE).snapshot().valueAtPercentile(0) >= 30 * millis);
+    // the 14323 byte category page arrives in four chunks, ten milliseconds apart: that wait is body, not decoding
+    assertTrue(this.metrics.histogram(Stage.BODY).snapshot().max() >= 20 * millis);
+  }
+
+  @Test
+  @DisplayName("The concurrency limit should be sampled as a gauge and shrink when searches are throttled")
+  public void testConcurrencyLimit() {
+    this.server.faults(Faults.builder().status(1, 429).build());
+    try(DuckDuckGoClient limited = this.limited().concurrencyLimit(AimdLimit.builder().initialLimit(10).build()).build()) {
+      assertEquals(10, this.metrics.gauge(Gauge.CONCURRENCY_LIMIT));
+      assertThrows(SearchException.class, () -> limited.search("apple"));
+      assertEquals(9, this.metrics.gauge(Gauge.CONCURRENCY_LIMIT));
+    }
+  }
+
+  @Test
+  @DisplayName("Searches over the concurrency limit should be rejected and counted once the queue is full")
+  public void testRejected() {
+    this.server.faults(Faults.builder().latency(Latency.fixed(Duration.ofMillis(200))).build());
+    try(DuckDuckGoClient limited = this.limited().maxInFlightRequests(1).maxQueuedRequests(0).build()) {
+      final CompletableFuture<?> first = limited.searchAsync("apple");
+      final CompletableFuture<?> second = limited.searchAsync("simpsons characters");
+      assertTrue(assertThrows(CompletionException.class, second::join).getCause() instanceof LimitExceededException);
+      assertThrows(LimitExceededException.class, () -> limited.search("apple"));
+      assertEquals(1, this.metrics.gauge(Gauge.IN_FLIGHT));
+
+      first.join();
+      assertEquals(1, this.metrics.count(Counter.REQUESTS));
+      assertEquals(2, this.metrics.count(Counter.REJECTED));
+    }
+  }
+
+  private DuckDuckGoClient.Builder limited() {
+    return DuckDuckGoClient.builder()
+            .baseUrl(this.server.baseUrl())
+            .coalesceRequests(false)
+            .metrics(this.metrics);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.stub;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StubServerTest {
+  private StubServer server;
+  private DuckDuckGoClient client;
+
+  @BeforeEach
+  public void start() throws IOException {
+    this.server = StubServer.builder().recorded().start();
+    this.client = DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).build();
+  }
+
+  @AfterEach
+  public void stop() throws IOException {
+    this.client.close();
+    this.server.close();
+  }
+
+  @Test
+  @DisplayName("Recorded responses should be replayed by normalized query")
+  public void testReplay() {
+    assertEquals("Apple An edible fruit produced by an apple tree. (https://duckduckgo.com/Apple)", this.client.search("  Apple ").instantInformation());
+    assertEquals("https://www.imdb.com/find?s=all&q=rushmore", this.client.search("!imdb rushmore").instantInformation());
+    assertEquals(1, this.server.requests("apple"));
+    assertEquals(2, this.server.requests());
+  }
+
+  @Test
+  @DisplayName("Queries without a recording should be answered with an empty result")
+  public void testFallback() {
+    final SearchResult result = this.client.search("nothing was recorded for this");
+    assertFalse(result.topicAbstract().hasHeading());
+    assertTrue(result.relatedTopics().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Injected error statuses should surface as search exceptions carrying the status")
+  public void testStatus() {
+    this.server.faults(Faults.builder().status(1, 429).build());
+    assertEquals(429, assertThrows(SearchException.class, () -> this.client.search("apple")).status());
+
+    this.server.faults(Faults.builder().status(1, 503).build());
+    assertEquals(503, assertThrows(SearchException.class, () -> this.client.search("apple")).status());
+
+    this.server.faults(Faults.none());
+    assertEquals("Apple", this.client.search("apple").topicAbstract().heading());
+  }
+
+  @Test
+  @DisplayName("Reset connections should surface as search exceptions, both blocking and asynchronously")
+  public void testReset() {
+    this.server.faults(Faults.builder().reset(1).build());
+
+    final SearchException blocking = assertThrows(SearchException.class, () -> this.client.search("apple"));
+    assertEquals(-1, blocking.status());
+    assertNotNull(blocking.getCause());
+
+    final CompletionException async = assertThrows(CompletionException.class, () -> this.client.searchAsync("apple").join());
+    assertTrue(async.getCause() instanceof SearchException);
+  }
+
+  @Test
+  @DisplayName("Latency and slow-drip bodies should delay responses without corrupting them")
+  public void testSlowResponses() {
+    this.server.faults(Faults.builder()
+            .latency(Latency.fixed(Duration.ofMillis(50)))
+            .slowDrip(1, 512, Duration.ofMillis(5))
+            .build());
+
+    final long start = System.nanoTime();
+    final SearchResult result = this.client.search("valley forge national park");
+    final long elapsed = System.nanoTime() - start;
+
+    assertEquals("Valley Forge National Historical Park", result.topicAbstract().heading());
+    // 50ms of latency, then a 3157 byte body in 7 chunks
+    assertTrue(elapsed >= Duration.ofMillis(80).toNanos(), "response was not delayed");
+  }
+
+  @Test
+  @DisplayName("Faults should be drawn from the seeded distribution")
+  public void testProbabilities() {
+    this.server.faults(Faults.builder().status(0.25, 500).status(0.25, 502).build());
+    int failed = 0;
+    for(int i = 0; i < 400; i++) {
+      try {
+        this.client.search("apple");
+      } catch(final SearchException ex) {
+        assertTrue(ex.status() == 500 || ex.status() == 502);
+        failed++;
+      }
+    }
+
+    assertTrue(failed > 150 && failed < 250, "expected about half of the searches to fail, got " + failed);
+  }
+}
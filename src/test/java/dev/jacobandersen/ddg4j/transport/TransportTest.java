@@ -0,0 +1,222 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.transport;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.metrics.Counter;
+import dev.jacobandersen.ddg4j.metrics.Metrics;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import dev.jacobandersen.ddg4j.util.SearchException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransportTest {
+  private StubServer server;
+
+  @BeforeEach
+  public void start() throws IOException {
+    this.server = StubServer.builder().recorded().start();
+  }
+
+  @AfterEach
+  public void stop() throws IOException {
+    this.server.close();
+  }
+
+  @Test
+  @DisplayName("The JDK transport should be supported on every JVM with the JDK HTTP client, and fail to build elsewhere")
+  public void testSupported() {
+    // on Java 11 and newer the tests run with the overlay in front, so both transports are covered there
+    assertEquals(Fixtures.javaVersion() >= 11, JdkHttpTransport.isSupported());
+    if(!JdkHttpTransport.isSupported()) {
+      assertThrows(IllegalStateException.class, () -> JdkHttpTransport.builder().build());
+    }
+  }
+
+  @Test
+  @DisplayName("Every transport the JVM supports should search, blocking or not")
+  public void testSearch() {
+    for(final Supplier<Transport> factory : transports()) {
+      try(Transport transport = factory.get(); DuckDuckGoClient client = this.client(transport)) {
+        assertEquals("Valley Forge National Historical Park", client.search("valley forge national park").topicAbstract().heading());
+        assertEquals("Valley Forge National Historical Park", client.searchAsync("valley forge national park").join().topicAbstract().heading());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Every transport should tell unsuccessful responses apart from failing to reach DuckDuckGo at all")
+  public void testErrors() {
+    for(final Supplier<Transport> factory : transports()) {
+      try(Transport transport = factory.get(); DuckDuckGoClient client = this.client(transport)) {
+        this.server.faults(Faults.builder().status(1, 503).build());
+        assertEquals(503, assertThrows(SearchException.class, () -> client.search("apple")).status());
+        final CompletionException async = assertThrows(CompletionException.class, () -> client.searchAsync("apple").join());
+        assertEquals(503, ((SearchException) async.getCause()).status());
+
+        this.server.faults(Faults.builder().reset(1).build());
+        final SearchException reset = assertThrows(SearchException.class, () -> client.search("apple"));
+        assertEquals(-1, reset.status());
+        assertTrue(reset.getCause() instanceof IOException, "not reported as a network failure: " + reset.getCause());
+        this.server.faults(Faults.none());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("The client should hand a transport the query, encoded into the request URI")
+  public void testRequest() {
+    final List<TransportRequest> sent = new ArrayList<>();
+    try(Transport delegate = UnirestTransport.builder().build(); DuckDuckGoClient client = this.client(new Forwarding(delegate, request -> {
+      sent.add(request);
+      return request;
+    }))) {
+      client.search("simpsons characters & more");
+    }
+
+    assertEquals(1, sent.size());
+    assertEquals(URI.create(this.server.baseUrl()).getPath(), sent.get(0).uri().getPath());
+    assertEquals("no_redirect=1&format=json&q=simpsons+characters+%26+more", sent.get(0).uri().getRawQuery());
+    assertEquals("gzip, deflate", sent.get(0).headers().get("Accept-Encoding"));
+  }
+
+  @Test
+  @DisplayName("Every transport should hand over gzipped and deflated bodies for the client to decompress")
+  public void testCompression() throws IOException {
+    try(StubServer compressing = StubServer.builder().recorded().compression(true).start()) {
+      for(final Supplier<Transport> factory : transports()) {
+        for(final String encoding : new String[] {"gzip", "deflate"}) {
+          final Metrics metrics = new Metrics();
+          try(Transport transport = factory.get(); DuckDuckGoClient client = DuckDuckGoClient.builder()
+                  .baseUrl(compressing.baseUrl())
+                  .transport(new Forwarding(transport, request -> new TransportRequest(request.uri(), Collections.singletonMap("Accept-Encoding", encoding))))
+                  .metrics(metrics)
+                  .build()) {
+            assertEquals("Valley Forge National Historical Park", client.search("valley forge national park").topicAbstract().heading());
+            assertEquals("Valley Forge National Historical Park", client.searchAsync("valley forge national park").join().topicAbstract().heading());
+          }
+
+          assertEquals(2 * Fixtures.read("article").length, metrics.count(Counter.BYTES_READ));
+          assertTrue(metrics.count(Counter.WIRE_BYTES) < metrics.count(Counter.BYTES_READ), encoding + " response was not compressed");
+        }
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Cancelling a request to the JDK transport should stop its handler reading a slowly arriving body")
+  public void testCancelSlowBody() throws Exception {
+    if(!JdkHttpTransport.isSupported()) {
+      return;
+    }
+
+    this.server.faults(Faults.builder().slowDrip(1, 16, Duration.ofMillis(100)).build());
+    final CountDownLatch reading = new CountDownLatch(1);
+    final CompletableFuture<IOException> failure = new CompletableFuture<>();
+    try(Transport transport = JdkHttpTransport.builder().build()) {
+      final TransportRequest request = new TransportRequest(URI.create(this.server.baseUrl() + "?q=valley+forge+national+park&format=json"), Collections.emptyMap());
+      final CompletableFuture<Long> read = transport.sendAsync(request, response -> {
+        reading.countDown();
+        long bytes = 0;
+        try {
+          while(response.body().read() >= 0) {
+            bytes++;
+          }
+        } catch(final IOException ex) {
+          failure.complete(ex);
+          throw ex;
+        }
+        return bytes;
+      });
+
+      assertTrue(reading.await(5, TimeUnit.SECONDS));
+      // newer JDKs fail the read themselves as they cancel, so the future may fail instead of being cancelled
+      read.cancel(true);
+      assertTrue(read.isDone());
+      assertNotNull(failure.get(2, TimeUnit.SECONDS));
+    }
+  }
+
+  private DuckDuckGoClient client(final Transport transport) {
+    return DuckDuckGoClient.builder().baseUrl(this.server.baseUrl()).transport(transport).coalesceRequests(false).build();
+  }
+
+  /*
+   * Rewrites requests on their way to another transport.
+   */
+  private static final class Forwarding implements Transport {
+    private final Transport delegate;
+    private final UnaryOperator<TransportRequest> rewrite;
+
+    private Forwarding(final Transport delegate, final UnaryOperator<TransportRequest> rewrite) {
+      this.delegate = delegate;
+      this.rewrite = rewrite;
+    }
+
+    @Override
+    public <T> T send(final TransportRequest request, final ResponseHandler<T> handler) throws IOException {
+      return this.delegate.send(this.rewrite.apply(request), handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> sendAsync(final TransportRequest request, final ResponseHandler<T> handler) {
+      return this.delegate.sendAsync(this.rewrite.apply(request), handler);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static List<Supplier<Transport>> transports() {
+    final List<Supplier<Transport>> transports = new ArrayList<>();
+    transports.add(() -> UnirestTransport.builder().build());
+    if(JdkHttpTransport.isSupported()) {
+      transports.add(() -> JdkHttpTransport.builder().build());
+    }
+    return transports;
+  }
+}
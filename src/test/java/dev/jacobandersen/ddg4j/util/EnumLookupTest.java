@@ -0,0 +1,104 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.api.Answer;
+import dev.jacobandersen.ddg4j.api.Type;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class EnumLookupTest {
+  private static final String[] NAMES = {
+          "calc", "CALC", "Calc", " calc ", "_c_a_l_c_", "ca lc", "\tiploc\n", "ip_loc", "IPLOC_", "ip", "\u0131p", "DIGE\uFB05",
+          "IP\u00A0", "ZIP", "zip!", "", "___", " ", "unknown", "answer", "A", "d", "null", "N", "Exclusive"
+  };
+
+  @Test
+  @DisplayName("Lookups should match exactly what the original scan matched, from every kind of input")
+  public void testMatchesOriginalScan() {
+    for(final String name : NAMES) {
+      assertLookups(Answer.Type.class, name);
+      assertLookups(Type.class, name);
+    }
+  }
+
+  @Test
+  @DisplayName("Constants with underscores in their names should never be found, as with the original scan")
+  public void testUnderscoredConstants() {
+    for(final String name : new String[] {"ICON_URL", "icon_url", "iconurl", "ICONURL", "_ICON_URL_", "ICON URL", "HEIGHT", "height_", "h_e_i_g_h_t", "WIDTH_"}) {
+      assertLookups(Underscored.class, name);
+    }
+
+    assertNull(EnumUtil.constantByName(Underscored.class, "ICON_URL").orElse(null));
+    assertNull(EnumUtil.constantByName(Underscored.class, "iconurl").orElse(null));
+    assertNull(EnumUtil.constantByName(Underscored.class, "WIDTH_").orElse(null));
+    assertEquals(Underscored.HEIGHT, EnumUtil.constantByName(Underscored.class, "_height_").orElse(null));
+  }
+
+  @Test
+  @DisplayName("Lookup tables should be created once per enum class")
+  public void testCached() {
+    assertSame(EnumLookup.of(Type.class), EnumLookup.of(Type.class));
+    assertEquals(Type.NULL, Type.byName(null));
+    assertEquals(Answer.Type.ANSWER, Answer.Type.byName("nope"));
+  }
+
+  private static <T extends Enum<T>> void assertLookups(final Class<T> enumClass, final String name) {
+    final T expected = scan(enumClass, name);
+    final EnumLookup<T> lookup = EnumLookup.of(enumClass);
+
+    final char[] chars = ("[" + name + "]").toCharArray();
+    final byte[] bytes = ("[" + name + "]").getBytes(StandardCharsets.UTF_8);
+
+    assertEquals(expected, lookup.find(name), name);
+    assertEquals(expected, lookup.find(new StringBuilder(name)), name);
+    assertEquals(expected, lookup.find(chars, 1, chars.length - 2), name);
+    assertEquals(expected, lookup.find(bytes, 1, bytes.length - 2), name);
+  }
+
+  private enum Underscored {
+    ICON_URL,
+    HEIGHT,
+    WIDTH_
+  }
+
+  private static <T extends Enum<T>> T scan(final Class<T> enumClass, final String name) {
+    if(name.isEmpty()) {
+      return null;
+    }
+
+    return Arrays.stream(enumClass.getEnumConstants())
+            .filter(type -> type.name().equals(name.replaceAll("_", "").toUpperCase(Locale.ROOT).trim()))
+            .findFirst()
+            .orElse(null);
+  }
+}
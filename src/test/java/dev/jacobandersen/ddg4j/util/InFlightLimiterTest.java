@@ -0,0 +1,192 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.limit.ConcurrencyLimit;
+import dev.jacobandersen.ddg4j.limit.LimitExceededException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InFlightLimiterTest {
+  private final RecordingLimit limit = new RecordingLimit(2);
+  private final InFlightLimiter limiter = new InFlightLimiter(this.limit, 1, error -> error instanceof SearchException && ((SearchException) error).status() == 429);
+
+  @Test
+  @DisplayName("Operations over the limit should queue, start in order, and be rejected once the queue is full")
+  public void testQueue() {
+    final CompletableFuture<String> first = new CompletableFuture<>();
+    final CompletableFuture<String> second = new CompletableFuture<>();
+    final CompletableFuture<String> third = new CompletableFuture<>();
+    this.limiter.submit(() -> first);
+    this.limiter.submit(() -> second);
+    final CompletableFuture<String> queued = this.limiter.submit(() -> third);
+    final CompletableFuture<String> rejected = this.limiter.submit(CompletableFuture::new);
+
+    assertEquals(2, this.limiter.inFlight());
+    assertEquals(1, this.limiter.queued());
+    assertTrue(assertThrows(CompletionException.class, rejected::join).getCause() instanceof LimitExceededException);
+
+    first.complete("first");
+    assertEquals(0, this.limiter.queued());
+    assertFalse(queued.isDone());
+    third.complete("third");
+    assertSame("third", queued.join());
+    assertEquals(1, this.limiter.inFlight());
+  }
+
+  @Test
+  @DisplayName("Cancelling a queued operation should take it out of the queue, freeing its place")
+  public void testCancelQueued() {
+    final CompletableFuture<String> first = new CompletableFuture<>();
+    final AtomicInteger started = new AtomicInteger();
+    this.limiter.submit(() -> first);
+    this.limiter.submit(CompletableFuture::new);
+    final CompletableFuture<String> cancelled = this.limiter.submit(() -> {
+      started.incrementAndGet();
+      return new CompletableFuture<>();
+    });
+
+    assertTrue(cancelled.cancel(true));
+    assertEquals(0, this.limiter.queued());
+    final CompletableFuture<String> queued = this.limiter.submit(() -> CompletableFuture.completedFuture("queued"));
+    assertFalse(queued.isDone());
+    assertEquals(1, this.limiter.queued());
+
+    first.complete("first");
+    assertEquals("queued", queued.join());
+    assertEquals(0, started.get());
+    assertEquals(1, this.limiter.inFlight());
+  }
+
+  @Test
+  @DisplayName("Every completed operation should be sampled, with dropped failures marked as such")
+  public void testSamples() {
+    final CompletableFuture<String> ok = new CompletableFuture<>();
+    final CompletableFuture<String> throttled = new CompletableFuture<>();
+    this.limiter.submit(() -> ok);
+    this.limiter.submit(() -> throttled);
+
+    ok.complete("ok");
+    throttled.completeExceptionally(new SearchException("DuckDuckGo responded with HTTP 429", 429));
+    assertEquals("call", this.limiter.call(() -> "call"));
+    assertThrows(SearchException.class, () -> this.limiter.call(() -> {
+      throw new SearchException("DuckDuckGo responded with HTTP 404", 404);
+    }));
+
+    assertEquals(4, this.limit.samples.size());
+    assertEquals(1, this.limit.samples.get(0).inFlight);
+    assertFalse(this.limit.samples.get(0).dropped);
+    assertEquals(2, this.limit.samples.get(1).inFlight);
+    assertTrue(this.limit.samples.get(1).dropped);
+    assertEquals(1, this.limit.samples.get(2).inFlight);
+    assertFalse(this.limit.samples.get(3).dropped);
+    assertEquals(0, this.limiter.inFlight());
+  }
+
+  @Test
+  @DisplayName("Raising the limit should let queued operations through as earlier ones complete")
+  public void testAdaptiveLimit() {
+    final InFlightLimiter unbounded = new InFlightLimiter(this.limit, Integer.MAX_VALUE, error -> false);
+    final CompletableFuture<String> first = new CompletableFuture<>();
+    unbounded.submit(() -> first);
+    unbounded.submit(CompletableFuture::new);
+    unbounded.submit(CompletableFuture::new);
+    unbounded.submit(CompletableFuture::new);
+    unbounded.submit(CompletableFuture::new);
+    assertEquals(2, unbounded.inFlight());
+
+    this.limit.value = 4;
+    first.complete("first");
+    assertEquals(4, unbounded.inFlight());
+    assertEquals(0, unbounded.queued());
+  }
+
+  @Test
+  @DisplayName("Queued operations that fail as they start should drain one after another, not recursively")
+  public void testSynchronousFailures() {
+    final InFlightLimiter unbounded = new InFlightLimiter(this.limit, Integer.MAX_VALUE, error -> false);
+    final CompletableFuture<String> first = new CompletableFuture<>();
+    final CompletableFuture<String> second = new CompletableFuture<>();
+    unbounded.submit(() -> first);
+    unbounded.submit(() -> second);
+
+    final List<CompletableFuture<String>> failed = new ArrayList<>();
+    for(int i = 0; i < 20000; i++) {
+      failed.add(unbounded.submit(() -> {
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        future.completeExceptionally(new SearchException("DuckDuckGo responded with HTTP 503", 503));
+        return future;
+      }));
+    }
+    assertEquals(20000, unbounded.queued());
+
+    first.complete("first");
+    assertEquals(0, unbounded.queued());
+    assertEquals(1, unbounded.inFlight());
+    for(final CompletableFuture<String> future : failed) {
+      assertTrue(assertThrows(CompletionException.class, future::join).getCause() instanceof SearchException);
+    }
+  }
+
+  private static final class RecordingLimit implements ConcurrencyLimit {
+    private final List<Sample> samples = new ArrayList<>();
+    private volatile int value;
+
+    private RecordingLimit(final int value) {
+      this.value = value;
+    }
+
+    @Override
+    public int limit() {
+      return this.value;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+      this.samples.add(new Sample(inFlight, dropped));
+    }
+  }
+
+  private static final class Sample {
+    private final int inFlight;
+    private final boolean dropped;
+
+    private Sample(final int inFlight, final boolean dropped) {
+      this.inFlight = inFlight;
+      this.dropped = dropped;
+    }
+  }
+}
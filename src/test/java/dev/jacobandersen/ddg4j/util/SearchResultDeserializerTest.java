@@ -0,0 +1,132 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.api.Answer;
+import dev.jacobandersen.ddg4j.api.Fields;
+import dev.jacobandersen.ddg4j.api.ResultItem;
+import dev.jacobandersen.ddg4j.api.SearchResult;
+import dev.jacobandersen.ddg4j.api.Type;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SearchResultDeserializerTest {
+  private final CustomObjectMapper mapper = new CustomObjectMapper();
+
+  @Test
+  @DisplayName("An article response should decode its abstract, related topics and results")
+  public void testArticle() {
+    final SearchResult result = this.decode("article");
+
+    assertEquals(Type.A, result.type());
+    assertEquals("Valley Forge National Historical Park", result.topicAbstract().heading());
+    assertEquals("Wikipedia", result.topicAbstract().source());
+    assertEquals(3, result.relatedTopics().size());
+    assertEquals(1, result.results().size());
+    assertEquals(16, result.results().get(0).icon().height());
+    assertTrue(result.instantInformation().startsWith("Valley Forge National Historical Park - Valley Forge National Historical Park is the site"));
+  }
+
+  @Test
+  @DisplayName("A disambiguation response should flatten grouped topics in order")
+  public void testDisambiguation() {
+    final List<ResultItem> topics = this.decode("disambiguation").relatedTopics();
+
+    assertEquals(5, topics.size());
+    assertEquals("https://duckduckgo.com/Apple_Bank", topics.get(2).url());
+    assertEquals("https://duckduckgo.com/Apple_(band)", topics.get(4).url());
+    assertEquals(-1, topics.get(0).icon().height());
+    assertEquals("Apple An edible fruit produced by an apple tree. (https://duckduckgo.com/Apple)", topics.get(0).instantInformation());
+  }
+
+  @Test
+  @DisplayName("A category response should keep every related topic")
+  public void testCategory() {
+    final SearchResult result = this.decode("category");
+
+    assertEquals(Type.C, result.type());
+    assertEquals(41, result.relatedTopics().size());
+    assertTrue(result.instantInformation().startsWith("Apu Nahasapeemapetilon - Apu Nahasapeemapetilon is a recurring character"));
+  }
+
+  @Test
+  @DisplayName("Answer and redirect responses should decode their answer type and redirect URL")
+  public void testAnswerAndRedirect() {
+    final SearchResult answer = this.decode("answer");
+    assertEquals(Answer.Type.IP, answer.answer().type());
+    assertTrue(answer.instantInformation().startsWith("[IP] Your IP address is"));
+
+    assertEquals("https://www.imdb.com/find?s=all&q=rushmore", this.decode("bang").instantInformation());
+  }
+
+  @Test
+  @DisplayName("Unexpected shapes should fall back to empty values instead of failing")
+  public void testLenientShapes() {
+    final SearchResult result = this.mapper.readValue("{\"Type\":\"e\",\"Answer\":{\"result\":\"4\"},\"AnswerType\":\"_calc_\","
+            + "\"Heading\":null,\"RelatedTopics\":[\"x\",{\"FirstURL\":\"u\",\"Icon\":{\"Height\":\"12\",\"Width\":32}}],\"Results\":{}}", SearchResult.class);
+
+    assertEquals(Type.E, result.type());
+    assertEquals(Answer.Type.CALC, result.answer().type());
+    assertEquals("", result.answer().answer());
+    assertEquals("", result.topicAbstract().heading());
+    assertEquals(1, result.relatedTopics().size());
+    assertEquals(12, result.relatedTopics().get(0).icon().height());
+    assertEquals(32, result.relatedTopics().get(0).icon().width());
+    assertTrue(result.results().isEmpty());
+  }
+
+  @Test
+  @DisplayName("A projected read should only decode the requested fields")
+  public void testProjection() {
+    final SearchResult result = this.mapper.readSearchResult(new ByteArrayInputStream(Fixtures.read("article")), EnumSet.of(Fields.ANSWER, Fields.RESULTS));
+
+    assertEquals(Type.A, result.type());
+    assertNull(result.topicAbstract());
+    assertNull(result.definition());
+    assertNull(result.redirect());
+    assertTrue(result.relatedTopics().isEmpty());
+    assertEquals("", result.answer().answer());
+    assertEquals(1, result.results().size());
+    assertEquals("Official site (https://www.nps.gov/vafo)", result.instantInformation(new String[]{"abstract", "result.0"}));
+  }
+
+  private SearchResult decode(final String fixture) {
+    final byte[] body = Fixtures.read(fixture);
+    final SearchResult result = this.mapper.readValue(new ByteArrayInputStream(body), SearchResult.class);
+
+    assertEquals(result, this.mapper.readValue(body, SearchResult.class));
+    assertEquals(result, this.mapper.readValue(new String(body, StandardCharsets.UTF_8), SearchResult.class));
+    return result;
+  }
+}
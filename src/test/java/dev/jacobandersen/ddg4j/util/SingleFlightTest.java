@@ -0,0 +1,103 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SingleFlightTest {
+  private final SingleFlight<String, String> flights = new SingleFlight<>();
+  private final AtomicInteger started = new AtomicInteger();
+
+  @Test
+  @DisplayName("Concurrent operations with the same key should share one operation and its result")
+  public void testCoalesce() {
+    final CompletableFuture<String> operation = new CompletableFuture<>();
+    final CompletableFuture<String> first = this.flights.execute("q", this.start(operation));
+    final CompletableFuture<String> second = this.flights.execute("q", this.start(new CompletableFuture<>()));
+    final CompletableFuture<String> other = this.flights.execute("other", this.start(new CompletableFuture<>()));
+
+    assertEquals(2, this.started.get());
+    assertEquals(2, this.flights.inFlight());
+
+    operation.complete("result");
+    assertSame("result", first.join());
+    assertSame("result", second.join());
+    assertFalse(other.isDone());
+
+    this.flights.execute("q", this.start(CompletableFuture.completedFuture("again")));
+    assertEquals(3, this.started.get());
+  }
+
+  @Test
+  @DisplayName("A failed operation should fail every caller sharing it")
+  public void testFailure() {
+    final CompletableFuture<String> operation = new CompletableFuture<>();
+    final CompletableFuture<String> first = this.flights.execute("q", this.start(operation));
+    final CompletableFuture<String> second = this.flights.execute("q", this.start(operation));
+
+    operation.completeExceptionally(new SearchException("DuckDuckGo responded with HTTP 500", 500));
+
+    assertTrue(assertThrows(CompletionException.class, first::join).getCause() instanceof SearchException);
+    assertTrue(assertThrows(CompletionException.class, second::join).getCause() instanceof SearchException);
+    assertEquals(0, this.flights.inFlight());
+  }
+
+  @Test
+  @DisplayName("The shared operation should only be cancelled once every caller has cancelled")
+  public void testCancellation() {
+    final CompletableFuture<String> operation = new CompletableFuture<>();
+    final CompletableFuture<String> first = this.flights.execute("q", this.start(operation));
+    final CompletableFuture<String> second = this.flights.execute("q", this.start(operation));
+
+    first.cancel(true);
+    assertFalse(operation.isCancelled());
+    assertFalse(second.isDone());
+
+    second.cancel(true);
+    assertTrue(operation.isCancelled());
+    assertEquals(0, this.flights.inFlight());
+
+    final CompletableFuture<String> third = this.flights.execute("q", this.start(CompletableFuture.completedFuture("fresh")));
+    assertEquals("fresh", third.join());
+  }
+
+  private Supplier<CompletableFuture<String>> start(final CompletableFuture<String> operation) {
+    return () -> {
+      this.started.incrementAndGet();
+      return operation;
+    };
+  }
+}
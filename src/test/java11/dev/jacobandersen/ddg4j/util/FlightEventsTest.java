@@ -0,0 +1,176 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.util;
+
+import dev.jacobandersen.ddg4j.DuckDuckGoClient;
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.cache.ResultCache;
+import dev.jacobandersen.ddg4j.stub.Faults;
+import dev.jacobandersen.ddg4j.stub.StubServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightEventsTest {
+  private static final String[] EVENTS = {"ddg4j.Search", "ddg4j.Deserialize", "ddg4j.CacheLookup"};
+
+  private StubServer server;
+  private DuckDuckGoClient client;
+
+  @BeforeEach
+  public void start() throws IOException {
+    this.server = StubServer.builder().recorded().start();
+    this.client = DuckDuckGoClient.builder()
+            .baseUrl(this.server.baseUrl())
+            .cache(ResultCache.builder().build())
+            .build();
+  }
+
+  @AfterEach
+  public void stop() throws IOException {
+    this.client.close();
+    this.server.close();
+  }
+
+  @Test
+  @DisplayName("A recording should see each search, the decoding of its response and its cache lookups")
+  public void testRecorded() throws IOException {
+    final int hash = Queries.normalize("apple").hashCode();
+    final List<RecordedEvent> events;
+    try(Recording recording = new Recording()) {
+      for(final String event : EVENTS) {
+        recording.enable(event);
+      }
+      recording.start();
+      this.client.search("apple");
+      this.client.search("  Apple ");
+      recording.stop();
+      events = read(recording);
+    }
+
+    final List<RecordedEvent> searches = named(events, "ddg4j.Search");
+    assertEquals(2, searches.size());
+    for(final RecordedEvent search : searches) {
+      assertEquals(hash, search.getInt("queryHash"));
+      assertEquals("D", search.getString("type"));
+      assertFalse(search.getBoolean("projected"));
+      assertEquals(-1, search.getInt("status"));
+      assertNull(search.getString("error"));
+    }
+    assertEquals(1, searches.stream().filter(search -> search.getBoolean("cached")).count());
+
+    final List<RecordedEvent> decodes = named(events, "ddg4j.Deserialize");
+    assertEquals(1, decodes.size());
+    assertEquals(hash, decodes.get(0).getInt("queryHash"));
+    assertEquals("D", decodes.get(0).getString("type"));
+    assertEquals(Fixtures.read("disambiguation").length, decodes.get(0).getLong("payloadSize"));
+    assertFalse(decodes.get(0).getBoolean("lazy"));
+
+    final List<RecordedEvent> lookups = named(events, "ddg4j.CacheLookup");
+    assertEquals(2, lookups.size());
+    for(final RecordedEvent lookup : lookups) {
+      assertEquals(hash, lookup.getInt("queryHash"));
+      assertEquals("memory", lookup.getString("tier"));
+      assertEquals(-1, lookup.getLong("payloadSize"));
+    }
+    assertEquals(1, lookups.stream().filter(lookup -> lookup.getBoolean("hit")).count());
+  }
+
+  @Test
+  @DisplayName("A failed search should be recorded with the status and error it failed with")
+  public void testRecordedFailure() throws IOException {
+    this.server.faults(Faults.builder().status(1, 503).build());
+    final List<RecordedEvent> events;
+    try(Recording recording = new Recording()) {
+      recording.enable("ddg4j.Search");
+      recording.start();
+      assertThrows(SearchException.class, () -> this.client.search("apple"));
+      recording.stop();
+      events = read(recording);
+    }
+
+    final List<RecordedEvent> searches = named(events, "ddg4j.Search");
+    assertEquals(1, searches.size());
+    assertNull(searches.get(0).getString("type"));
+    assertEquals(503, searches.get(0).getInt("status"));
+    assertTrue(searches.get(0).getString("error").startsWith(SearchException.class.getName()));
+  }
+
+  @Test
+  @DisplayName("Nothing should be emitted, or even allocated, while no recording has the events enabled")
+  public void testNotRecorded() throws IOException {
+    assertTrue(FlightEvents.isSupported());
+    assertNull(FlightEvents.beginSearch());
+    assertNull(FlightEvents.beginDeserialize());
+    assertNull(FlightEvents.beginCacheLookup());
+    this.client.search("apple");
+
+    final List<RecordedEvent> events;
+    try(Recording recording = new Recording()) {
+      for(final String event : EVENTS) {
+        recording.disable(event);
+      }
+      recording.start();
+      assertNull(FlightEvents.beginSearch());
+      this.client.search("apple");
+      this.client.search("simpsons characters");
+      recording.stop();
+      events = read(recording);
+    }
+
+    for(final String event : EVENTS) {
+      assertTrue(named(events, event).isEmpty(), event);
+    }
+  }
+
+  private static List<RecordedEvent> read(final Recording recording) throws IOException {
+    final Path file = Files.createTempFile("ddg4j", ".jfr");
+    try {
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  private static List<RecordedEvent> named(final List<RecordedEvent> events, final String name) {
+    return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class Fixtures {
+  // the queries each fixture was recorded from
+  private static final String[][] RECORDED = {
+    {"valley forge national park", "article"},
+    {"simpsons characters", "category"},
+    {"apple", "disambiguation"},
+    {"!imdb rushmore", "bang"},
+    {"what is my ip address", "answer"}
+  };
+
+  private Fixtures() {
+  }
+
+  public static Map<String, byte[]> recorded() {
+    final Map<String, byte[]> recorded = new LinkedHashMap<>();
+    for(final String[] recording : RECORDED) {
+      recorded.put(recording[0], read(recording[1]));
+    }
+    return Collections.unmodifiableMap(recorded);
+  }
+
+  public static byte[] read(final String fixture) {
+    try(InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + fixture + ".json")) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      int read;
+      while((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  // the feature release of the running JVM, to tell which multi-release overlays it loads
+  public static int javaVersion() {
+    final String version = System.getProperty("java.specification.version");
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.stub;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * The faults a {@link StubServer} injects into its responses. Each response independently rolls for each fault.
+ */
+public final class Faults {
+  private static final Faults NONE = builder().build();
+
+  private final Latency latency;
+  private final double resetProbability;
+  private final double[] statusProbabilities;
+  private final int[] statuses;
+  private final double slowDripProbability;
+  private final int slowDripChunk;
+  private final long slowDripIntervalNanos;
+
+  private Faults(final Builder builder) {
+    this.latency = builder.latency;
+    this.resetProbability = builder.resetProbability;
+    this.statusProbabilities = new double[builder.statuses.size()];
+    this.statuses = new int[builder.statuses.size()];
+    for(int i = 0; i < this.statuses.length; i++) {
+      this.statusProbabilities[i] = builder.statusProbabilities.get(i);
+      this.statuses[i] = builder.statuses.get(i);
+    }
+    this.slowDripProbability = builder.slowDripProbability;
+    this.slowDripChunk = builder.slowDripChunk;
+    this.slowDripIntervalNanos = builder.slowDripInterval.toNanos();
+  }
+
+  /**
+   * Gets the faults that leave every response alone.
+   *
+   * @return no faults
+   */
+  public static Faults none() {
+    return NONE;
+  }
+
+  /**
+   * Creates a new faults builder.
+   *
+   * @return the faults builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  long delayNanos(final Random random) {
+    return this.latency.nextNanos(random);
+  }
+
+  boolean reset(final Random random) {
+    return roll(random, this.resetProbability);
+  }
+
+  /*
+   * Picks at most one of the error statuses, returning 0 to respond normally.
+   */
+  int status(final Random random) {
+    if(this.statuses.length == 0) {
+      return 0;
+    }
+
+    double roll = random.nextDouble();
+    for(int i = 0; i < this.statuses.length; i++) {
+      roll -= this.statusProbabilities[i];
+      if(roll < 0) {
+        return this.statuses[i];
+      }
+    }
+    return 0;
+  }
+
+  boolean slowDrip(final Random random) {
+    return roll(random, this.slowDripProbability);
+  }
+
+  int slowDripChunk() {
+    return this.slowDripChunk;
+  }
+
+  long slowDripIntervalNanos() {
+    return this.slowDripIntervalNanos;
+  }
+
+  private static boolean roll(final Random random, final double probability) {
+    return probability > 0 && random.nextDouble() < probability;
+  }
+
+  /**
+   * Provides utilities for building {@link Faults}.
+   */
+  public static final class Builder {
+    private Latency latency = Latency.NONE;
+    private double resetProbability;
+    private final List<Double> statusProbabilities = new ArrayList<>();
+    private final List<Integer> statuses = new ArrayList<>();
+    private double totalStatusProbability;
+    private double slowDripProbability;
+    private int slowDripChunk = 1;
+    private Duration slowDripInterval = Duration.ZERO;
+
+    private Builder() {
+    }
+
+    /**
+     * Sets how long the server waits before it starts responding. Defaults to {@link Latency#NONE}.
+     *
+     * @param latency the latency distribution
+     * @return this builder
+     */
+    public Builder latency(final Latency latency) {
+      this.latency = Objects.requireNonNull(latency, "latency");
+      return this;
+    }
+
+    /**
+     * Responds with an error status instead of the recorded response. A {@code Retry-After} header is sent with
+     * 429 and 503 responses. May be called repeatedly for different statuses, whose probabilities are summed.
+     *
+     * @param probability the probability of responding with the status
+     * @param status the HTTP status
+     * @return this builder
+     */
+    public Builder status(final double probability, final int status) {
+      if(status < 400 || status > 599) {
+        throw new IllegalArgumentException(String.format("status must be an error status, got %d", status));
+      }
+
+      this.totalStatusProbability += probability(probability);
+      if(this.totalStatusProbability > 1) {
+        throw new IllegalArgumentException("status probabilities must not sum to more than 1");
+      }
+
+      this.statusProbabilities.add(probability);
+      this.statuses.add(status);
+      return this;
+    }
+
+    /**
+     * Resets the connection instead of responding.
+     *
+     * @param probability the probability of resetting the connection
+     * @return this builder
+     */
+    public Builder reset(final double probability) {
+      this.resetProbability = probability(probability);
+      return this;
+    }
+
+    /**
+     * Sends the response body a few bytes at a time, pausing between each chunk.
+     *
+     * @param probability the probability of dripping the body
+     * @param chunkBytes the number of bytes sent at a time
+     * @param interval the pause between chunks
+     * @return this builder
+     */
+    public Builder slowDrip(final double probability, final int chunkBytes, final Duration interval) {
+      if(chunkBytes <= 0) {
+        throw new IllegalArgumentException(String.format("chunkBytes must be positive, got %d", chunkBytes));
+      }
+
+      this.slowDripProbability = probability(probability);
+      this.slowDripChunk = chunkBytes;
+      this.slowDripInterval = Objects.requireNonNull(interval, "interval");
+      return this;
+    }
+
+    /**
+     * Builds new {@link Faults} from this builder's configuration.
+     *
+     * @return the faults
+     */
+    public Faults build() {
+      return new Faults(this);
+    }
+
+    private static double probability(final double probability) {
+      if(!(probability >= 0 && probability <= 1)) {
+        throw new IllegalArgumentException(String.format("probability must be between 0 and 1, got %s", probability));
+      }
+
+      return probability;
+    }
+  }
+}
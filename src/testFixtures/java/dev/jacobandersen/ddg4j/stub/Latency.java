@@ -0,0 +1,97 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.stub;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * A distribution of delays the {@link StubServer} waits for before it starts responding.
+ */
+@FunctionalInterface
+public interface Latency {
+  /**
+   * No added delay.
+   */
+  Latency NONE = random -> 0L;
+
+  /**
+   * Draws the next delay.
+   *
+   * @param random the server's source of randomness
+   * @return the delay, in nanoseconds
+   */
+  long nextNanos(Random random);
+
+  /**
+   * The same delay every time.
+   *
+   * @param delay the delay
+   * @return the distribution
+   */
+  static Latency fixed(final Duration delay) {
+    final long nanos = delay.toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * Delays spread evenly between two bounds.
+   *
+   * @param min the shortest delay
+   * @param max the longest delay
+   * @return the distribution
+   */
+  static Latency uniform(final Duration min, final Duration max) {
+    final long low = min.toNanos();
+    final long range = max.toNanos() - low;
+    if(range < 0) {
+      throw new IllegalArgumentException("max must not be less than min");
+    }
+
+    return random -> low + (long) (random.nextDouble() * range);
+  }
+
+  /**
+   * Exponentially distributed delays, as between independent arrivals.
+   *
+   * @param mean the mean delay
+   * @return the distribution
+   */
+  static Latency exponential(final Duration mean) {
+    final double nanos = mean.toNanos();
+    return random -> (long) (-nanos * Math.log(1 - random.nextDouble()));
+  }
+
+  /**
+   * Log-normally distributed delays: mostly close to the median, with a long tail whose weight grows with sigma.
+   *
+   * @param median the median delay
+   * @param sigma the standard deviation of the delay's logarithm
+   * @return the distribution
+   */
+  static Latency logNormal(final Duration median, final double sigma) {
+    final double mu = Math.log(median.toNanos());
+    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+  }
+}
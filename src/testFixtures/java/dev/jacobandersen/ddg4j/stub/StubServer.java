@@ -0,0 +1,491 @@
+/*
+ * This file is part of ddg4j, licensed under the MIT License.
+ *
+ * Copyright (c) 2021 Jacob Andersen (simpleauthority)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.jacobandersen.ddg4j.stub;
+
+import dev.jacobandersen.ddg4j.Fixtures;
+import dev.jacobandersen.ddg4j.util.Queries;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An embeddable stand-in for the DuckDuckGo API that replays recorded responses on the loopback interface.
+ * <p>Responses are keyed by the {@linkplain Queries#normalize(String) normalized} {@code q} parameter, and queries
+ * without a recording are answered with an empty result, as DuckDuckGo does. Connections are kept alive between
+ * requests. {@link Faults} can be injected, and swapped while the server is running, to see how clients behave
+ * against a slow or failing upstream. With {@linkplain Builder#compression(boolean) compression} enabled, bodies are
+ * gzipped or deflated for clients that accept it, as DuckDuckGo does.</p>
+ */
+public final class StubServer implements AutoCloseable {
+  private static final byte[] EMPTY = ("{\"Abstract\":\"\",\"AbstractSource\":\"\",\"AbstractText\":\"\",\"AbstractURL\":\"\","
+          + "\"Answer\":\"\",\"AnswerType\":\"\",\"Definition\":\"\",\"DefinitionSource\":\"\",\"DefinitionURL\":\"\","
+          + "\"Entity\":\"\",\"Heading\":\"\",\"Image\":\"\",\"ImageHeight\":0,\"ImageIsLogo\":0,\"ImageWidth\":0,"
+          + "\"Infobox\":\"\",\"Redirect\":\"\",\"RelatedTopics\":[],\"Results\":[],\"Type\":\"\"}").getBytes(StandardCharsets.UTF_8);
+  private static final int MAX_LINE = 8192;
+
+  private final Map<String, byte[]> fixtures;
+  private final byte[] fallback;
+  private final boolean compression;
+  // compressed bodies, keyed by the identity of the uncompressed body
+  private final Map<byte[], byte[]> gzipped = new ConcurrentHashMap<>();
+  private final Map<byte[], byte[]> deflated = new ConcurrentHashMap<>();
+  private final Random random;
+  private final ServerSocket socket;
+  private final ExecutorService workers;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final LongAdder requests = new LongAdder();
+  private final Map<String, LongAdder> requestsByQuery = new ConcurrentHashMap<>();
+  private volatile Faults faults;
+
+  private StubServer(final Builder builder) throws IOException {
+    this.fixtures = new HashMap<>(builder.fixtures);
+    this.fallback = builder.fallback;
+    this.compression = builder.compression;
+    this.random = new Random(builder.seed);
+    this.faults = builder.faults;
+    this.socket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+    this.workers = Executors.newCachedThreadPool(runnable -> {
+      final Thread thread = new Thread(runnable, "ddg4j-stub-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    this.workers.execute(this::accept);
+  }
+
+  /**
+   * Creates a new server builder.
+   *
+   * @return the server builder
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the URL to point a client's base URL at.
+   *
+   * @return the base URL
+   */
+  public String baseUrl() {
+    return "http://127.0.0.1:" + this.socket.getLocalPort() + "/";
+  }
+
+  /**
+   * Gets the faults currently being injected.
+   *
+   * @return the faults
+   */
+  public Faults faults() {
+    return this.faults;
+  }
+
+  /**
+   * Replaces the faults injected into requests from now on.
+   *
+   * @param faults the faults
+   */
+  public void faults(final Faults faults) {
+    this.faults = Objects.requireNonNull(faults, "faults");
+  }
+
+  /**
+   * Gets the number of requests received so far, including those that were answered with a fault.
+   *
+   * @return the number of requests
+   */
+  public long requests() {
+    return this.requests.sum();
+  }
+
+  /**
+   * Gets the number of requests received so far for a query.
+   *
+   * @param query the query
+   * @return the number of requests for the query
+   */
+  public long requests(final String query) {
+    final LongAdder count = this.requestsByQuery.get(Queries.normalize(query));
+    return count == null ? 0 : count.sum();
+  }
+
+  private void accept() {
+    while(!this.socket.isClosed()) {
+      try {
+        final Socket connection = this.socket.accept();
+        this.connections.add(connection);
+        this.workers.execute(() -> this.serve(connection));
+      } catch(final IOException ex) {
+        // closed
+      }
+    }
+  }
+
+  private void serve(final Socket connection) {
+    try(Socket closing = connection) {
+      closing.setTcpNoDelay(true);
+      final InputStream in = new BufferedInputStream(closing.getInputStream());
+      final OutputStream out = new BufferedOutputStream(closing.getOutputStream());
+      Request request;
+      while((request = Request.read(in)) != null) {
+        this.requests.increment();
+        this.requestsByQuery.computeIfAbsent(request.query, query -> new LongAdder()).increment();
+        if(!this.respond(closing, out, request)) {
+          return;
+        }
+      }
+    } catch(final IOException ex) {
+      // the client went away, or the server was closed
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.connections.remove(connection);
+    }
+  }
+
+  /*
+   * Responds to a request, returning whether the connection should be kept alive for another one.
+   */
+  private boolean respond(final Socket connection, final OutputStream out, final Request request) throws IOException, InterruptedException {
+    final Faults faults = this.faults;
+    sleep(faults.delayNanos(this.random));
+
+    if(faults.reset(this.random)) {
+      // closing with a zero linger time sends a RST rather than a FIN
+      connection.setSoLinger(true, 0);
+      connection.close();
+      return false;
+    }
+
+    final int status = faults.status(this.random);
+    if(status != 0) {
+      final byte[] body = reason(status).getBytes(StandardCharsets.US_ASCII);
+      final String retryAfter = status == 429 || status == 503 ? "Retry-After: 1\r\n" : "";
+      out.write(head(status, "text/plain", body.length, retryAfter, request.keepAlive));
+      out.write(body);
+      out.flush();
+      return request.keepAlive;
+    }
+
+    final byte[] fixture = this.fixtures.getOrDefault(request.query, this.fallback);
+    final String encoding = this.compression ? request.encoding : null;
+    final byte[] body;
+    if("gzip".equals(encoding)) {
+      body = this.gzipped.computeIfAbsent(fixture, uncompressed -> compress(uncompressed, true));
+    } else if("deflate".equals(encoding)) {
+      body = this.deflated.computeIfAbsent(fixture, uncompressed -> compress(uncompressed, false));
+    } else {
+      body = fixture;
+    }
+
+    final String contentEncoding = encoding != null ? "Content-Encoding: " + encoding + "\r\n" : "";
+    out.write(head(200, "application/x-javascript", body.length, contentEncoding, request.keepAlive));
+    if(faults.slowDrip(this.random)) {
+      final int chunk = faults.slowDripChunk();
+      for(int offset = 0; offset < body.length; offset += chunk) {
+        out.write(body, offset, Math.min(chunk, body.length - offset));
+        out.flush();
+        sleep(faults.slowDripIntervalNanos());
+      }
+    } else {
+      out.write(body);
+      out.flush();
+    }
+    return request.keepAlive;
+  }
+
+  private static byte[] head(final int status, final String contentType, final int length, final String extra, final boolean keepAlive) {
+    return ("HTTP/1.1 " + status + " " + reason(status) + "\r\n"
+            + "Content-Type: " + contentType + "\r\n"
+            + "Content-Length: " + length + "\r\n"
+            + extra
+            + (keepAlive ? "" : "Connection: close\r\n")
+            + "\r\n").getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[] compress(final byte[] body, final boolean gzip) {
+    final ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length);
+    try(OutputStream out = gzip ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+      out.write(body);
+    } catch(final IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static String reason(final int status) {
+    switch (status) {
+      case 200:
+        return "OK";
+      case 400:
+        return "Bad Request";
+      case 403:
+        return "Forbidden";
+      case 404:
+        return "Not Found";
+      case 429:
+        return "Too Many Requests";
+      case 500:
+        return "Internal Server Error";
+      case 502:
+        return "Bad Gateway";
+      case 503:
+        return "Service Unavailable";
+      case 504:
+        return "Gateway Timeout";
+      default:
+        return "Error";
+    }
+  }
+
+  private static void sleep(final long nanos) throws InterruptedException {
+    if(nanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+  }
+
+  /**
+   * Stops accepting requests and closes every open connection.
+   *
+   * @throws IOException if the server socket could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    this.socket.close();
+    for(final Socket connection : this.connections) {
+      try {
+        connection.close();
+      } catch(final IOException ex) {
+        // already gone
+      }
+    }
+    this.workers.shutdownNow();
+  }
+
+  /*
+   * The parts of a request the server cares about: the normalized query, whether to keep the connection alive, and
+   * the compression to respond with, if any.
+   */
+  private static final class Request {
+    private final String query;
+    private final boolean keepAlive;
+    private final String encoding;
+
+    private Request(final String query, final boolean keepAlive, final String encoding) {
+      this.query = query;
+      this.keepAlive = keepAlive;
+      this.encoding = encoding;
+    }
+
+    /*
+     * Reads the next request off the connection, returning null once the client has closed it.
+     */
+    private static Request read(final InputStream in) throws IOException {
+      final String line = readLine(in);
+      if(line == null) {
+        return null;
+      }
+
+      final String[] parts = line.split(" ");
+      if(parts.length != 3) {
+        throw new IOException("Malformed request line: " + line);
+      }
+
+      boolean keepAlive = !parts[2].equals("HTTP/1.0");
+      String encoding = null;
+      String header;
+      while((header = readLine(in)) != null && !header.isEmpty()) {
+        final int colon = header.indexOf(':');
+        if(colon <= 0) {
+          continue;
+        }
+
+        final String name = header.substring(0, colon).trim();
+        final String value = header.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+        if(name.equalsIgnoreCase("Connection")) {
+          keepAlive = value.equals("keep-alive") || keepAlive && !value.equals("close");
+        } else if(name.equalsIgnoreCase("Accept-Encoding")) {
+          encoding = value.contains("gzip") ? "gzip" : value.contains("deflate") ? "deflate" : null;
+        }
+      }
+
+      return new Request(Queries.normalize(query(parts[1])), keepAlive, encoding);
+    }
+
+    private static String query(final String target) throws IOException {
+      final int start = target.indexOf('?');
+      if(start < 0) {
+        return "";
+      }
+
+      for(final String parameter : target.substring(start + 1).split("&")) {
+        if(parameter.startsWith("q=")) {
+          return URLDecoder.decode(parameter.substring(2), "UTF-8");
+        }
+      }
+      return "";
+    }
+
+    private static String readLine(final InputStream in) throws IOException {
+      final StringBuilder line = new StringBuilder();
+      int read;
+      while((read = in.read()) != -1) {
+        if(read == '\n') {
+          final int length = line.length();
+          return length > 0 && line.charAt(length - 1) == '\r' ? line.substring(0, length - 1) : line.toString();
+        }
+
+        if(line.length() == MAX_LINE) {
+          throw new IOException("Request line too long");
+        }
+        line.append((char) read);
+      }
+      return line.length() == 0 ? null : line.toString();
+    }
+  }
+
+  /**
+   * Provides utilities for building {@link StubServer}s.
+   */
+  public static final class Builder {
+    private final Map<String, byte[]> fixtures = new HashMap<>();
+    private byte[] fallback = EMPTY;
+    private Faults faults = Faults.none();
+    private boolean compression;
+    private long seed = 0x64646734L;
+
+    private Builder() {
+    }
+
+    /**
+     * Replays a response for a query.
+     *
+     * @param query the query
+     * @param body the response body
+     * @return this builder
+     */
+    public Builder fixture(final String query, final byte[] body) {
+      this.fixtures.put(Queries.normalize(query), Objects.requireNonNull(body, "body"));
+      return this;
+    }
+
+    /**
+     * Replays responses for several queries.
+     *
+     * @param fixtures the response bodies, by query
+     * @return this builder
+     */
+    public Builder fixtures(final Map<String, byte[]> fixtures) {
+      fixtures.forEach(this::fixture);
+      return this;
+    }
+
+    /**
+     * Replays the responses recorded from DuckDuckGo that ship with the test fixtures.
+     *
+     * @return this builder
+     */
+    public Builder recorded() {
+      return this.fixtures(Fixtures.recorded());
+    }
+
+    /**
+     * Sets the response for queries without a fixture. Defaults to an empty result.
+     *
+     * @param fallback the response body
+     * @return this builder
+     */
+    public Builder fallback(final byte[] fallback) {
+      this.fallback = Objects.requireNonNull(fallback, "fallback");
+      return this;
+    }
+
+    /**
+     * Sets the faults injected into requests. Defaults to {@link Faults#none()}.
+     *
+     * @param faults the faults
+     * @return this builder
+     */
+    public Builder faults(final Faults faults) {
+      this.faults = Objects.requireNonNull(faults, "faults");
+      return this;
+    }
+
+    /**
+     * Sets whether response bodies are compressed for clients that accept it, preferring gzip to deflate. Defaults
+     * to false. Slow drips are chunked after compression, as they would be on the wire.
+     *
+     * @param compression whether or not to compress responses
+     * @return this builder
+     */
+    public Builder compression(final boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    /**
+     * Seeds the randomness behind latency and faults, so runs can be repeated.
+     *
+     * @param seed the seed
+     * @return this builder
+     */
+    public Builder seed(final long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /**
+     * Starts a new {@link StubServer} on an ephemeral loopback port.
+     *
+     * @return the running server
+     * @throws IOException if the server socket could not be opened
+     */
+    public StubServer start() throws IOException {
+      return new StubServer(this);
+    }
+  }
+}